@@ -1,6 +1,6 @@
 const express = require('express');
 const app = express();
-app.use(express.json());
+app.use(express.json({ limit: '10mb' }));
 
 // Log all requests
 app.use((req, res, next) => {
@@ -15,9 +15,19 @@ const ok = (req, res) => {
   res.status(200).json({ status: 'ok' });
 };
 
+// Bulk variants: body is { items: [...] }, answer carries one result per item, in order
+const okBatch = (req, res) => {
+  const items = Array.isArray(req.body.items) ? req.body.items : [];
+  console.log(`Responding to ${req.path} with ${items.length} results`);
+  res.status(200).json({ results: items.map(() => ({ ok: true })) });
+};
+
 app.post('/doctor-calendar', ok);
 app.post('/room-reservation', ok);
 app.post('/email-notification', ok);
+app.post('/doctor-calendar/batch', okBatch);
+app.post('/room-reservation/batch', okBatch);
+app.post('/email-notification/batch', okBatch);
 
 const port = process.env.PORT || 3001;
 app.listen(port, () => {
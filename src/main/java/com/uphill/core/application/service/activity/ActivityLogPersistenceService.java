@@ -2,8 +2,10 @@ package com.uphill.core.application.service.activity;
 
 import com.uphill.core.domain.ActivityLog;
 
+import java.util.List;
+
 public interface ActivityLogPersistenceService {
     ActivityLog save(ActivityLog activityLog);
-}
-
 
+    void saveAll(List<ActivityLog> activityLogs);
+}
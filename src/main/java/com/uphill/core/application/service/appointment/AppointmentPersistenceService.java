@@ -1,24 +1,73 @@
 package com.uphill.core.application.service.appointment;
 
 import com.uphill.core.domain.Appointment;
+import com.uphill.core.domain.AppointmentCursor;
 import com.uphill.core.domain.AppointmentStatus;
-import org.springframework.data.domain.Page;
+import com.uphill.core.domain.AppointmentSummary;
+import com.uphill.core.domain.CountStrategy;
+import com.uphill.core.domain.CursorPage;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 
 import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
 
 public interface AppointmentPersistenceService {
     
-    Page<Appointment> findAppointmentsWithFilters(
+    /**
+     * One page of the listing. The total is counted or estimated as {@code countStrategy} says,
+     * in which case the result is a {@link org.springframework.data.domain.Page}; with
+     * {@link CountStrategy#NONE} it is a plain slice that only knows whether more rows follow.
+     */
+    Slice<AppointmentSummary> findAppointmentsWithFilters(
             Long patientId,
             Long doctorId,
             Long roomId,
             AppointmentStatus status,
             LocalDate startDate,
             LocalDate endDate,
-            Pageable pageable);
+            Pageable pageable,
+            CountStrategy countStrategy);
+
+    /**
+     * Up to {@code size} appointments in listing order, starting right after {@code after}, or
+     * from the top when it is null. Costs the same however deep the cursor is.
+     */
+    CursorPage<AppointmentSummary> findAppointmentsByCursor(
+            Long patientId,
+            Long doctorId,
+            Long roomId,
+            AppointmentStatus status,
+            LocalDate startDate,
+            LocalDate endDate,
+            AppointmentCursor after,
+            int size);
 
     Appointment saveAppointment(Appointment appointment);
 
+    /**
+     * Selects a free doctor of the requested specialty and a free room and inserts the
+     * appointment in a single statement. Empty when no free pair could be claimed.
+     */
+    Optional<Appointment> allocateAppointment(Appointment appointment);
+
     void updateAppointmentStatus(Long appointmentId, AppointmentStatus status);
+
+    /**
+     * Confirms, in one statement, the booked appointments among the given ids that have no
+     * unprocessed outbox event left (EVENTS outbox format).
+     *
+     * @return the ids of the appointments that were confirmed
+     */
+    List<Long> confirmBookedAppointmentsWithoutUnprocessedEvents(Collection<Long> appointmentIds);
+
+    /**
+     * Confirms, in one statement, the booked appointments among the given ids, for callers that
+     * track completion themselves (SAGA outbox format).
+     *
+     * @return the ids of the appointments that were confirmed
+     */
+    List<Long> confirmBookedAppointments(Collection<Long> appointmentIds);
 }
@@ -0,0 +1,46 @@
+package com.uphill.core.application.service.appointment;
+
+import com.uphill.core.domain.AppointmentSaga;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+public interface AppointmentSagaPersistenceService {
+    /**
+     * Inserts a pending saga for the appointment; if one exists, its required steps are merged
+     * with the given ones.
+     */
+    void create(AppointmentSaga saga);
+
+    /**
+     * Marks up to {@code limit} due pending sagas IN_FLIGHT under this node's lease and commits.
+     * A saga waiting for a retry is due once its next_retry_at is at or before {@code retriesDueBy}.
+     */
+    List<AppointmentSaga> claimDueSagas(LocalDateTime retriesDueBy, int limit, Duration leaseDuration);
+
+    /**
+     * Claims the sagas of the given appointments if they are still pending and due.
+     */
+    List<AppointmentSaga> claimPendingSagas(Collection<Long> appointmentIds, Duration leaseDuration);
+
+    /**
+     * Writes status, step masks, retry counts and next retry time of a claimed saga and releases
+     * its lease. Returns false if the lease expired in the meantime.
+     */
+    boolean completeClaim(AppointmentSaga saga);
+
+    /**
+     * Returns IN_FLIGHT sagas whose lease ended, by the database clock, to PENDING.
+     *
+     * @return the number of sagas requeued
+     */
+    int requeueExpiredLeases();
+
+    /**
+     * Due times of up to {@code limit} pending sagas scheduled after the given (due time,
+     * appointment id) position and no later than {@code until}, keyed by appointment id in due order.
+     */
+    Map<Long, LocalDateTime> findScheduledRetries(LocalDateTime afterAt, Long afterId, LocalDateTime until, int limit);
+}
@@ -1,25 +1,37 @@
 package com.uphill.core.application.service.appointment;
 
 import com.uphill.core.domain.Appointment;
+import com.uphill.core.domain.AppointmentCursor;
 import com.uphill.core.domain.AppointmentStatus;
+import com.uphill.core.domain.AppointmentSummary;
+import com.uphill.core.domain.CountStrategy;
+import com.uphill.core.domain.CursorPage;
 import com.uphill.core.domain.Doctor;
 import com.uphill.core.domain.Room;
 import com.uphill.core.domain.TimeSlot;
 import com.uphill.core.application.service.activity.ActivityLogHelper;
 import com.uphill.core.domain.ActivityEventType;
 import com.uphill.core.application.service.activity.ActivityLogPersistenceService;
+import com.uphill.core.exception.ResourceAlreadyBookedException;
 import lombok.RequiredArgsConstructor;
-import org.springframework.data.domain.Page;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionOperations;
 
 import java.time.LocalDate;
 import java.time.LocalTime;
+import java.util.HashSet;
+import java.util.Set;
 
 @Service
 @RequiredArgsConstructor
 public class AppointmentService {
+
+    private static final Logger log = LoggerFactory.getLogger(AppointmentService.class);
     
     private final AppointmentPersistenceService appointmentPersistenceService;
     private final DoctorService doctorService;
@@ -27,23 +39,54 @@ public class AppointmentService {
     private final OutboxEventService outboxEventService;
     private final TimeSlotService timeSlotService;
     private final ActivityLogPersistenceService activityLogPersistenceService;
+    private final TransactionOperations transactionOperations;
+
+    @Value("${appointment.allocation.single-statement:false}")
+    private boolean singleStatementAllocation;
+
+    @Value("${appointment.booking.max-attempts:3}")
+    private int maxBookingAttempts;
 
-    public Page<Appointment> findAppointmentsWithFilters(
+    public Slice<AppointmentSummary> findAppointmentsWithFilters(
             final Long patientId,
             final Long doctorId,
             final Long roomId,
             final String status,
             final LocalDate startDate,
             final LocalDate endDate,
-            final Pageable pageable) {
+            final Pageable pageable,
+            final String count) {
         
         final AppointmentStatus statusEnum = AppointmentStatus.fromString(status);
+        final CountStrategy countStrategy = CountStrategy.fromString(count);
         
         return appointmentPersistenceService.findAppointmentsWithFilters(
-            patientId, doctorId, roomId, statusEnum, startDate, endDate, pageable);
+            patientId, doctorId, roomId, statusEnum, startDate, endDate, pageable, countStrategy);
     }
 
-    @Transactional
+    public CursorPage<AppointmentSummary> findAppointmentsByCursor(
+            final Long patientId,
+            final Long doctorId,
+            final Long roomId,
+            final String status,
+            final LocalDate startDate,
+            final LocalDate endDate,
+            final String cursor,
+            final int size) {
+
+        final AppointmentStatus statusEnum = AppointmentStatus.fromString(status);
+        final AppointmentCursor after = cursor == null || cursor.isBlank() ? null : AppointmentCursor.decode(cursor);
+
+        return appointmentPersistenceService.findAppointmentsByCursor(
+            patientId, doctorId, roomId, statusEnum, startDate, endDate, after, size);
+    }
+
+    /**
+     * Books the appointment, retrying in a fresh transaction when the chosen doctor or room was
+     * taken by a concurrent booking between selection and insert. Each retry excludes only the
+     * side whose unique constraint was violated, so it moves on to the next candidate for it;
+     * any other integrity error is not a race and is not retried.
+     */
     public Appointment createAppointment(final Appointment appointment, final String timeSlotString) {
         final String[] times = timeSlotString.split("-");
         final LocalTime startTime = java.time.LocalTime.parse(times[0]);
@@ -51,17 +94,73 @@ public class AppointmentService {
         
         final TimeSlot timeSlot = timeSlotService.findByTimeRange(startTime, endTime);
         appointment.setTimeSlot(timeSlot);
-        
+        appointment.setStatus(AppointmentStatus.BOOKED);
+
+        final Doctor requestedDoctor = appointment.getDoctor();
+        final Set<Long> excludedDoctorIds = new HashSet<>();
+        final Set<Long> excludedRoomIds = new HashSet<>();
+        for (int attempt = 1; ; attempt++) {
+            appointment.setDoctor(requestedDoctor);
+            appointment.setRoom(null);
+            try {
+                return transactionOperations.execute(status ->
+                        bookAppointment(appointment, timeSlotString, excludedDoctorIds, excludedRoomIds));
+            } catch (ResourceAlreadyBookedException ex) {
+                if (attempt >= maxBookingAttempts) {
+                    throw ex;
+                }
+                log.info("Booking attempt {} for {} {} lost the {} to a concurrent booking, retrying with another candidate",
+                        attempt, appointment.getDate(), timeSlotString, ex.getResource());
+                if (ex.getResource() == ResourceAlreadyBookedException.Resource.DOCTOR
+                        && appointment.getDoctor() != requestedDoctor) {
+                    excludedDoctorIds.add(appointment.getDoctor().getId());
+                }
+                if (ex.getResource() == ResourceAlreadyBookedException.Resource.ROOM && appointment.getRoom() != null) {
+                    excludedRoomIds.add(appointment.getRoom().getId());
+                }
+            }
+        }
+    }
+
+    private Appointment bookAppointment(final Appointment appointment, final String timeSlotString,
+                                        final Set<Long> excludedDoctorIds, final Set<Long> excludedRoomIds) {
+        final Appointment savedAppointment = singleStatementAllocation
+                ? appointmentPersistenceService.allocateAppointment(appointment)
+                        .map(allocated -> logResourceSelection(allocated, timeSlotString))
+                        .orElseGet(() -> selectResourcesAndSave(appointment, timeSlotString, excludedDoctorIds, excludedRoomIds))
+                : selectResourcesAndSave(appointment, timeSlotString, excludedDoctorIds, excludedRoomIds);
+
+        outboxEventService.createDoctorCalendarUpdateEvent(savedAppointment);
+        outboxEventService.createRoomReservationEvent(savedAppointment);
+        outboxEventService.createEmailConfirmationEvent(savedAppointment);
+
+        return savedAppointment;
+    }
+
+    private Appointment selectResourcesAndSave(final Appointment appointment, final String timeSlotString,
+                                               final Set<Long> excludedDoctorIds, final Set<Long> excludedRoomIds) {
         final Doctor doctor = doctorService.findAvailableDoctor(
                 appointment.getDoctor().getSpecialty().getId(), 
                 appointment.getDate(), 
-                timeSlot.getId()
+                appointment.getTimeSlot().getId(),
+                appointment.getPatient().getId(),
+                excludedDoctorIds
+        );
+        final Room room = roomService.findAvailableRoom(
+                appointment.getDate(),
+                appointment.getTimeSlot().getId(),
+                appointment.getPatient().getId(),
+                excludedRoomIds
         );
-        final Room room = roomService.findAvailableRoom(appointment.getDate(), timeSlot.getId());
 
         appointment.setDoctor(doctor);
         appointment.setRoom(room);
+        logResourceSelection(appointment, timeSlotString);
 
+        return appointmentPersistenceService.saveAppointment(appointment);
+    }
+
+    private Appointment logResourceSelection(final Appointment appointment, final String timeSlotString) {
         ActivityLogHelper.logAppointmentEvent(
                 activityLogPersistenceService,
                 0L,
@@ -77,14 +176,6 @@ public class AppointmentService {
                 appointment,
                 timeSlotString
         );
-        appointment.setStatus(AppointmentStatus.BOOKED);
-        
-        final Appointment savedAppointment = appointmentPersistenceService.saveAppointment(appointment);
-
-        outboxEventService.createDoctorCalendarUpdateEvent(savedAppointment);
-        outboxEventService.createRoomReservationEvent(savedAppointment);
-        outboxEventService.createEmailConfirmationEvent(savedAppointment);
-
-        return savedAppointment;
+        return appointment;
     }
 }
@@ -3,9 +3,14 @@ package com.uphill.core.application.service.appointment;
 import com.uphill.core.domain.Doctor;
 
 import java.time.LocalDate;
+import java.util.Set;
 
 public interface DoctorService {
-    Doctor findAvailableDoctor(Long specialtyId, LocalDate date, Long timeSlotId);
+    /**
+     * Picks one of the free doctors of the specialty for the slot, skipping {@code excludedDoctorIds}
+     * (doctors a previous attempt of the same booking already lost a race for).
+     */
+    Doctor findAvailableDoctor(Long specialtyId, LocalDate date, Long timeSlotId, Long patientId, Set<Long> excludedDoctorIds);
 }
 
 
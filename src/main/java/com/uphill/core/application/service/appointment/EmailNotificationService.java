@@ -2,8 +2,10 @@ package com.uphill.core.application.service.appointment;
 
 import com.uphill.core.domain.AppointmentEventPayload;
 
+import java.util.concurrent.CompletableFuture;
+
 public interface EmailNotificationService {
-    boolean sendEmail(AppointmentEventPayload event);
+    CompletableFuture<Boolean> sendEmail(AppointmentEventPayload event);
 }
 
 
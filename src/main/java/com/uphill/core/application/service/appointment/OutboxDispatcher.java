@@ -0,0 +1,28 @@
+package com.uphill.core.application.service.appointment;
+
+import com.uphill.core.domain.OutboxEvent;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.BiPredicate;
+import java.util.function.Function;
+
+public interface OutboxDispatcher {
+
+    /**
+     * Runs {@code handler} for every event, in parallel across aggregates but strictly in list
+     * order within one aggregate. The returned future completes once every handler has finished;
+     * handler failures are logged and do not stop the remaining events of the aggregate.
+     */
+    default CompletableFuture<Void> dispatch(final List<OutboxEvent> events,
+                                             final Function<OutboxEvent, CompletableFuture<Void>> handler) {
+        return dispatch(events, (earlier, later) -> true, handler);
+    }
+
+    /**
+     * Like {@link #dispatch(List, Function)}, but an event only waits for the earlier events of its
+     * aggregate that {@code mustFollow(earlier, event)} names; the others run alongside it.
+     */
+    CompletableFuture<Void> dispatch(List<OutboxEvent> events, BiPredicate<OutboxEvent, OutboxEvent> mustFollow,
+                                     Function<OutboxEvent, CompletableFuture<Void>> handler);
+}
@@ -1,13 +1,90 @@
 package com.uphill.core.application.service.appointment;
 
 import com.uphill.core.domain.OutboxEvent;
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 
 public interface OutboxEventPersistenceService {
-    List<OutboxEvent> findPendingDueEvents(LocalDateTime now);
-    OutboxEvent save(OutboxEvent event);
+    /**
+     * Marks up to {@code limit} due pending events IN_FLIGHT under this node's lease and commits,
+     * so the caller can work on them without holding locks or a connection. Events of an aggregate
+     * that still has an event in flight, on any node, are left for later, so the aggregate's events
+     * stay in order across claims and partition handovers, and so is a step whose prerequisites are
+     * not all PROCESSED yet. An event waiting for a retry is due once its next_retry_at is at or
+     * before {@code retriesDueBy}.
+     */
+    List<OutboxEvent> claimDueEvents(LocalDateTime retriesDueBy, int limit, Duration leaseDuration);
+
+    /**
+     * Claims the given events if they are still pending and due, on the same terms as
+     * {@link #claimDueEvents}.
+     */
+    List<OutboxEvent> claimPendingEvents(Collection<Long> eventIds, Duration leaseDuration);
+
+    /**
+     * Claims the pending, due events of the given aggregates, such as steps whose prerequisites
+     * have just been processed, on the same terms as {@link #claimDueEvents}.
+     */
+    List<OutboxEvent> claimPendingEventsOf(Collection<Long> aggregateIds, Duration leaseDuration);
+
+    /**
+     * Marks the given claimed events PROCESSED and releases their leases, in one statement.
+     * Events whose lease this node lost are skipped.
+     *
+     * @return the ids of the events actually marked
+     */
+    List<Long> markProcessed(Collection<Long> eventIds);
+
+    /**
+     * Hands the given claimed events back to PENDING, due at {@code nextRetryAt}, counting one
+     * more failed attempt for each. Events whose lease this node lost are skipped.
+     *
+     * @return the ids of the events actually rescheduled
+     */
+    List<Long> scheduleRetry(Collection<Long> eventIds, LocalDateTime nextRetryAt);
+
+    /**
+     * Marks the given claimed events FAILED for good, counting their last attempt. Events whose
+     * lease this node lost are skipped.
+     *
+     * @return the ids of the events actually marked
+     */
+    List<Long> markFailed(Collection<Long> eventIds);
+
+    /**
+     * Fails every still pending event of the given aggregates, once one of their events has failed
+     * for good, so the steps after it never run.
+     *
+     * @return the events failed
+     */
+    List<OutboxEvent> failPendingEvents(Collection<Long> aggregateIds);
+
+    /**
+     * Releases claimed events back to PENDING, due at {@code nextRetryAt}, without touching their
+     * retry count. Events whose lease this node lost are skipped.
+     *
+     * @return the number of events deferred
+     */
+    int deferClaimedEvents(Collection<Long> eventIds, LocalDateTime nextRetryAt);
+
+    /**
+     * Returns IN_FLIGHT events whose lease ended, by the database clock, to PENDING.
+     *
+     * @return the number of events requeued
+     */
+    int requeueExpiredLeases();
+
     List<OutboxEvent> findByAggregateId(Long aggregateId);
+
+    /**
+     * Due times of up to {@code limit} pending events scheduled after the given position and no
+     * later than {@code until}, keyed by event id in due order. Positions are (due time, id)
+     * pairs, so the last entry of one page is where the next one starts.
+     */
+    Map<Long, LocalDateTime> findScheduledRetries(LocalDateTime afterAt, Long afterId, LocalDateTime until, int limit);
 }
 
 
@@ -0,0 +1,130 @@
+package com.uphill.core.application.service.appointment;
+
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+/**
+ * Drives {@link OutboxProcessingService#pollAndProcess()} and {@link SagaProcessingService#pollAndProcess()}
+ * from a dedicated thread; both formats are polled so rows written before a format switch still drain.
+ * A full batch means more work is waiting, so the next batch is claimed immediately (drain mode);
+ * otherwise the loop sleeps, doubling the pause on every empty poll up to
+ * {@code outbox.poll.interval.ms}. {@link #wakeUp()} cuts the pause short and resets the backoff.
+ */
+@Component
+@RequiredArgsConstructor
+public class OutboxPoller implements SmartLifecycle {
+
+    private static final Logger log = LoggerFactory.getLogger(OutboxPoller.class);
+
+    private final OutboxProcessingService outboxProcessingService;
+    private final SagaProcessingService sagaProcessingService;
+    private final Object monitor = new Object();
+
+    @Value("${outbox.poller.enabled:true}")
+    private boolean enabled;
+
+    @Value("${outbox.poll.min-interval-ms:100}")
+    private long minIntervalMs;
+
+    @Value("${outbox.poll.interval.ms:30000}")
+    private long maxIntervalMs;
+
+    @Value("${outbox.poll.drain:true}")
+    private boolean drain;
+
+    @Value("${outbox.poller.shutdown-timeout-ms:30000}")
+    private long shutdownTimeoutMs;
+
+    private Thread thread;
+    private boolean wakeRequested;
+    private volatile boolean running;
+
+    public void wakeUp() {
+        synchronized (monitor) {
+            wakeRequested = true;
+            monitor.notifyAll();
+        }
+    }
+
+    @Override
+    public void start() {
+        if (!enabled || running) {
+            return;
+        }
+        running = true;
+        thread = new Thread(this::run, "outbox-poller");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    @Override
+    public void stop() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        wakeUp();
+        try {
+            thread.join(shutdownTimeoutMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    private void run() {
+        long idleDelayMs = minIntervalMs;
+        while (running) {
+            long delayMs;
+            try {
+                final int claimedEvents = outboxProcessingService.pollAndProcess();
+                final int claimedSagas = sagaProcessingService.pollAndProcess();
+                if (claimedEvents + claimedSagas == 0) {
+                    delayMs = idleDelayMs;
+                    idleDelayMs = Math.min(idleDelayMs * 2, maxIntervalMs);
+                } else {
+                    idleDelayMs = minIntervalMs;
+                    final boolean fullBatch = claimedEvents >= outboxProcessingService.getClaimBatchSize()
+                            || claimedSagas >= sagaProcessingService.getClaimBatchSize();
+                    delayMs = drain && fullBatch ? 0 : minIntervalMs;
+                }
+            } catch (RuntimeException ex) {
+                log.error("Outbox poll failed: {}", ex.getMessage(), ex);
+                delayMs = idleDelayMs;
+                idleDelayMs = Math.min(idleDelayMs * 2, maxIntervalMs);
+            }
+            if (await(delayMs)) {
+                idleDelayMs = minIntervalMs;
+            }
+        }
+    }
+
+    // Returns true when woken up before the delay elapsed.
+    private boolean await(final long delayMs) {
+        synchronized (monitor) {
+            final long deadline = System.currentTimeMillis() + delayMs;
+            long remaining = delayMs;
+            while (!wakeRequested && remaining > 0 && running) {
+                try {
+                    monitor.wait(remaining);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    running = false;
+                    return false;
+                }
+                remaining = deadline - System.currentTimeMillis();
+            }
+            final boolean woken = wakeRequested;
+            wakeRequested = false;
+            return woken;
+        }
+    }
+}
@@ -1,136 +1,365 @@
 package com.uphill.core.application.service.appointment;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.core.JsonProcessingException;
 import com.uphill.core.domain.AppointmentEventPayload;
 import com.uphill.core.domain.AppointmentStatus;
 import com.uphill.core.domain.OutboxEvent;
+import com.uphill.core.domain.SagaStep;
 import com.uphill.core.domain.ActivityLog;
+import com.uphill.core.exception.DownstreamUnavailableException;
 import com.uphill.core.application.service.activity.ActivityLogPersistenceService;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 public class OutboxProcessingService {
 
     private static final Logger log = LoggerFactory.getLogger(OutboxProcessingService.class);
+    private static final int MAX_ATTEMPTS = 5;
+    // The appointment steps the event types stand for, so they follow the same dependency graph
+    // as the saga format: calendar and room side by side, the email only after both.
+    private static final Map<String, SagaStep> STEPS = Map.of(
+            "DOCTOR_CALENDAR_UPDATE", SagaStep.DOCTOR_CALENDAR,
+            "ROOM_RESERVATION", SagaStep.ROOM_RESERVATION,
+            "SEND_CONFIRMATION_EMAIL", SagaStep.CONFIRMATION_EMAIL);
 
     private final OutboxEventPersistenceService outboxEventPersistenceService;
     private final AppointmentPersistenceService appointmentPersistenceService;
     private final DoctorCalendarService doctorCalendarService;
     private final RoomReservationService roomReservationService;
     private final EmailNotificationService emailNotificationService;
-    private final ObjectMapper objectMapper;
     private final ActivityLogPersistenceService activityLogPersistenceService;
+    private final OutboxDispatcher outboxDispatcher;
+    private final OutboxRetryScheduler outboxRetryScheduler;
 
-    @Scheduled(fixedDelayString = "${outbox.poll.interval.ms:30000}")
-    @Transactional
-    public void pollAndProcess() {
-        final List<OutboxEvent> dueEvents = outboxEventPersistenceService.findPendingDueEvents(LocalDateTime.now());
-        log.info("Found {} pending events to process", dueEvents.size());
-        for (final OutboxEvent event : dueEvents) {
-            try {
-                log.info("Processing event {} of type {}", event.getId(), event.getEventType());
-                processSingleEvent(event);
-            } catch (Exception ex) {
-                log.error("Unexpected error processing event {}: {}", event.getId(), ex.getMessage(), ex);
-                handleFailure(event);
-            }
+    @Value("${outbox.claim.batch-size:100}")
+    private int claimBatchSize;
+
+    @Value("${outbox.lease.duration-ms:300000}")
+    private long leaseDurationMs;
+
+    /**
+     * Claims one batch of due events and processes it to completion. Delayed retries are left to
+     * the {@link OutboxRetryScheduler} until they are overdue by its grace.
+     *
+     * @return the number of events claimed
+     */
+    public int pollAndProcess() {
+        final List<OutboxEvent> claimedEvents = outboxEventPersistenceService.claimDueEvents(
+                LocalDateTime.now().minus(outboxRetryScheduler.pollerGrace()), claimBatchSize, Duration.ofMillis(leaseDurationMs));
+        if (claimedEvents.isEmpty()) {
+            log.debug("No pending outbox events to process");
+            return 0;
+        }
+        log.info("Claimed {} pending events to process", claimedEvents.size());
+        final BatchOutcome outcome = new BatchOutcome();
+        outboxDispatcher.dispatch(claimedEvents, OutboxProcessingService::mustFollow, event -> processEvent(event, outcome))
+                .join();
+        finishBatch(outcome);
+        return claimedEvents.size();
+    }
+
+    /**
+     * Claims the given freshly committed events and hands them to the dispatcher without waiting
+     * for delivery. Events that are gone or already claimed elsewhere are left alone; failures go
+     * through the usual retry path and are picked up by the poller later.
+     *
+     * @return completes once every claimed event has been handled
+     */
+    public CompletableFuture<Void> dispatchNow(final Collection<Long> eventIds) {
+        return dispatchClaimed(outboxEventPersistenceService.claimPendingEvents(eventIds, Duration.ofMillis(leaseDurationMs)));
+    }
+
+    /**
+     * Steps held back until their prerequisites were processed are claimed and dispatched as soon
+     * as that happens, instead of waiting for the next poll.
+     */
+    private CompletableFuture<Void> dispatchClaimed(final List<OutboxEvent> claimedEvents) {
+        if (claimedEvents.isEmpty()) {
+            return CompletableFuture.completedFuture(null);
         }
+        log.debug("Dispatching {} outbox events right after commit", claimedEvents.size());
+        final BatchOutcome outcome = new BatchOutcome();
+        return outboxDispatcher.dispatch(claimedEvents, OutboxProcessingService::mustFollow, event -> processEvent(event, outcome))
+                .thenCompose(ignored -> {
+                    finishBatch(outcome);
+                    final Set<Long> unblocked = outcome.processed.stream()
+                            .filter(OutboxProcessingService::isPrerequisite)
+                            .map(OutboxEvent::getAggregateId)
+                            .collect(Collectors.toSet());
+                    return unblocked.isEmpty() ? CompletableFuture.completedFuture(null)
+                            : dispatchClaimed(outboxEventPersistenceService.claimPendingEventsOf(
+                                    unblocked, Duration.ofMillis(leaseDurationMs)));
+                });
     }
 
-    private void processSingleEvent(final OutboxEvent event) {
-        final AppointmentEventPayload payload;
+    public int getClaimBatchSize() {
+        return claimBatchSize;
+    }
+
+    @Scheduled(fixedDelayString = "${outbox.lease.reaper-interval-ms:60000}")
+    public void requeueExpiredLeases() {
+        final int requeued = outboxEventPersistenceService.requeueExpiredLeases();
+        if (requeued > 0) {
+            log.warn("Re-queued {} outbox events whose lease expired", requeued);
+        }
+    }
+
+    /**
+     * Handles one claimed event. Runs outside any transaction and completes when the downstream
+     * call does, without holding a thread while it is in flight. Nothing is written here: the
+     * outcome is recorded so the batch can write every transition at once afterwards, and an
+     * event whose downstream is unavailable is recorded for deferral instead of counting as a
+     * failed attempt.
+     */
+    private CompletableFuture<Void> processEvent(final OutboxEvent event, final BatchOutcome outcome) {
+        log.info("Processing event {} of type {}", event.getId(), event.getEventType());
+        CompletableFuture<Boolean> delivery;
         try {
-            payload = objectMapper.readValue(event.getPayload(), AppointmentEventPayload.class);
-        } catch (JsonProcessingException e) {
-            log.error("Invalid payload for event {}: {}", event.getId(), e.getMessage());
-            handleFailure(event);
-            return;
+            delivery = deliver(event);
+        } catch (Exception ex) {
+            delivery = CompletableFuture.failedFuture(ex);
+        }
+        return delivery
+                .handle((success, ex) -> {
+                    if (ex == null) {
+                        return success;
+                    }
+                    final Throwable cause = ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex;
+                    if (cause instanceof DownstreamUnavailableException unavailable) {
+                        outcome.deferredUntil.put(event.getId(), LocalDateTime.now().plus(unavailable.getRetryAfter()));
+                        return null;
+                    }
+                    log.error("Unexpected error delivering event {}: {}", event.getId(), ex.getMessage(), ex);
+                    return false;
+                })
+                .thenAccept(success -> {
+                    if (success != null) {
+                        (success ? outcome.processed : outcome.failed).add(event);
+                    }
+                });
+    }
+
+    private CompletableFuture<Boolean> deliver(final OutboxEvent event) {
+        final AppointmentEventPayload payload = event.getPayload();
+        if (payload == null) {
+            log.error("Missing payload for event {}", event.getId());
+            return CompletableFuture.completedFuture(false);
         }
-        final boolean success = switch (event.getEventType()) {
+        return switch (event.getEventType()) {
             case "DOCTOR_CALENDAR_UPDATE" -> doctorCalendarService.updateDoctorCalendar(payload);
             case "ROOM_RESERVATION" -> roomReservationService.reserveRoom(payload);
             case "SEND_EMAIL", "SEND_CONFIRMATION_EMAIL" -> emailNotificationService.sendEmail(payload);
             default -> {
                 log.warn("Unknown event type: {}", event.getEventType());
-                yield false;
+                yield CompletableFuture.completedFuture(false);
             }
         };
+    }
+
+    /**
+     * Writes the outcome of a batch: one update per kind of transition, one insert for the audit
+     * trail (the OUTBOX_EVENT_SAVED row of every event written, then what happened to it), then
+     * the appointments it confirms. Events whose lease this node lost in the meantime
+     * are left to their current owner.
+     */
+    private void finishBatch(final BatchOutcome outcome) {
+        final List<ActivityLog> auditTrail = new ArrayList<>();
+        recordProcessed(outcome.processed, auditTrail);
+        recordFailures(outcome.failed, auditTrail);
+        if (!auditTrail.isEmpty()) {
+            activityLogPersistenceService.saveAll(auditTrail);
+        }
+        deferEvents(outcome.deferredUntil);
+    }
+
+    private void recordProcessed(final Collection<OutboxEvent> events, final List<ActivityLog> auditTrail) {
+        if (events.isEmpty()) {
+            return;
+        }
+        final Map<Long, OutboxEvent> byId = byId(events);
+        final List<Long> marked = outboxEventPersistenceService.markProcessed(byId.keySet());
+        warnIfLeasesLost(byId.size(), marked.size());
+
+        final Set<Long> completedAggregates = new HashSet<>();
+        for (final Long eventId : marked) {
+            final OutboxEvent event = byId.get(eventId);
+            completedAggregates.add(event.getAggregateId());
+            auditTrail.add(savedLog(event, "PROCESSED"));
+            auditTrail.add(activityLog("OUTBOX_EVENT_PROCESSED", String.format(
+                    "Outbox event %d of type %s successfully processed for aggregate %d",
+                    event.getId(), event.getEventType(), event.getAggregateId())));
+        }
+        confirmAppointments(completedAggregates);
+    }
+
+    /**
+     * Counts one more attempt for every event whose delivery failed. Events on the same attempt
+     * share their backoff, so each such group is rescheduled with one update; events out of
+     * attempts are failed with one update and their appointments cancelled.
+     */
+    private void recordFailures(final Collection<OutboxEvent> events, final List<ActivityLog> auditTrail) {
+        if (events.isEmpty()) {
+            return;
+        }
+        final Map<Integer, List<OutboxEvent>> byAttempt = new TreeMap<>();
+        events.forEach(event -> byAttempt.computeIfAbsent(event.getRetryCount() + 1, key -> new ArrayList<>()).add(event));
+        byAttempt.forEach((attempt, group) -> {
+            if (attempt >= MAX_ATTEMPTS) {
+                failEvents(group, attempt, auditTrail);
+            } else {
+                retryEvents(group, attempt, auditTrail);
+            }
+        });
+    }
+
+    private void retryEvents(final List<OutboxEvent> events, final int attempt, final List<ActivityLog> auditTrail) {
+        final long delayMinutes = (long) Math.pow(2, attempt - 1);
+        final LocalDateTime nextRetryAt = LocalDateTime.now().plusMinutes(delayMinutes);
+        final Map<Long, OutboxEvent> byId = byId(events);
+        final List<Long> rescheduled = outboxEventPersistenceService.scheduleRetry(byId.keySet(), nextRetryAt);
+        warnIfLeasesLost(byId.size(), rescheduled.size());
+
+        for (final Long eventId : rescheduled) {
+            final OutboxEvent event = byId.get(eventId);
+            outboxRetryScheduler.scheduleEvent(eventId, nextRetryAt);
+            auditTrail.add(savedLog(event, "PENDING"));
+            auditTrail.add(activityLog("OUTBOX_EVENT_RETRY", String.format(
+                    "Outbox event %d of type %s scheduled for retry %d in %d minutes for aggregate %d",
+                    event.getId(), event.getEventType(), attempt, delayMinutes, event.getAggregateId())));
+        }
+    }
+
+    private void failEvents(final List<OutboxEvent> events, final int attempt, final List<ActivityLog> auditTrail) {
+        final Map<Long, OutboxEvent> byId = byId(events);
+        final List<Long> failed = outboxEventPersistenceService.markFailed(byId.keySet());
+        warnIfLeasesLost(byId.size(), failed.size());
+
+        final Set<Long> cancelledAggregates = new HashSet<>();
+        for (final Long eventId : failed) {
+            final OutboxEvent event = byId.get(eventId);
+            cancelledAggregates.add(event.getAggregateId());
+            auditTrail.add(savedLog(event, "FAILED"));
+            auditTrail.add(activityLog("OUTBOX_EVENT_FAILED", String.format(
+                    "Outbox event %d of type %s failed after %d retries for aggregate %d",
+                    event.getId(), event.getEventType(), attempt, event.getAggregateId())));
+        }
+        // The remaining steps of a cancelled appointment, such as its held confirmation email, never run.
+        for (final OutboxEvent event : outboxEventPersistenceService.failPendingEvents(cancelledAggregates)) {
+            auditTrail.add(savedLog(event, "FAILED"));
+            auditTrail.add(activityLog("OUTBOX_EVENT_CANCELLED", String.format(
+                    "Outbox event %d of type %s cancelled after another event failed for aggregate %d",
+                    event.getId(), event.getEventType(), event.getAggregateId())));
+        }
+        cancelledAggregates.forEach(appointmentId ->
+                appointmentPersistenceService.updateAppointmentStatus(appointmentId, AppointmentStatus.CANCELLED));
+    }
+
+    /**
+     * Hands deferred events back to the queue with one update per distinct second, keeping their
+     * retry count: nothing was attempted, the downstream just wasn't taking calls.
+     */
+    private void deferEvents(final Map<Long, LocalDateTime> deferredUntil) {
+        if (deferredUntil.isEmpty()) {
+            return;
+        }
+        final Map<LocalDateTime, List<Long>> byTime = new TreeMap<>();
+        deferredUntil.forEach((eventId, until) -> byTime
+                .computeIfAbsent(until.truncatedTo(ChronoUnit.SECONDS).plusSeconds(1), key -> new ArrayList<>())
+                .add(eventId));
+        byTime.forEach((until, eventIds) -> {
+            final int deferred = outboxEventPersistenceService.deferClaimedEvents(eventIds, until);
+            log.info("Deferred {} outbox events until {} while their downstream is unavailable", deferred, until);
+            eventIds.forEach(eventId -> outboxRetryScheduler.scheduleEvent(eventId, until));
+        });
+    }
+
+    /**
+     * Confirms, with one statement per batch, the appointments touched by this batch whose
+     * events are now all processed.
+     */
+    private void confirmAppointments(final Set<Long> appointmentIds) {
+        if (appointmentIds.isEmpty()) {
+            return;
+        }
+        final List<Long> confirmed = appointmentPersistenceService.confirmBookedAppointmentsWithoutUnprocessedEvents(appointmentIds);
+        if (!confirmed.isEmpty()) {
+            log.info("All outbox events processed for appointments {}, confirmed", confirmed);
 
-        if (success) {
-            event.setStatus("PROCESSED");
-            outboxEventPersistenceService.save(event);
-            
-            final ActivityLog activityLog = ActivityLog.builder()
-                    .userId(0L)
-                    .action("OUTBOX_EVENT_PROCESSED")
-                    .description(String.format("Outbox event %d of type %s successfully processed for aggregate %d", 
-                        event.getId(), event.getEventType(), event.getAggregateId()))
-                    .createdAt(LocalDateTime.now())
-                    .build();
-            activityLogPersistenceService.save(activityLog);
-            
-            checkAndConfirmAppointment(event.getAggregateId());
-        } else {
-            handleFailure(event);
-        }
-    }
-
-    private void checkAndConfirmAppointment(final Long appointmentId) {
-        final List<OutboxEvent> appointmentEvents = outboxEventPersistenceService.findByAggregateId(appointmentId);
-        
-        final boolean allProcessed = appointmentEvents.stream()
-            .allMatch(event -> "PROCESSED".equals(event.getStatus()));
-            
-        if (allProcessed && !appointmentEvents.isEmpty()) {
-            log.info("All outbox events processed for appointment {}, confirming appointment", appointmentId);
-            appointmentPersistenceService.updateAppointmentStatus(appointmentId, AppointmentStatus.CONFIRMED);
-            
             // TODO: Notify that the appointment is confirmed either via emails, Kafka messages, etc.
         }
     }
 
-    private void handleFailure(final OutboxEvent event) {
-        final int newRetry = event.getRetryCount() + 1;
-        event.setRetryCount(newRetry);
-        if (newRetry >= 5) {
-            event.setStatus("FAILED");
-            outboxEventPersistenceService.save(event);
-            
-            final ActivityLog activityLog = ActivityLog.builder()
-                    .userId(0L)
-                    .action("OUTBOX_EVENT_FAILED")
-                    .description(String.format("Outbox event %d of type %s failed after %d retries for aggregate %d", 
-                        event.getId(), event.getEventType(), newRetry, event.getAggregateId()))
-                    .createdAt(LocalDateTime.now())
-                    .build();
-            activityLogPersistenceService.save(activityLog);
-            
-            appointmentPersistenceService.updateAppointmentStatus(event.getAggregateId(), AppointmentStatus.CANCELLED);
-        } else {
-            final long delayMinutes = (long) Math.pow(2, newRetry - 1);
-            event.setNextRetryAt(LocalDateTime.now().plusMinutes(delayMinutes));
-            outboxEventPersistenceService.save(event);
-            
-            final ActivityLog activityLog = ActivityLog.builder()
-                    .userId(0L)
-                    .action("OUTBOX_EVENT_RETRY")
-                    .description(String.format("Outbox event %d of type %s scheduled for retry %d in %d minutes for aggregate %d", 
-                        event.getId(), event.getEventType(), newRetry, delayMinutes, event.getAggregateId()))
-                    .createdAt(LocalDateTime.now())
-                    .build();
-            activityLogPersistenceService.save(activityLog);
+    /**
+     * Whether {@code later} has to wait for {@code earlier}, an event of the same aggregate. Steps
+     * that do not depend on each other run side by side; any other pair keeps its order.
+     */
+    private static boolean mustFollow(final OutboxEvent earlier, final OutboxEvent later) {
+        final SagaStep first = STEPS.get(earlier.getEventType());
+        final SagaStep second = STEPS.get(later.getEventType());
+        return first == null || second == null || first == second
+                || second.getDependencies().contains(first) || first.getDependencies().contains(second);
+    }
+
+    private static boolean isPrerequisite(final OutboxEvent event) {
+        final SagaStep step = STEPS.get(event.getEventType());
+        return step != null && Arrays.stream(SagaStep.values()).anyMatch(other -> other.getDependencies().contains(step));
+    }
+
+    private static Map<Long, OutboxEvent> byId(final Collection<OutboxEvent> events) {
+        final Map<Long, OutboxEvent> byId = new LinkedHashMap<>();
+        events.forEach(event -> byId.put(event.getId(), event));
+        return byId;
+    }
+
+    private static void warnIfLeasesLost(final int claimed, final int written) {
+        if (written < claimed) {
+            log.warn("Lease on {} of {} outbox events expired before they finished, leaving them to the current owner",
+                    claimed - written, claimed);
         }
     }
-}
 
+    private static ActivityLog savedLog(final OutboxEvent event, final String status) {
+        return activityLog("OUTBOX_EVENT_SAVED", String.format("Outbox event %d of type %s saved with status %s for aggregate %d",
+                event.getId(), event.getEventType(), status, event.getAggregateId()));
+    }
 
+    private static ActivityLog activityLog(final String action, final String description) {
+        return ActivityLog.builder()
+                .userId(0L)
+                .action(action)
+                .description(description)
+                .createdAt(LocalDateTime.now())
+                .build();
+    }
+
+    /** What is left to write once every event of a batch has been handled. */
+    private static final class BatchOutcome {
+        private final Queue<OutboxEvent> processed = new ConcurrentLinkedQueue<>();
+        private final Queue<OutboxEvent> failed = new ConcurrentLinkedQueue<>();
+        private final Map<Long, LocalDateTime> deferredUntil = new ConcurrentHashMap<>();
+    }
+}
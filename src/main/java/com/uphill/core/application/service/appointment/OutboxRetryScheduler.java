@@ -0,0 +1,23 @@
+package com.uphill.core.application.service.appointment;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+/**
+ * Fires delayed outbox work at its due time so retries do not wait for a poll. Purely an
+ * optimisation: next_retry_at stays the source of truth and the poller still picks up anything
+ * this scheduler missed, e.g. because it was written by another node or its claim was fenced off.
+ */
+public interface OutboxRetryScheduler {
+    void scheduleEvent(Long eventId, LocalDateTime dueAt);
+
+    void scheduleSaga(Long appointmentId, LocalDateTime dueAt);
+
+    /**
+     * How long past its due time the poller leaves a delayed retry to this scheduler before
+     * claiming it itself.
+     */
+    default Duration pollerGrace() {
+        return Duration.ZERO;
+    }
+}
@@ -2,8 +2,10 @@ package com.uphill.core.application.service.appointment;
 
 import com.uphill.core.domain.AppointmentEventPayload;
 
+import java.util.concurrent.CompletableFuture;
+
 public interface RoomReservationService {
-    boolean reserveRoom(AppointmentEventPayload event);
+    CompletableFuture<Boolean> reserveRoom(AppointmentEventPayload event);
 }
 
 
@@ -3,9 +3,10 @@ package com.uphill.core.application.service.appointment;
 import com.uphill.core.domain.Room;
 
 import java.time.LocalDate;
+import java.util.Set;
 
 public interface RoomService {
-    Room findAvailableRoom(LocalDate date, Long timeSlotId);
+    Room findAvailableRoom(LocalDate date, Long timeSlotId, Long patientId, Set<Long> excludedRoomIds);
 }
 
 
@@ -0,0 +1,257 @@
+package com.uphill.core.application.service.appointment;
+
+import com.uphill.core.application.service.activity.ActivityLogPersistenceService;
+import com.uphill.core.domain.ActivityLog;
+import com.uphill.core.domain.AppointmentEventPayload;
+import com.uphill.core.domain.AppointmentSaga;
+import com.uphill.core.domain.AppointmentStatus;
+import com.uphill.core.domain.SagaStep;
+import com.uphill.core.exception.DownstreamUnavailableException;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Processes the single-row outbox format: one saga per appointment whose steps are the
+ * downstream calls. Only steps not yet completed are attempted; each keeps its own retry count,
+ * and the saga fails (cancelling the appointment) once any step has used up its attempts.
+ */
+@Service
+@RequiredArgsConstructor
+public class SagaProcessingService {
+
+    private static final Logger log = LoggerFactory.getLogger(SagaProcessingService.class);
+    private static final int MAX_STEP_ATTEMPTS = 5;
+
+    private final AppointmentSagaPersistenceService appointmentSagaPersistenceService;
+    private final AppointmentPersistenceService appointmentPersistenceService;
+    private final DoctorCalendarService doctorCalendarService;
+    private final RoomReservationService roomReservationService;
+    private final EmailNotificationService emailNotificationService;
+    private final ActivityLogPersistenceService activityLogPersistenceService;
+    private final OutboxRetryScheduler outboxRetryScheduler;
+
+    @Value("${outbox.claim.batch-size:100}")
+    private int claimBatchSize;
+
+    @Value("${outbox.lease.duration-ms:300000}")
+    private long leaseDurationMs;
+
+    /**
+     * Claims one batch of due sagas and processes it to completion. Delayed retries are left to
+     * the {@link OutboxRetryScheduler} until they are overdue by its grace.
+     *
+     * @return the number of sagas claimed
+     */
+    public int pollAndProcess() {
+        final List<AppointmentSaga> claimed = appointmentSagaPersistenceService.claimDueSagas(
+                LocalDateTime.now().minus(outboxRetryScheduler.pollerGrace()), claimBatchSize, Duration.ofMillis(leaseDurationMs));
+        if (claimed.isEmpty()) {
+            return 0;
+        }
+        log.info("Claimed {} pending sagas to process", claimed.size());
+        process(claimed).join();
+        return claimed.size();
+    }
+
+    /**
+     * Claims the sagas of freshly committed appointments and starts them without waiting.
+     */
+    public CompletableFuture<Void> dispatchNow(final Collection<Long> appointmentIds) {
+        final List<AppointmentSaga> claimed = appointmentSagaPersistenceService.claimPendingSagas(
+                appointmentIds, Duration.ofMillis(leaseDurationMs));
+        if (claimed.isEmpty()) {
+            return CompletableFuture.completedFuture(null);
+        }
+        return process(claimed);
+    }
+
+    public int getClaimBatchSize() {
+        return claimBatchSize;
+    }
+
+    @Scheduled(fixedDelayString = "${outbox.lease.reaper-interval-ms:60000}")
+    public void requeueExpiredLeases() {
+        final int requeued = appointmentSagaPersistenceService.requeueExpiredLeases();
+        if (requeued > 0) {
+            log.warn("Re-queued {} sagas whose lease expired", requeued);
+        }
+    }
+
+    private CompletableFuture<Void> process(final List<AppointmentSaga> sagas) {
+        final Set<Long> completedAppointments = ConcurrentHashMap.newKeySet();
+        return CompletableFuture.allOf(sagas.stream()
+                        .map(saga -> processSaga(saga, completedAppointments))
+                        .toArray(CompletableFuture[]::new))
+                .thenRun(() -> confirmAppointments(completedAppointments));
+    }
+
+    /**
+     * Runs the saga's outstanding steps as a dependency graph: independent steps run concurrently,
+     * a step starts as soon as its dependencies succeeded and is skipped (without using an
+     * attempt) when one of them did not. The combined outcome is written with a single update.
+     */
+    private CompletableFuture<Void> processSaga(final AppointmentSaga saga, final Set<Long> completedAppointments) {
+        final SagaRun run = new SagaRun(saga);
+        final AppointmentEventPayload payload = saga.getPayload();
+        if (payload == null) {
+            log.error("Missing payload for saga of appointment {}", saga.getAppointmentId());
+            for (final SagaStep step : SagaStep.values()) {
+                if (saga.isRequired(step) && !saga.isCompleted(step)) {
+                    run.results.put(step, StepResult.FAILED);
+                }
+            }
+            completeSaga(run, completedAppointments);
+            return CompletableFuture.completedFuture(null);
+        }
+
+        final Map<SagaStep, CompletableFuture<Boolean>> steps = new EnumMap<>(SagaStep.class);
+        for (final SagaStep step : SagaStep.values()) {
+            if (!saga.isRequired(step) || saga.isCompleted(step)) {
+                continue;
+            }
+            // Dependencies that are done already, or not part of this saga, have no entry.
+            final List<CompletableFuture<Boolean>> dependencies = step.getDependencies().stream()
+                    .map(steps::get)
+                    .filter(Objects::nonNull)
+                    .toList();
+            steps.put(step, CompletableFuture.allOf(dependencies.toArray(CompletableFuture[]::new))
+                    .thenCompose(ignored -> dependencies.stream().allMatch(CompletableFuture::join)
+                            ? runStep(run, step, payload)
+                            : CompletableFuture.completedFuture(false)));
+        }
+        return CompletableFuture.allOf(steps.values().toArray(CompletableFuture[]::new))
+                .thenRun(() -> completeSaga(run, completedAppointments))
+                .exceptionally(ex -> {
+                    log.error("Unexpected error processing saga of appointment {}: {}",
+                            saga.getAppointmentId(), ex.getMessage(), ex);
+                    return null;
+                });
+    }
+
+    private CompletableFuture<Boolean> runStep(final SagaRun run, final SagaStep step, final AppointmentEventPayload payload) {
+        CompletableFuture<Boolean> call;
+        try {
+            call = switch (step) {
+                case DOCTOR_CALENDAR -> doctorCalendarService.updateDoctorCalendar(payload);
+                case ROOM_RESERVATION -> roomReservationService.reserveRoom(payload);
+                case CONFIRMATION_EMAIL -> emailNotificationService.sendEmail(payload);
+            };
+        } catch (Exception ex) {
+            call = CompletableFuture.failedFuture(ex);
+        }
+        return call.handle((success, ex) -> {
+            if (ex == null) {
+                final boolean succeeded = Boolean.TRUE.equals(success);
+                run.results.put(step, succeeded ? StepResult.SUCCEEDED : StepResult.FAILED);
+                return succeeded;
+            }
+            final Throwable cause = ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex;
+            if (cause instanceof DownstreamUnavailableException unavailable) {
+                run.defer(unavailable.getRetryAfter());
+                return false;
+            }
+            log.error("Unexpected error in step {} of appointment {}: {}",
+                    step, run.saga.getAppointmentId(), ex.getMessage(), ex);
+            run.results.put(step, StepResult.FAILED);
+            return false;
+        });
+    }
+
+    private void completeSaga(final SagaRun run, final Set<Long> completedAppointments) {
+        final AppointmentSaga saga = run.saga;
+        int completedSteps = saga.getCompletedSteps();
+        final int[] retries = Arrays.copyOf(saga.getStepRetries(), SagaStep.values().length);
+        int worstRetries = 0;
+        for (final Map.Entry<SagaStep, StepResult> result : run.results.entrySet()) {
+            final SagaStep step = result.getKey();
+            if (result.getValue() == StepResult.SUCCEEDED) {
+                completedSteps |= step.mask();
+            } else {
+                retries[step.getIndex()]++;
+                worstRetries = Math.max(worstRetries, retries[step.getIndex()]);
+            }
+        }
+        saga.setCompletedSteps(completedSteps);
+        saga.setStepRetries(retries);
+
+        if (saga.isFinished()) {
+            saga.setStatus("COMPLETED");
+        } else if (worstRetries >= MAX_STEP_ATTEMPTS) {
+            saga.setStatus("FAILED");
+        } else if (worstRetries > 0) {
+            saga.setStatus("PENDING");
+            saga.setNextRetryAt(LocalDateTime.now().plusMinutes((long) Math.pow(2, worstRetries - 1)));
+        } else {
+            saga.setStatus("PENDING");
+            saga.setNextRetryAt(LocalDateTime.now().plus(run.deferFor));
+        }
+
+        if (!appointmentSagaPersistenceService.completeClaim(saga)) {
+            log.warn("Lease on saga of appointment {} expired before it finished, leaving it to the current owner",
+                    saga.getAppointmentId());
+            return;
+        }
+        if ("PENDING".equals(saga.getStatus())) {
+            outboxRetryScheduler.scheduleSaga(saga.getAppointmentId(), saga.getNextRetryAt());
+        } else if ("COMPLETED".equals(saga.getStatus())) {
+            completedAppointments.add(saga.getAppointmentId());
+        } else if ("FAILED".equals(saga.getStatus())) {
+            final ActivityLog activityLog = ActivityLog.builder()
+                    .userId(0L)
+                    .action("OUTBOX_SAGA_FAILED")
+                    .description(String.format("Saga of appointment %d failed, step retries %s",
+                        saga.getAppointmentId(), Arrays.toString(retries)))
+                    .createdAt(LocalDateTime.now())
+                    .build();
+            activityLogPersistenceService.save(activityLog);
+
+            appointmentPersistenceService.updateAppointmentStatus(saga.getAppointmentId(), AppointmentStatus.CANCELLED);
+        }
+    }
+
+    private void confirmAppointments(final Set<Long> appointmentIds) {
+        if (appointmentIds.isEmpty()) {
+            return;
+        }
+        final List<Long> confirmed = appointmentPersistenceService.confirmBookedAppointments(appointmentIds);
+        if (!confirmed.isEmpty()) {
+            log.info("All saga steps completed for appointments {}, confirmed", confirmed);
+        }
+    }
+
+    private enum StepResult { SUCCEEDED, FAILED }
+
+    /** Step outcomes of one saga; a step that was deferred or skipped has no entry. */
+    private static final class SagaRun {
+        private final AppointmentSaga saga;
+        private final Map<SagaStep, StepResult> results = new ConcurrentHashMap<>();
+        private volatile Duration deferFor = Duration.ZERO;
+
+        private SagaRun(final AppointmentSaga saga) {
+            this.saga = saga;
+        }
+
+        private synchronized void defer(final Duration retryAfter) {
+            if (retryAfter.compareTo(deferFor) > 0) {
+                deferFor = retryAfter;
+            }
+        }
+    }
+}
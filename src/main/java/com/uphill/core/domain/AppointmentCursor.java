@@ -0,0 +1,42 @@
+package com.uphill.core.domain;
+
+import com.uphill.core.exception.InvalidCursorException;
+import lombok.Value;
+
+import java.nio.charset.StandardCharsets;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.Base64;
+
+/**
+ * Position in the appointment listing order (date descending, then start time and id), handed
+ * to clients as an opaque token so the next page can seek straight past it.
+ */
+@Value
+public class AppointmentCursor {
+
+    private static final String SEPARATOR = "|";
+
+    LocalDate date;
+    LocalTime startTime;
+    Long id;
+
+    public String encode() {
+        final String position = date + SEPARATOR + startTime + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(position.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static AppointmentCursor decode(final String token) {
+        try {
+            final String position = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            final String[] parts = position.split("\\|", -1);
+            if (parts.length != 3) {
+                throw new InvalidCursorException("Invalid cursor: " + token);
+            }
+            return new AppointmentCursor(LocalDate.parse(parts[0]), LocalTime.parse(parts[1]), Long.valueOf(parts[2]));
+        } catch (IllegalArgumentException | DateTimeException ex) {
+            throw new InvalidCursorException("Invalid cursor: " + token);
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package com.uphill.core.domain;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class AppointmentSaga {
+    private Long appointmentId;
+    private AppointmentEventPayload payload;
+    private String status;
+    private Integer requiredSteps;
+    private Integer completedSteps;
+    private int[] stepRetries;
+    private LocalDateTime nextRetryAt;
+    private String claimedBy;
+    private LocalDateTime leaseUntil;
+    private LocalDateTime createdAt;
+
+    public boolean isRequired(final SagaStep step) {
+        return (requiredSteps & step.mask()) != 0;
+    }
+
+    public boolean isCompleted(final SagaStep step) {
+        return (completedSteps & step.mask()) != 0;
+    }
+
+    public boolean isFinished() {
+        return (completedSteps & requiredSteps) == requiredSteps;
+    }
+
+    public int getRetries(final SagaStep step) {
+        return step.getIndex() < stepRetries.length ? stepRetries[step.getIndex()] : 0;
+    }
+}
@@ -0,0 +1,24 @@
+package com.uphill.core.domain;
+
+import lombok.AllArgsConstructor;
+import lombok.Value;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+/**
+ * Read model of one row of the appointment listing: just the names, slot and status a listing
+ * shows, selected straight from the joined tables without loading any entity.
+ */
+@Value
+@AllArgsConstructor
+public class AppointmentSummary {
+    Long id;
+    String doctorName;
+    String patientName;
+    String roomName;
+    LocalDate date;
+    LocalTime startTime;
+    LocalTime endTime;
+    AppointmentStatus status;
+}
@@ -0,0 +1,22 @@
+package com.uphill.core.domain;
+
+/**
+ * How a paged listing reports its total: counted exactly, taken from the planner's row
+ * estimate, or not at all (the page then only says whether another one follows).
+ */
+public enum CountStrategy {
+    EXACT,
+    ESTIMATED,
+    NONE;
+
+    public static CountStrategy fromString(final String value) {
+        if (value == null || value.trim().isEmpty()) {
+            return EXACT;
+        }
+        try {
+            return CountStrategy.valueOf(value.trim().toUpperCase());
+        } catch (IllegalArgumentException ex) {
+            throw new IllegalArgumentException("Invalid count strategy: " + value + ". Valid values are: EXACT, ESTIMATED, NONE");
+        }
+    }
+}
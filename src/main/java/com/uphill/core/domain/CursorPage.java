@@ -0,0 +1,25 @@
+package com.uphill.core.domain;
+
+import lombok.Value;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * One page of a keyset-paged listing. There are no totals: {@code nextCursor} is all a client
+ * needs to ask for the following page, and it is null on the last one.
+ */
+@Value
+public class CursorPage<T> {
+
+    List<T> content;
+    String nextCursor;
+
+    public boolean isHasNext() {
+        return nextCursor != null;
+    }
+
+    public <R> CursorPage<R> map(final Function<? super T, ? extends R> mapper) {
+        return new CursorPage<>(content.stream().<R>map(mapper).toList(), nextCursor);
+    }
+}
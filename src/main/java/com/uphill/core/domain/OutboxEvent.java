@@ -15,9 +15,11 @@ public class OutboxEvent {
     private Long aggregateId;
     private String aggregateType;
     private String eventType;
-    private String payload;
+    private AppointmentEventPayload payload;
     private String status;
     private Integer retryCount;
     private LocalDateTime createdAt;
     private LocalDateTime nextRetryAt;
+    private String claimedBy;
+    private LocalDateTime leaseUntil;
 }
\ No newline at end of file
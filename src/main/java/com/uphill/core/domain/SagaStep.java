@@ -0,0 +1,35 @@
+package com.uphill.core.domain;
+
+import java.util.Set;
+
+/**
+ * Downstream steps of an appointment saga. The index is persisted (bit position in the step
+ * masks, position in the retry counts), so existing values must never be renumbered.
+ * A step only runs once the steps it depends on have completed; as dependencies can only name
+ * constants declared earlier, declaration order is always a valid execution order.
+ */
+public enum SagaStep {
+    DOCTOR_CALENDAR(0),
+    ROOM_RESERVATION(1),
+    CONFIRMATION_EMAIL(2, DOCTOR_CALENDAR, ROOM_RESERVATION);
+
+    private final int index;
+    private final Set<SagaStep> dependencies;
+
+    SagaStep(final int index, final SagaStep... dependencies) {
+        this.index = index;
+        this.dependencies = Set.of(dependencies);
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    public Set<SagaStep> getDependencies() {
+        return dependencies;
+    }
+
+    public int mask() {
+        return 1 << index;
+    }
+}
@@ -0,0 +1,26 @@
+package com.uphill.core.exception;
+
+import java.time.Duration;
+
+/**
+ * Raised without any network I/O when a downstream's circuit is open or its bulkhead is full.
+ * Callers should defer the work by {@link #getRetryAfter()} rather than count it as a failure.
+ */
+public class DownstreamUnavailableException extends RuntimeException {
+	private final String downstream;
+	private final Duration retryAfter;
+
+	public DownstreamUnavailableException(String downstream, Duration retryAfter, String reason) {
+		super(downstream + " unavailable: " + reason);
+		this.downstream = downstream;
+		this.retryAfter = retryAfter;
+	}
+
+	public String getDownstream() {
+		return downstream;
+	}
+
+	public Duration getRetryAfter() {
+		return retryAfter;
+	}
+}
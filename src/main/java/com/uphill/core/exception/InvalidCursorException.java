@@ -0,0 +1,7 @@
+package com.uphill.core.exception;
+
+public class InvalidCursorException extends RuntimeException {
+    public InvalidCursorException(final String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,21 @@
+package com.uphill.core.exception;
+
+/**
+ * The doctor or room chosen for a slot was booked by a concurrent request before the insert
+ * committed; {@link #getResource()} tells which of the two unique constraints was violated.
+ */
+public class ResourceAlreadyBookedException extends RuntimeException {
+
+    public enum Resource { DOCTOR, ROOM }
+
+    private final Resource resource;
+
+    public ResourceAlreadyBookedException(final Resource resource, final Throwable cause) {
+        super("The chosen " + resource.name().toLowerCase() + " was booked concurrently for the same slot", cause);
+        this.resource = resource;
+    }
+
+    public Resource getResource() {
+        return resource;
+    }
+}
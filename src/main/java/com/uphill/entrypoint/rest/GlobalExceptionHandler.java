@@ -2,6 +2,7 @@ package com.uphill.entrypoint.rest;
 
 import com.uphill.entrypoint.rest.common.response.ApiResponse;
 import com.uphill.core.exception.InvalidAppointmentStatusException;
+import com.uphill.core.exception.InvalidCursorException;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -20,6 +21,7 @@ import org.springframework.security.access.AccessDeniedException;
 import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.dao.DataIntegrityViolationException;
 import com.uphill.core.exception.AppointmentSlotUnavailableException;
+import com.uphill.core.exception.ResourceAlreadyBookedException;
 import org.hibernate.query.QueryArgumentException;
 
 @Slf4j
@@ -114,6 +116,13 @@ public class GlobalExceptionHandler {
                 .body(ApiResponse.failure("INVALID_APPOINTMENT_STATUS", ex.getMessage()));
     }
 
+    @ExceptionHandler(InvalidCursorException.class)
+    public ResponseEntity<ApiResponse<Void>> handleInvalidCursor(final InvalidCursorException ex) {
+        log.warn("[GlobalExceptionHandler] Invalid cursor: {}", ex.getMessage());
+        return ResponseEntity.badRequest()
+                .body(ApiResponse.failure("INVALID_CURSOR", ex.getMessage()));
+    }
+
     @ExceptionHandler({AccessDeniedException.class, AuthenticationException.class})
     public ResponseEntity<ApiResponse<Void>> handleAuthenticationException(final Exception ex) {
         log.warn("[GlobalExceptionHandler] Authentication/Authorization exception: {}", ex.getMessage());
@@ -135,6 +144,14 @@ public class GlobalExceptionHandler {
                 .body(ApiResponse.failure("APPOINTMENT_SLOT_UNAVAILABLE", ex.getMessage()));
     }
 
+    @ExceptionHandler(ResourceAlreadyBookedException.class)
+    public ResponseEntity<ApiResponse<Void>> handleResourceAlreadyBooked(final ResourceAlreadyBookedException ex) {
+        log.warn("[GlobalExceptionHandler] Booking lost every race: {}", ex.getMessage());
+        return ResponseEntity.status(HttpStatus.CONFLICT)
+                .body(ApiResponse.failure("APPOINTMENT_ALREADY_BOOKED",
+                        "The requested time slot is no longer available. Please try a different time."));
+    }
+
     @ExceptionHandler(DataIntegrityViolationException.class)
     public ResponseEntity<ApiResponse<Void>> handleDataIntegrityViolation(final DataIntegrityViolationException ex) {
         log.warn("[GlobalExceptionHandler] Data integrity violation: {}", ex.getMessage());
@@ -2,14 +2,16 @@ package com.uphill.entrypoint.rest.appointments;
 
 import com.uphill.core.application.service.appointment.AppointmentService;
 import com.uphill.core.domain.Appointment;
+import com.uphill.core.domain.AppointmentSummary;
+import com.uphill.core.domain.CursorPage;
 import com.uphill.entrypoint.rest.common.response.ApiResponse;
 import com.uphill.entrypoint.rest.appointments.dto.AppointmentResponse;
 import com.uphill.entrypoint.rest.appointments.mapper.AppointmentMapper;
 import com.uphill.entrypoint.rest.appointments.dto.CreateAppointmentRequest;
 import com.uphill.entrypoint.rest.appointments.dto.CreateAppointmentResponse;
 import lombok.RequiredArgsConstructor;
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.web.PageableDefault;
 import org.springframework.format.annotation.DateTimeFormat;
@@ -31,28 +33,59 @@ import jakarta.validation.Valid;
 @RequiredArgsConstructor
 public class AppointmentController {
     
+    private static final int MAX_CURSOR_PAGE_SIZE = 500;
+
     private final AppointmentService appointmentService;
     private final AppointmentMapper appointmentMapper;
     
+    /**
+     * Offset-paged listing. {@code count} picks how the total is produced: EXACT (default),
+     * ESTIMATED from planner statistics, or NONE, which returns a slice with only
+     * {@code hasNext}/{@code last} for callers that never show totals.
+     */
     @GetMapping
     @PreAuthorize("hasRole('ADMIN')")
-    public ResponseEntity<ApiResponse<Page<AppointmentResponse>>> getAppointments(
+    public ResponseEntity<ApiResponse<Slice<AppointmentResponse>>> getAppointments(
             @RequestParam(required = false) final Long patientId,
             @RequestParam(required = false) final Long doctorId,
             @RequestParam(required = false) final Long roomId,
             @RequestParam(required = false) final String status,
             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) final LocalDate startDate,
             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) final LocalDate endDate,
+            @RequestParam(required = false) final String count,
             @PageableDefault(size = 10, sort = "date", direction = Sort.Direction.DESC) final Pageable pageable) {
         
-        final Page<Appointment> appointments = appointmentService.findAppointmentsWithFilters(
-                patientId, doctorId, roomId, status, startDate, endDate, pageable);
+        final Slice<AppointmentSummary> appointments = appointmentService.findAppointmentsWithFilters(
+                patientId, doctorId, roomId, status, startDate, endDate, pageable, count);
         
-        final Page<AppointmentResponse> response = appointments.map(appointmentMapper::toResponse);
+        final Slice<AppointmentResponse> response = appointments.map(appointmentMapper::toResponse);
         
         return ResponseEntity.ok(ApiResponse.success(response));
     }
 
+    /**
+     * Keyset-paged listing, selected by the {@code cursor} parameter: pass it empty for the first
+     * page, then the {@code nextCursor} of the previous one. No totals are computed.
+     */
+    @GetMapping(params = "cursor")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ApiResponse<CursorPage<AppointmentResponse>>> getAppointmentsByCursor(
+            @RequestParam(required = false) final Long patientId,
+            @RequestParam(required = false) final Long doctorId,
+            @RequestParam(required = false) final Long roomId,
+            @RequestParam(required = false) final String status,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) final LocalDate startDate,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) final LocalDate endDate,
+            @RequestParam final String cursor,
+            @RequestParam(defaultValue = "10") final int size) {
+
+        final CursorPage<AppointmentSummary> appointments = appointmentService.findAppointmentsByCursor(
+                patientId, doctorId, roomId, status, startDate, endDate, cursor,
+                Math.max(1, Math.min(size, MAX_CURSOR_PAGE_SIZE)));
+
+        return ResponseEntity.ok(ApiResponse.success(appointments.map(appointmentMapper::toResponse)));
+    }
+
     @PostMapping
     @PreAuthorize("permitAll()")
     public ResponseEntity<ApiResponse<CreateAppointmentResponse>> createAppointment(@Valid @RequestBody final CreateAppointmentRequest request) {
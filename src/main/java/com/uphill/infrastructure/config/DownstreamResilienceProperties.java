@@ -0,0 +1,38 @@
+package com.uphill.infrastructure.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Circuit breaker and bulkhead settings, applied to every external downstream separately.
+ */
+@Data
+@ConfigurationProperties(prefix = "external.resilience")
+public class DownstreamResilienceProperties {
+
+    /** Length of the rolling window the error and slow call rates are computed over. */
+    private int windowSeconds = 10;
+
+    /** Calls needed in the window before the rates are trusted. */
+    private int minimumCalls = 20;
+
+    /** Percentage of failed calls that opens the circuit. */
+    private int failureRateThreshold = 50;
+
+    /** Percentage of slow calls that opens the circuit. */
+    private int slowCallRateThreshold = 80;
+
+    private long slowCallDurationMs = 2000;
+
+    /** How long an open circuit rejects calls before letting trial calls through. */
+    private long openDurationMs = 30000;
+
+    /** Trial calls in half-open state; all must succeed to close the circuit again. */
+    private int halfOpenCalls = 5;
+
+    /** Bulkhead: calls in flight per downstream. */
+    private int maxConcurrentCalls = 64;
+
+    /** Deferral for calls turned away by a full bulkhead. */
+    private long bulkheadRetryAfterMs = 1000;
+}
@@ -0,0 +1,29 @@
+package com.uphill.infrastructure.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Optional request batching, keyed by downstream (doctor-calendar, room-reservation,
+ * email-notification); each outbox event type is delivered to exactly one of them. Downstreams
+ * without an entry get one request per event.
+ */
+@Data
+@ConfigurationProperties(prefix = "external.batching")
+public class ExternalBatchingProperties {
+
+    private Map<String, Batch> downstreams = new HashMap<>();
+
+    @Data
+    public static class Batch {
+
+        /** Items per bulk request; a full batch is sent at once. */
+        private int maxItems = 50;
+
+        /** How long the first item of a batch waits for company. */
+        private long maxDelayMs = 20;
+    }
+}
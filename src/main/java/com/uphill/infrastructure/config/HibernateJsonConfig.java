@@ -0,0 +1,21 @@
+package com.uphill.infrastructure.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.type.format.jackson.JacksonJsonFormatMapper;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Makes Hibernate read and write JSON columns with the application's ObjectMapper, so typed
+ * jsonb payloads use the same date format and unknown-property handling as the rest of the app.
+ */
+@Configuration
+public class HibernateJsonConfig {
+
+    @Bean
+    public HibernatePropertiesCustomizer jsonFormatMapperCustomizer(final ObjectMapper objectMapper) {
+        return properties -> properties.put(AvailableSettings.JSON_FORMAT_MAPPER, new JacksonJsonFormatMapper(objectMapper));
+    }
+}
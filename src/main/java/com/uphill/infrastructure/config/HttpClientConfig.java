@@ -1,16 +1,36 @@
 package com.uphill.infrastructure.config;
 
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.web.client.RestTemplate;
+
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
 
 @Configuration
+@EnableConfigurationProperties({DownstreamResilienceProperties.class, ExternalBatchingProperties.class})
 public class HttpClientConfig {
 
+    /**
+     * Shared non-blocking client for the external services. Connections are pooled and kept
+     * alive by the client itself.
+     */
     @Bean
-    public RestTemplate restTemplate() {
-        return new RestTemplate();
+    public HttpClient externalHttpClient(@Value("${external.http.connect-timeout-ms:2000}") final long connectTimeoutMs,
+                                         @Value("${external.http.version:HTTP_1_1}") final HttpClient.Version version) {
+        return HttpClient.newBuilder()
+                .version(version)
+                .connectTimeout(Duration.ofMillis(connectTimeoutMs))
+                .followRedirects(HttpClient.Redirect.NEVER)
+                .build();
     }
-}
-
 
+    /** Fires the linger timeout of request batches; sending itself is asynchronous. */
+    @Bean(destroyMethod = "shutdownNow")
+    public ScheduledExecutorService externalBatchScheduler() {
+        return Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform().name("external-batch").daemon().factory());
+    }
+}
@@ -0,0 +1,22 @@
+package com.uphill.infrastructure.config;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+@Configuration
+@EnableConfigurationProperties({OutboxDispatchProperties.class, OutboxRetryWheelProperties.class, OutboxPartitionProperties.class,
+        OutboxRetentionProperties.class})
+public class OutboxConfig {
+
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService outboxExecutor(final OutboxDispatchProperties properties) {
+        if (properties.isVirtualThreads()) {
+            return Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("outbox-dispatch-", 0).factory());
+        }
+        return Executors.newFixedThreadPool(properties.getThreads(), Thread.ofPlatform().name("outbox-dispatch-", 0).factory());
+    }
+}
@@ -0,0 +1,31 @@
+package com.uphill.infrastructure.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.HashMap;
+import java.util.Map;
+
+@Data
+@ConfigurationProperties(prefix = "outbox.dispatch")
+public class OutboxDispatchProperties {
+
+    /** Events in flight across all types. Handlers are asynchronous, so this can far exceed {@link #threads}. */
+    private int concurrency = 256;
+
+    /** Platform threads running handlers and downstream responses. */
+    private int threads = 16;
+
+    /** Run handlers on virtual threads instead of a fixed platform thread pool. */
+    private boolean virtualThreads = false;
+
+    /** Dispatch events straight after the transaction that created them commits, instead of waiting for a poll. */
+    private boolean afterCommit = true;
+
+    /** Per event type limit, e.g. {@code outbox.dispatch.type-concurrency[SEND_CONFIRMATION_EMAIL]=4}. */
+    private Map<String, Integer> typeConcurrency = new HashMap<>();
+
+    public int concurrencyFor(final String eventType) {
+        return Math.min(typeConcurrency.getOrDefault(eventType, concurrency), concurrency);
+    }
+}
@@ -0,0 +1,21 @@
+package com.uphill.infrastructure.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Data
+@ConfigurationProperties(prefix = "outbox.partitions")
+public class OutboxPartitionProperties {
+
+    /** Split outbox work into partitions leased to one node each, instead of all nodes competing for all rows. */
+    private boolean enabled = true;
+
+    /** Number of partitions; must be the same on every node and bounds how many nodes can share the work. */
+    private int count = 16;
+
+    /** How often a node renews its heartbeat and partition leases and rebalances. */
+    private long heartbeatMs = 5000;
+
+    /** How long a heartbeat or partition lease stays valid without renewal. */
+    private long leaseTtlMs = 15000;
+}
@@ -0,0 +1,27 @@
+package com.uphill.infrastructure.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Data
+@ConfigurationProperties(prefix = "outbox.retention")
+public class OutboxRetentionProperties {
+
+    public enum Mode { DROP, ARCHIVE }
+
+    /** Retire old outbox_events partitions; upcoming ones are created whatever this says. */
+    private boolean enabled = true;
+
+    /** Days a partition is kept after its last day before it is retired. */
+    private int days = 7;
+
+    /**
+     * Daily partitions created ahead of today, even with retention disabled. outbox_events has no
+     * default partition, so events cannot be written for a day the job has not created; this is
+     * how long it may be down.
+     */
+    private int premakeDays = 3;
+
+    /** DROP deletes retired partitions, ARCHIVE moves them to outbox_events_archive. */
+    private Mode mode = Mode.DROP;
+}
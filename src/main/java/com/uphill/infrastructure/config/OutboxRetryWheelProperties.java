@@ -0,0 +1,27 @@
+package com.uphill.infrastructure.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Data
+@ConfigurationProperties(prefix = "outbox.retry-wheel")
+public class OutboxRetryWheelProperties {
+
+    /** Fire delayed retries from an in-memory timing wheel instead of waiting for a poll. */
+    private boolean enabled = true;
+
+    /** Resolution of the wheel; a retry fires at most one tick after it is due. */
+    private long tickMs = 100;
+
+    /** Buckets per level; each level spans {@code tickMs * wheelSize} times the one below. */
+    private int wheelSize = 512;
+
+    /** Retries due within this far ahead are loaded into the wheel; later ones as it gets closer. */
+    private long loadHorizonMs = 600_000;
+
+    /** Rows read per query when loading the wheel. */
+    private int loadPageSize = 1000;
+
+    /** How long past its due time the poller leaves a retry to the wheel before claiming it too. */
+    private long pollerGraceMs = 5000;
+}
@@ -3,14 +3,24 @@ package com.uphill.infrastructure.persistence.ActivityLog;
 import com.uphill.core.application.service.activity.ActivityLogPersistenceService;
 import com.uphill.core.domain.ActivityLog;
 import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
 
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
 @Service
 @RequiredArgsConstructor
 public class ActivityLogPersistenceServiceImpl implements ActivityLogPersistenceService {
+
+    private static final String INSERT_PREFIX = "INSERT INTO activity_logs (user_id, action, description, created_at) VALUES ";
+    private static final String ROW_PLACEHOLDERS = "(?, ?, ?, ?)";
     
     private final ActivityLogRepository repository;
     private final ActivityLogMapper mapper;
+    private final JdbcTemplate jdbcTemplate;
     
     @Override
     public ActivityLog save(final ActivityLog activityLog) {
@@ -18,4 +28,28 @@ public class ActivityLogPersistenceServiceImpl implements ActivityLogPersistence
         final ActivityLogEntity saved = repository.save(entity);
         return mapper.toDomain(saved);
     }
+
+    /**
+     * Writes all entries with one multi-row INSERT. Ids are not read back; the IDENTITY key
+     * is what prevents Hibernate from batching these through {@link #save}.
+     */
+    @Override
+    public void saveAll(final List<ActivityLog> activityLogs) {
+        if (activityLogs.isEmpty()) {
+            return;
+        }
+        final StringBuilder sql = new StringBuilder(INSERT_PREFIX);
+        final List<Object> args = new ArrayList<>(activityLogs.size() * 4);
+        for (final ActivityLog activityLog : activityLogs) {
+            if (!args.isEmpty()) {
+                sql.append(", ");
+            }
+            sql.append(ROW_PLACEHOLDERS);
+            args.add(activityLog.getUserId());
+            args.add(activityLog.getAction());
+            args.add(activityLog.getDescription());
+            args.add(Timestamp.valueOf(activityLog.getCreatedAt() != null ? activityLog.getCreatedAt() : LocalDateTime.now()));
+        }
+        jdbcTemplate.update(sql.toString(), args.toArray());
+    }
 }
@@ -0,0 +1,228 @@
+package com.uphill.infrastructure.persistence.ActivityLog;
+
+import com.uphill.core.application.service.activity.ActivityLogPersistenceService;
+import com.uphill.core.domain.ActivityLog;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Takes activity logs off the request path. Entries, single or bulk, are queued under the
+ * overflow policy (after commit when a transaction is active, so rolled-back work leaves no
+ * audit rows, as before) and a single
+ * writer thread inserts them in multi-row batches, flushing when a batch is full or the flush
+ * interval has passed. The queue is drained on shutdown before the data source goes away.
+ */
+@Service
+@Primary
+@RequiredArgsConstructor
+public class BufferedActivityLogPersistenceService implements ActivityLogPersistenceService, SmartLifecycle {
+
+    private static final Logger log = LoggerFactory.getLogger(BufferedActivityLogPersistenceService.class);
+    // Upper bound for a single wait of the writer, so a stop request is noticed promptly.
+    private static final long MAX_POLL_MS = 100;
+
+    private final ActivityLogPersistenceServiceImpl delegate;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${activity-log.buffer.enabled:true}")
+    private boolean enabled;
+
+    @Value("${activity-log.buffer.capacity:10000}")
+    private int capacity;
+
+    @Value("${activity-log.buffer.batch-size:200}")
+    private int batchSize;
+
+    @Value("${activity-log.buffer.flush-interval-ms:500}")
+    private long flushIntervalMs;
+
+    @Value("${activity-log.buffer.overflow-policy:BLOCK}")
+    private OverflowPolicy overflowPolicy;
+
+    @Value("${activity-log.buffer.block-timeout-ms:100}")
+    private long blockTimeoutMs;
+
+    @Value("${activity-log.buffer.shutdown-timeout-ms:10000}")
+    private long shutdownTimeoutMs;
+
+    private BlockingQueue<ActivityLog> queue;
+    private Thread writer;
+    private Counter droppedCounter;
+    private Counter writtenCounter;
+    private Counter failedCounter;
+    private volatile boolean running;
+
+    @Override
+    public ActivityLog save(final ActivityLog activityLog) {
+        if (!enabled) {
+            return delegate.save(activityLog);
+        }
+        enqueueAfterCommit(List.of(activityLog));
+        return activityLog;
+    }
+
+    @Override
+    public void saveAll(final List<ActivityLog> activityLogs) {
+        if (!enabled) {
+            delegate.saveAll(activityLogs);
+            return;
+        }
+        enqueueAfterCommit(List.copyOf(activityLogs));
+    }
+
+    @Override
+    public void start() {
+        if (!enabled || running) {
+            return;
+        }
+        queue = new ArrayBlockingQueue<>(capacity);
+        droppedCounter = Counter.builder("activity_log.buffer.dropped").register(meterRegistry);
+        writtenCounter = Counter.builder("activity_log.buffer.written").register(meterRegistry);
+        failedCounter = Counter.builder("activity_log.buffer.failed").register(meterRegistry);
+        meterRegistry.gauge("activity_log.buffer.size", queue, BlockingQueue::size);
+
+        running = true;
+        writer = new Thread(this::runWriter, "activity-log-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    @Override
+    public void stop() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        try {
+            writer.join(shutdownTimeoutMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (writer.isAlive()) {
+            log.warn("Activity log writer did not finish within {} ms, {} entries still queued", shutdownTimeoutMs, queue.size());
+            return;
+        }
+        // Entries enqueued while the writer was exiting.
+        final List<ActivityLog> remaining = new ArrayList<>();
+        queue.drainTo(remaining);
+        flush(remaining);
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    private void enqueueAfterCommit(final List<ActivityLog> activityLogs) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    enqueue(activityLogs);
+                }
+            });
+        } else {
+            enqueue(activityLogs);
+        }
+    }
+
+    private void enqueue(final List<ActivityLog> activityLogs) {
+        if (!running) {
+            delegate.saveAll(activityLogs);
+            return;
+        }
+        for (final ActivityLog activityLog : activityLogs) {
+            final boolean accepted = switch (overflowPolicy) {
+                case DROP_NEWEST -> queue.offer(activityLog);
+                case DROP_OLDEST -> offerEvictingOldest(activityLog);
+                case BLOCK -> offerWaiting(activityLog);
+            };
+            if (!accepted) {
+                droppedCounter.increment();
+                log.warn("Activity log buffer full, dropped {} entry", activityLog.getAction());
+            }
+        }
+    }
+
+    private boolean offerEvictingOldest(final ActivityLog activityLog) {
+        while (!queue.offer(activityLog)) {
+            if (queue.poll() != null) {
+                droppedCounter.increment();
+            }
+        }
+        return true;
+    }
+
+    private boolean offerWaiting(final ActivityLog activityLog) {
+        try {
+            return queue.offer(activityLog, blockTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private void runWriter() {
+        final List<ActivityLog> batch = new ArrayList<>(batchSize);
+        try {
+            while (running || !queue.isEmpty()) {
+                final ActivityLog first = queue.poll(Math.min(flushIntervalMs, MAX_POLL_MS), TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                fillBatch(batch);
+                flush(batch);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            queue.drainTo(batch);
+            flush(batch);
+        }
+    }
+
+    // Tops the batch up until it is full or the flush interval since its first entry has passed.
+    private void fillBatch(final List<ActivityLog> batch) throws InterruptedException {
+        final long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(flushIntervalMs);
+        while (batch.size() < batchSize) {
+            queue.drainTo(batch, batchSize - batch.size());
+            final long remaining = deadline - System.nanoTime();
+            if (batch.size() >= batchSize || remaining <= 0 || !running) {
+                return;
+            }
+            final ActivityLog next = queue.poll(Math.min(remaining, TimeUnit.MILLISECONDS.toNanos(MAX_POLL_MS)), TimeUnit.NANOSECONDS);
+            if (next != null) {
+                batch.add(next);
+            }
+        }
+    }
+
+    private void flush(final List<ActivityLog> batch) {
+        for (int from = 0; from < batch.size(); from += batchSize) {
+            final List<ActivityLog> chunk = List.copyOf(batch.subList(from, Math.min(from + batchSize, batch.size())));
+            try {
+                delegate.saveAll(chunk);
+                writtenCounter.increment(chunk.size());
+            } catch (RuntimeException e) {
+                failedCounter.increment(chunk.size());
+                log.error("Failed to write {} activity log entries", chunk.size(), e);
+            }
+        }
+        batch.clear();
+    }
+}
@@ -0,0 +1,13 @@
+package com.uphill.infrastructure.persistence.ActivityLog;
+
+/**
+ * What the buffered activity log does when its queue is full.
+ */
+public enum OverflowPolicy {
+    /** Wait up to the configured block timeout for space, then drop the new entry. */
+    BLOCK,
+    /** Drop the new entry immediately. */
+    DROP_NEWEST,
+    /** Evict the oldest queued entry to make room for the new one. */
+    DROP_OLDEST
+}
@@ -0,0 +1,9 @@
+package com.uphill.infrastructure.persistence.Appointment;
+
+public interface AllocatedAppointmentView {
+    Long getId();
+    Long getDoctorId();
+    String getDoctorName();
+    Long getRoomId();
+    String getRoomName();
+}
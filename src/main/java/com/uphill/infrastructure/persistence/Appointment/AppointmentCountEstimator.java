@@ -0,0 +1,60 @@
+package com.uphill.infrastructure.persistence.Appointment;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.Date;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Estimates how many appointments match a filter without counting them. An unfiltered listing
+ * reads the table's row count from pg_class; a filtered one asks the planner, through EXPLAIN,
+ * how many rows it expects the filter to select. Both are only as fresh as the last ANALYZE.
+ */
+@Component
+@RequiredArgsConstructor
+class AppointmentCountEstimator {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+
+    long estimate(final AppointmentFilter filter) {
+        final StringBuilder where = new StringBuilder();
+        final List<Object> args = new ArrayList<>();
+        addPredicate(where, args, "a.patient_id = ?", filter.getPatientId());
+        addPredicate(where, args, "a.doctor_id = ?", filter.getDoctorId());
+        addPredicate(where, args, "a.room_id = ?", filter.getRoomId());
+        addPredicate(where, args, "a.status = ?", filter.getStatus() != null ? filter.getStatus().name() : null);
+        addPredicate(where, args, "a.date >= ?", filter.getStartDate() != null ? Date.valueOf(filter.getStartDate()) : null);
+        addPredicate(where, args, "a.date <= ?", filter.getEndDate() != null ? Date.valueOf(filter.getEndDate()) : null);
+
+        if (args.isEmpty()) {
+            final Long rows = jdbcTemplate.queryForObject(
+                    "SELECT reltuples::bigint FROM pg_class WHERE oid = 'appointments'::regclass", Long.class);
+            // -1 until the table has been vacuumed or analyzed once
+            return rows != null ? Math.max(rows, 0) : 0;
+        }
+        final String plan = jdbcTemplate.queryForObject(
+                "EXPLAIN (FORMAT JSON) SELECT 1 FROM appointments a WHERE " + where, String.class, args.toArray());
+        try {
+            return objectMapper.readTree(plan).path(0).path("Plan").path("Plan Rows").asLong();
+        } catch (JsonProcessingException ex) {
+            throw new IllegalStateException("Unreadable query plan for appointment count estimate", ex);
+        }
+    }
+
+    private static void addPredicate(final StringBuilder where, final List<Object> args, final String predicate, final Object value) {
+        if (value == null) {
+            return;
+        }
+        if (!args.isEmpty()) {
+            where.append(" AND ");
+        }
+        where.append(predicate);
+        args.add(value);
+    }
+}
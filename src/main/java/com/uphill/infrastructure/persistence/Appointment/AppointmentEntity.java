@@ -24,6 +24,7 @@ import lombok.NoArgsConstructor;
 import lombok.Setter;
 import lombok.ToString;
 import java.time.LocalDate;
+import java.time.LocalTime;
 
 @Entity
 @Table(name = "appointments",
@@ -63,6 +64,10 @@ public class AppointmentEntity {
     @Column(name = "date", nullable = false)
     @ToString.Include
     private LocalDate date;
+
+    /** Copy of the time slot's start, kept here for the listing's seek index. */
+    @Column(name = "start_time", nullable = false)
+    private LocalTime startTime;
     
     @Enumerated(EnumType.STRING)
     @Column(name = "status", nullable = false)
@@ -0,0 +1,282 @@
+package com.uphill.infrastructure.persistence.Appointment;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.uphill.core.domain.AppointmentCursor;
+import com.uphill.core.domain.AppointmentStatus;
+import com.uphill.core.domain.AppointmentSummary;
+import com.uphill.core.domain.CountStrategy;
+import com.uphill.core.domain.CursorPage;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Caches pages of the appointment listing in Redis, keyed by the normalized filter and page.
+ * Each page is stored under the generations of the scope its filter pins: the doctor, room or
+ * patient (per day when the filter also pins a short date range), the days alone, or the whole
+ * table. A write bumps, after commit, every generation the appointment falls in, so older pages
+ * become unreachable and expire on their own. Generations are read before the page is queried,
+ * so a page read concurrently with a write ends up under the generation that write replaced.
+ * Redis failures fall through to the database.
+ */
+@Component
+class AppointmentListingCache {
+
+    private static final Logger log = LoggerFactory.getLogger(AppointmentListingCache.class);
+    private static final String PREFIX = "appointment-listing:";
+    private static final String GENERATION_PREFIX = PREFIX + "gen:";
+    private static final String ALL = "all";
+
+    private final RedisTemplate<String, String> redisTemplate;
+    private final ObjectMapper objectMapper;
+    private final boolean enabled;
+    private final long ttlSeconds;
+    private final int maxScopedDays;
+
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter errors;
+    private final Counter invalidations;
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong lookupCount = new AtomicLong();
+
+    AppointmentListingCache(final RedisTemplate<String, String> redisTemplate,
+                            final ObjectMapper objectMapper,
+                            final MeterRegistry meterRegistry,
+                            @Value("${appointment.listing-cache.enabled:true}") final boolean enabled,
+                            @Value("${appointment.listing-cache.ttl-seconds:60}") final long ttlSeconds,
+                            @Value("${appointment.listing-cache.max-scoped-days:31}") final int maxScopedDays) {
+        this.redisTemplate = redisTemplate;
+        this.objectMapper = objectMapper;
+        this.enabled = enabled;
+        this.ttlSeconds = ttlSeconds;
+        this.maxScopedDays = maxScopedDays;
+        hits = Counter.builder("appointment.listing_cache.hits").register(meterRegistry);
+        misses = Counter.builder("appointment.listing_cache.misses").register(meterRegistry);
+        errors = Counter.builder("appointment.listing_cache.errors").register(meterRegistry);
+        invalidations = Counter.builder("appointment.listing_cache.invalidations").register(meterRegistry);
+        meterRegistry.gauge("appointment.listing_cache.hit_ratio", this,
+                cache -> cache.lookupCount.get() == 0 ? 0 : (double) cache.hitCount.get() / cache.lookupCount.get());
+    }
+
+    Slice<AppointmentSummary> slice(final AppointmentFilter filter, final Pageable page, final CountStrategy countStrategy,
+                                    final Supplier<Slice<AppointmentSummary>> loader) {
+        final String pageKey = "offset:" + page.getPageNumber() + ":" + page.getPageSize() + ":" + countStrategy;
+        return lookup(filter, pageKey, loader,
+                slice -> new CachedPage(rows(slice.getContent()), slice.hasNext(),
+                        slice instanceof Page<AppointmentSummary> p ? p.getTotalElements() : null, null),
+                cached -> cached.total() != null
+                        ? new PageImpl<>(summaries(cached.rows()), page, cached.total())
+                        : new SliceImpl<>(summaries(cached.rows()), page, cached.hasNext()));
+    }
+
+    CursorPage<AppointmentSummary> cursorPage(final AppointmentFilter filter, final AppointmentCursor after, final int size,
+                                              final Supplier<CursorPage<AppointmentSummary>> loader) {
+        final String pageKey = "cursor:" + (after != null ? after.encode() : "") + ":" + size;
+        return lookup(filter, pageKey, loader,
+                cursorPage -> new CachedPage(rows(cursorPage.getContent()), cursorPage.isHasNext(), null, cursorPage.getNextCursor()),
+                cached -> new CursorPage<>(summaries(cached.rows()), cached.nextCursor()));
+    }
+
+    /**
+     * Makes every cached page the appointment can appear in unreachable, once the surrounding
+     * transaction commits.
+     */
+    void invalidate(final Long doctorId, final Long roomId, final Long patientId, final LocalDate date) {
+        if (!enabled) {
+            return;
+        }
+        final Set<String> keys = new LinkedHashSet<>();
+        addGenerationKeys(keys, doctorId, roomId, patientId, date);
+        afterCommit(keys, 1);
+    }
+
+    void invalidate(final Collection<? extends AppointmentScopeView> appointments) {
+        if (!enabled || appointments.isEmpty()) {
+            return;
+        }
+        final Set<String> keys = new LinkedHashSet<>();
+        for (final AppointmentScopeView appointment : appointments) {
+            addGenerationKeys(keys, appointment.getDoctorId(), appointment.getRoomId(), appointment.getPatientId(),
+                    appointment.getDate());
+        }
+        afterCommit(keys, appointments.size());
+    }
+
+    private void afterCommit(final Set<String> keys, final int appointments) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    bump(keys, appointments);
+                }
+            });
+        } else {
+            bump(keys, appointments);
+        }
+    }
+
+    private static void addGenerationKeys(final Set<String> keys, final Long doctorId, final Long roomId,
+                                          final Long patientId, final LocalDate date) {
+        keys.add(GENERATION_PREFIX + ALL);
+        keys.add(GENERATION_PREFIX + "date:" + date);
+        for (final String entity : List.of("doctor:" + doctorId, "room:" + roomId, "patient:" + patientId)) {
+            keys.add(GENERATION_PREFIX + entity);
+            keys.add(GENERATION_PREFIX + entity + ":" + date);
+        }
+    }
+
+    private <T> T lookup(final AppointmentFilter filter, final String pageKey, final Supplier<T> loader,
+                         final Function<T, CachedPage> toCached, final Function<CachedPage, T> fromCached) {
+        if (!enabled) {
+            return loader.get();
+        }
+        final String key;
+        try {
+            key = PREFIX + "page:" + filterKey(filter) + "|" + pageKey + "|" + String.join(".", generations(filter));
+            final String cached = redisTemplate.opsForValue().get(key);
+            if (cached != null) {
+                final T result = fromCached.apply(objectMapper.readValue(cached, CachedPage.class));
+                record(true);
+                return result;
+            }
+        } catch (RuntimeException | JsonProcessingException ex) {
+            errors.increment();
+            log.warn("Appointment listing cache unavailable, reading from the database: {}", ex.getMessage());
+            return loader.get();
+        }
+        record(false);
+        final T result = loader.get();
+        try {
+            redisTemplate.opsForValue().set(key, objectMapper.writeValueAsString(toCached.apply(result)),
+                    Duration.ofSeconds(ttlSeconds));
+        } catch (RuntimeException | JsonProcessingException ex) {
+            errors.increment();
+            log.warn("Could not cache appointment listing page: {}", ex.getMessage());
+        }
+        return result;
+    }
+
+    /**
+     * Current generations of the scope the filter pins; a filter that pins several dimensions
+     * only needs one of them, since every matching write bumps them all.
+     */
+    private List<String> generations(final AppointmentFilter filter) {
+        final String entity = filter.getDoctorId() != null ? "doctor:" + filter.getDoctorId()
+                : filter.getRoomId() != null ? "room:" + filter.getRoomId()
+                : filter.getPatientId() != null ? "patient:" + filter.getPatientId()
+                : null;
+        final List<String> scopes = new ArrayList<>();
+        final LocalDate start = filter.getStartDate();
+        final LocalDate end = filter.getEndDate();
+        if (start != null && end != null && !end.isAfter(start.plusDays(maxScopedDays - 1L))) {
+            for (LocalDate day = start; !day.isAfter(end); day = day.plusDays(1)) {
+                scopes.add(entity != null ? entity + ":" + day : "date:" + day);
+            }
+        } else {
+            scopes.add(entity != null ? entity : ALL);
+        }
+        if (scopes.isEmpty()) {
+            // An empty date range matches nothing whatever is written
+            return scopes;
+        }
+        final List<String> values = redisTemplate.opsForValue().multiGet(
+                scopes.stream().map(scope -> GENERATION_PREFIX + scope).toList());
+        return values.stream().map(value -> value != null ? value : "0").toList();
+    }
+
+    private void bump(final Collection<String> keys, final int appointments) {
+        // Generations outlive every page stored under them, so an expired one restarting at
+        // zero cannot revive an old page.
+        final long generationTtlSeconds = ttlSeconds * 2 + 60;
+        try {
+            redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                for (final String key : keys) {
+                    incrementWithExpiry(connection, key.getBytes(StandardCharsets.UTF_8), generationTtlSeconds);
+                }
+                return null;
+            });
+            invalidations.increment(appointments);
+        } catch (RuntimeException ex) {
+            errors.increment();
+            log.error("Could not invalidate cached appointment listings, pages may be stale for up to {}s: {}",
+                    ttlSeconds, ex.getMessage());
+        }
+    }
+
+    private static void incrementWithExpiry(final RedisConnection connection, final byte[] key, final long ttlSeconds) {
+        connection.stringCommands().incr(key);
+        connection.keyCommands().expire(key, ttlSeconds);
+    }
+
+    private void record(final boolean hit) {
+        lookupCount.incrementAndGet();
+        if (hit) {
+            hitCount.incrementAndGet();
+            hits.increment();
+        } else {
+            misses.increment();
+        }
+    }
+
+    private static String filterKey(final AppointmentFilter filter) {
+        return "patient=" + orEmpty(filter.getPatientId())
+                + ",doctor=" + orEmpty(filter.getDoctorId())
+                + ",room=" + orEmpty(filter.getRoomId())
+                + ",status=" + orEmpty(filter.getStatus())
+                + ",from=" + orEmpty(filter.getStartDate())
+                + ",to=" + orEmpty(filter.getEndDate());
+    }
+
+    private static String orEmpty(final Object value) {
+        return value != null ? value.toString() : "";
+    }
+
+    private static List<CachedRow> rows(final List<AppointmentSummary> summaries) {
+        return summaries.stream()
+                .map(s -> new CachedRow(s.getId(), s.getDoctorName(), s.getPatientName(), s.getRoomName(),
+                        s.getDate(), s.getStartTime(), s.getEndTime(), s.getStatus()))
+                .toList();
+    }
+
+    private static List<AppointmentSummary> summaries(final List<CachedRow> rows) {
+        return rows.stream()
+                .map(r -> new AppointmentSummary(r.id(), r.doctorName(), r.patientName(), r.roomName(),
+                        r.date(), r.startTime(), r.endTime(), r.status()))
+                .toList();
+    }
+
+    record CachedPage(List<CachedRow> rows, boolean hasNext, Long total, String nextCursor) {
+    }
+
+    record CachedRow(Long id, String doctorName, String patientName, String roomName, LocalDate date,
+                     LocalTime startTime, LocalTime endTime, AppointmentStatus status) {
+    }
+}
@@ -3,9 +3,16 @@ package com.uphill.infrastructure.persistence.Appointment;
 import com.uphill.core.application.service.appointment.AppointmentPersistenceService;
 import com.uphill.core.application.service.activity.ActivityLogPersistenceService;
 import com.uphill.core.domain.Appointment;
+import com.uphill.core.domain.AppointmentCursor;
 import com.uphill.core.domain.AppointmentStatus;
+import com.uphill.core.domain.AppointmentSummary;
+import com.uphill.core.domain.CountStrategy;
+import com.uphill.core.domain.CursorPage;
+import com.uphill.core.domain.Doctor;
+import com.uphill.core.domain.Room;
 import com.uphill.core.application.service.activity.ActivityLogHelper;
 import com.uphill.core.domain.ActivityEventType;
+import com.uphill.core.exception.ResourceAlreadyBookedException;
 import com.uphill.infrastructure.persistence.Doctor.DoctorEntity;
 import com.uphill.infrastructure.persistence.Doctor.DoctorRepository;
 import com.uphill.infrastructure.persistence.Patient.PatientEntity;
@@ -15,17 +22,35 @@ import com.uphill.infrastructure.persistence.Room.RoomRepository;
 import com.uphill.infrastructure.persistence.TimeSlot.TimeSlotEntity;
 import com.uphill.infrastructure.persistence.TimeSlot.TimeSlotRepository;
 import com.uphill.infrastructure.persistence.EntityMapper;
+import com.uphill.infrastructure.service.availability.AvailabilityIndex;
+import com.uphill.infrastructure.service.selection.CandidateSelector;
+import jakarta.persistence.EntityManager;
 import lombok.RequiredArgsConstructor;
+import org.hibernate.Hibernate;
+import org.hibernate.exception.ConstraintViolationException;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.support.PageableExecutionUtils;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
 
 @Service
 @RequiredArgsConstructor
 public class AppointmentPersistenceServiceImpl implements AppointmentPersistenceService {
+
+    // Unique constraints of appointments (V1); violating either means a concurrent booking won the slot.
+    private static final String DOCTOR_SLOT_CONSTRAINT = "appointments_doctor_id_date_time_slot_id_key";
+    private static final String ROOM_SLOT_CONSTRAINT = "appointments_room_id_date_time_slot_id_key";
     
     private final AppointmentRepository appointmentRepository;
     private final EntityMapper entityMapper;
@@ -34,24 +59,79 @@ public class AppointmentPersistenceServiceImpl implements AppointmentPersistence
     private final RoomRepository roomRepository;
     private final TimeSlotRepository timeSlotRepository;
     private final ActivityLogPersistenceService activityLogPersistenceService;
+    private final AvailabilityIndex availabilityIndex;
+    private final AppointmentCountEstimator appointmentCountEstimator;
+    private final AppointmentListingCache appointmentListingCache;
+    private final CandidateSelector candidateSelector;
+    private final EntityManager entityManager;
     
     @Override
     @Transactional(readOnly = true)
-    public Page<Appointment> findAppointmentsWithFilters(
+    public Slice<AppointmentSummary> findAppointmentsWithFilters(
             final Long patientId,
             final Long doctorId,
             final Long roomId,
             final AppointmentStatus status,
             final LocalDate startDate,
             final LocalDate endDate,
-            final Pageable pageable) {
-        return appointmentRepository.findAppointmentsWithFilters(
-                patientId, doctorId, roomId, 
-                status != null ? status.name() : null,
-                startDate != null ? startDate.toString() : null,
-                endDate != null ? endDate.toString() : null,
-                pageable)
-                .map(entityMapper::toDomain);
+            final Pageable pageable,
+            final CountStrategy countStrategy) {
+        final AppointmentFilter filter = filter(patientId, doctorId, roomId, status, startDate, endDate);
+        final Pageable page = PageRequest.of(pageable.getPageNumber(), pageable.getPageSize(), AppointmentSpecifications.LISTING_ORDER);
+        return appointmentListingCache.slice(filter, page, countStrategy, () -> loadSlice(filter, page, countStrategy));
+    }
+
+    private Slice<AppointmentSummary> loadSlice(final AppointmentFilter filter, final Pageable page, final CountStrategy countStrategy) {
+        final Specification<AppointmentEntity> spec = AppointmentSpecifications.matching(filter);
+        if (countStrategy == CountStrategy.NONE) {
+            // One row past the page tells whether there is a next one without counting.
+            final List<AppointmentSummary> rows = appointmentRepository.findSummaries(
+                    spec, AppointmentSpecifications.LISTING_ORDER, page.getOffset(), page.getPageSize() + 1);
+            final boolean hasNext = rows.size() > page.getPageSize();
+            return new SliceImpl<>(hasNext ? rows.subList(0, page.getPageSize()) : rows, page, hasNext);
+        }
+        final List<AppointmentSummary> content = appointmentRepository.findSummaries(
+                spec, AppointmentSpecifications.LISTING_ORDER, page.getOffset(), page.getPageSize());
+        if (countStrategy == CountStrategy.ESTIMATED) {
+            // The planner can guess below what this page already proves; a full page implies at
+            // least one more row, so the total never ends the listing early.
+            final long seen = page.getOffset() + content.size() + (content.size() == page.getPageSize() ? 1 : 0);
+            return PageableExecutionUtils.getPage(content, page, () -> Math.max(appointmentCountEstimator.estimate(filter), seen));
+        }
+        return PageableExecutionUtils.getPage(content, page, () -> appointmentRepository.count(spec));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPage<AppointmentSummary> findAppointmentsByCursor(
+            final Long patientId,
+            final Long doctorId,
+            final Long roomId,
+            final AppointmentStatus status,
+            final LocalDate startDate,
+            final LocalDate endDate,
+            final AppointmentCursor after,
+            final int size) {
+        final AppointmentFilter filter = filter(patientId, doctorId, roomId, status, startDate, endDate);
+        return appointmentListingCache.cursorPage(filter, after, size, () -> loadCursorPage(filter, after, size));
+    }
+
+    private CursorPage<AppointmentSummary> loadCursorPage(final AppointmentFilter filter, final AppointmentCursor after, final int size) {
+        Specification<AppointmentEntity> spec = AppointmentSpecifications.matching(filter);
+        if (after != null) {
+            spec = spec.and(AppointmentSpecifications.after(after));
+        }
+        // One row past the page tells whether there is a next one without counting.
+        final List<AppointmentSummary> rows = appointmentRepository.findSummaries(
+                spec, AppointmentSpecifications.LISTING_ORDER, 0, size + 1);
+
+        final List<AppointmentSummary> page = rows.size() > size ? rows.subList(0, size) : rows;
+        String nextCursor = null;
+        if (rows.size() > size) {
+            final AppointmentSummary last = page.get(page.size() - 1);
+            nextCursor = new AppointmentCursor(last.getDate(), last.getStartTime(), last.getId()).encode();
+        }
+        return new CursorPage<>(List.copyOf(page), nextCursor);
     }
 
     @Override
@@ -66,15 +146,24 @@ public class AppointmentPersistenceServiceImpl implements AppointmentPersistence
         final TimeSlotEntity timeSlot = timeSlotRepository.findById(appointment.getTimeSlot().getId())
                 .orElseThrow(() -> new IllegalArgumentException("TimeSlot not found"));
 
+        availabilityIndex.trackBooking(appointment.getDate(), timeSlot.getId(), doctor.getId(), room.getId());
+
         final AppointmentEntity toSave = AppointmentEntity.builder()
                 .patient(patient)
                 .doctor(doctor)
                 .room(room)
                 .timeSlot(timeSlot)
+                .startTime(timeSlot.getStartTime())
                 .date(appointment.getDate())
                 .status(appointment.getStatus())
                 .build();
-        final AppointmentEntity saved = appointmentRepository.save(toSave);
+        final AppointmentEntity saved;
+        try {
+            saved = appointmentRepository.save(toSave);
+        } catch (DataIntegrityViolationException ex) {
+            throw bookingConflict(ex);
+        }
+        appointmentListingCache.invalidate(doctor.getId(), room.getId(), patient.getId(), appointment.getDate());
         
         ActivityLogHelper.logAppointmentEvent(
                 activityLogPersistenceService,
@@ -87,11 +176,67 @@ public class AppointmentPersistenceServiceImpl implements AppointmentPersistence
         return entityMapper.toDomain(saved);
     }
 
+    @Override
+    @Transactional
+    public Optional<Appointment> allocateAppointment(final Appointment appointment) {
+        final CandidateSelector.AllocationOrder order = candidateSelector.allocationOrder(appointment.getPatient().getId());
+        final Optional<AllocatedAppointmentView> allocated;
+        try {
+            allocated = appointmentRepository.allocateAppointment(
+                    appointment.getDoctor().getSpecialty().getId(),
+                    appointment.getPatient().getId(),
+                    appointment.getDate(),
+                    appointment.getTimeSlot().getId(),
+                    appointment.getStatus().name(),
+                    order.leastLoaded(),
+                    order.shuffled(),
+                    order.seed()).stream().findFirst();
+        } catch (DataIntegrityViolationException ex) {
+            throw bookingConflict(ex);
+        }
+        if (allocated.isEmpty()) {
+            return Optional.empty();
+        }
+        final AllocatedAppointmentView view = allocated.get();
+
+        availabilityIndex.trackBooking(appointment.getDate(), appointment.getTimeSlot().getId(), view.getDoctorId(), view.getRoomId());
+        appointmentListingCache.invalidate(view.getDoctorId(), view.getRoomId(), appointment.getPatient().getId(), appointment.getDate());
+
+        final Appointment saved = Appointment.builder()
+                .id(view.getId())
+                .patient(appointment.getPatient())
+                .doctor(Doctor.builder()
+                        .id(view.getDoctorId())
+                        .name(view.getDoctorName())
+                        .specialty(appointment.getDoctor().getSpecialty())
+                        .build())
+                .room(Room.builder()
+                        .id(view.getRoomId())
+                        .name(view.getRoomName())
+                        .build())
+                .timeSlot(appointment.getTimeSlot())
+                .date(appointment.getDate())
+                .status(appointment.getStatus())
+                .build();
+
+        ActivityLogHelper.logAppointmentEvent(
+                activityLogPersistenceService,
+                0L,
+                ActivityEventType.APPOINTMENT_CREATED,
+                saved,
+                null
+        );
+
+        return Optional.of(saved);
+    }
+
     @Override
     @Transactional
     public void updateAppointmentStatus(Long appointmentId, AppointmentStatus status) {
-        appointmentRepository.updateAppointmentStatus(appointmentId, status);
-        
+        final List<AppointmentScopeView> changed = appointmentRepository.updateAppointmentStatus(appointmentId, status.name());
+        changed.forEach(appointment -> refreshIfLoaded(appointment.getId()));
+        appointmentListingCache.invalidate(changed);
+
         final Appointment updated = Appointment.builder()
                 .id(appointmentId)
                 .status(status)
@@ -104,4 +249,78 @@ public class AppointmentPersistenceServiceImpl implements AppointmentPersistence
                 null
         );
     }
+
+    /**
+     * Re-reads an appointment the native update changed behind the persistence context, when it
+     * was already loaded in this transaction; otherwise only drops the reference, without a query.
+     */
+    private void refreshIfLoaded(final Long appointmentId) {
+        final AppointmentEntity entity = entityManager.getReference(AppointmentEntity.class, appointmentId);
+        if (Hibernate.isInitialized(entity)) {
+            entityManager.refresh(entity);
+        } else {
+            entityManager.detach(entity);
+        }
+    }
+
+    @Override
+    @Transactional
+    public List<Long> confirmBookedAppointmentsWithoutUnprocessedEvents(final Collection<Long> appointmentIds) {
+        return logConfirmed(appointmentRepository.confirmBookedWithoutUnprocessedEvents(appointmentIds));
+    }
+
+    @Override
+    @Transactional
+    public List<Long> confirmBookedAppointments(final Collection<Long> appointmentIds) {
+        return logConfirmed(appointmentRepository.confirmBooked(appointmentIds));
+    }
+
+    private List<Long> logConfirmed(final List<AppointmentScopeView> changed) {
+        appointmentListingCache.invalidate(changed);
+        final List<Long> confirmed = changed.stream().map(AppointmentScopeView::getId).toList();
+        for (final Long appointmentId : confirmed) {
+            final Appointment updated = Appointment.builder()
+                    .id(appointmentId)
+                    .status(AppointmentStatus.CONFIRMED)
+                    .build();
+            ActivityLogHelper.logAppointmentEvent(
+                    activityLogPersistenceService,
+                    0L,
+                    ActivityEventType.APPOINTMENT_STATUS_UPDATED,
+                    updated,
+                    null
+            );
+        }
+        return confirmed;
+    }
+
+    /**
+     * Tells a lost booking race, named by the violated unique constraint, apart from other
+     * integrity errors (a missing patient, say), which are returned unchanged.
+     */
+    private static RuntimeException bookingConflict(final DataIntegrityViolationException ex) {
+        for (Throwable cause = ex.getCause(); cause != null; cause = cause.getCause()) {
+            if (cause instanceof ConstraintViolationException violation) {
+                if (DOCTOR_SLOT_CONSTRAINT.equalsIgnoreCase(violation.getConstraintName())) {
+                    return new ResourceAlreadyBookedException(ResourceAlreadyBookedException.Resource.DOCTOR, ex);
+                }
+                if (ROOM_SLOT_CONSTRAINT.equalsIgnoreCase(violation.getConstraintName())) {
+                    return new ResourceAlreadyBookedException(ResourceAlreadyBookedException.Resource.ROOM, ex);
+                }
+            }
+        }
+        return ex;
+    }
+
+    private static AppointmentFilter filter(final Long patientId, final Long doctorId, final Long roomId,
+                                            final AppointmentStatus status, final LocalDate startDate, final LocalDate endDate) {
+        return AppointmentFilter.builder()
+                .patientId(patientId)
+                .doctorId(doctorId)
+                .roomId(roomId)
+                .status(status)
+                .startDate(startDate)
+                .endDate(endDate)
+                .build();
+    }
 }
@@ -1,39 +1,106 @@
 package com.uphill.infrastructure.persistence.Appointment;
 
-import com.uphill.core.domain.AppointmentStatus;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Query;
-import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+
 @Repository
-public interface AppointmentRepository extends JpaRepository<AppointmentEntity, Long> {
-    
-    @Query(value = "SELECT a.* FROM appointments a " +
-           "JOIN doctors d ON d.id = a.doctor_id " +
-           "JOIN patients p ON p.id = a.patient_id " +
-           "JOIN rooms r ON r.id = a.room_id " +
-           "JOIN time_slots t ON t.id = a.time_slot_id " +
-           "WHERE (:patientId IS NULL OR a.patient_id = :patientId) " +
-           "AND (:doctorId IS NULL OR a.doctor_id = :doctorId) " +
-           "AND (:roomId IS NULL OR a.room_id = :roomId) " +
-           "AND (:status IS NULL OR a.status = :status) " +
-           "AND (:startDate IS NULL OR a.date >= CAST(:startDate AS date)) " +
-           "AND (:endDate IS NULL OR a.date <= CAST(:endDate AS date)) " +
-           "ORDER BY a.date DESC, t.start_time ASC, a.id ASC", nativeQuery = true)
-    Page<AppointmentEntity> findAppointmentsWithFilters(
+public interface AppointmentRepository extends JpaRepository<AppointmentEntity, Long>, JpaSpecificationExecutor<AppointmentEntity>,
+        AppointmentSummaryRepository {
+
+    String SCOPE_COLUMNS = "SELECT id AS \"id\", doctor_id AS \"doctorId\", room_id AS \"roomId\", " +
+           "patient_id AS \"patientId\", date AS \"date\" ";
+
+    @Query("SELECT a.doctor.id AS doctorId, a.room.id AS roomId, a.timeSlot.id AS timeSlotId " +
+           "FROM AppointmentEntity a WHERE a.date = :date")
+    List<BookedSlotView> findBookedSlotsByDate(@Param("date") LocalDate date);
+
+    /**
+     * Picks a free doctor of the specialty and a free room for the slot and inserts the
+     * appointment in the same statement. Candidates are ordered by the selection strategy
+     * ({@code leastLoaded}: fewest bookings that day first; {@code shuffled}: by a hash of the id
+     * seeded with {@code seed}; then by id). Rows locked by a concurrent allocation are skipped
+     * rather than waited on, so parallel allocations fan out over different doctors and rooms.
+     * The NOT EXISTS checks see the statement's snapshot, though, so a booking that commits
+     * between snapshot and insert (from the per-query path or another node) still ends in a
+     * unique violation the caller has to retry. Returns nothing when the patient does not exist
+     * or no free pair could be locked.
+     */
+    @Query(value = "WITH doctor AS (" +
+           "    SELECT d.id, d.name FROM doctors d " +
+           "    WHERE d.specialty_id = :specialtyId " +
+           "    AND NOT EXISTS (SELECT 1 FROM appointments a " +
+           "        WHERE a.doctor_id = d.id AND a.date = :date AND a.time_slot_id = :timeSlotId) " +
+           "    ORDER BY CASE WHEN :leastLoaded THEN (SELECT count(*) FROM appointments a " +
+           "        WHERE a.doctor_id = d.id AND a.date = :date) ELSE 0 END, " +
+           "    CASE WHEN :shuffled THEN hashint8extended(d.id, :seed) ELSE 0 END, d.id " +
+           "    LIMIT 1 FOR NO KEY UPDATE SKIP LOCKED" +
+           "), room AS (" +
+           "    SELECT r.id, r.name FROM rooms r " +
+           "    WHERE NOT EXISTS (SELECT 1 FROM appointments a " +
+           "        WHERE a.room_id = r.id AND a.date = :date AND a.time_slot_id = :timeSlotId) " +
+           "    ORDER BY CASE WHEN :leastLoaded THEN (SELECT count(*) FROM appointments a " +
+           "        WHERE a.room_id = r.id AND a.date = :date) ELSE 0 END, " +
+           "    CASE WHEN :shuffled THEN hashint8extended(r.id, :seed) ELSE 0 END, r.id " +
+           "    LIMIT 1 FOR NO KEY UPDATE SKIP LOCKED" +
+           "), inserted AS (" +
+           "    INSERT INTO appointments (doctor_id, patient_id, room_id, time_slot_id, start_time, date, status) " +
+           "    SELECT doctor.id, p.id, room.id, t.id, t.start_time, :date, :status " +
+           "    FROM doctor CROSS JOIN room JOIN patients p ON p.id = :patientId JOIN time_slots t ON t.id = :timeSlotId " +
+           "    RETURNING id, doctor_id, room_id" +
+           ") " +
+           "SELECT i.id AS \"id\", i.doctor_id AS \"doctorId\", doctor.name AS \"doctorName\", " +
+           "i.room_id AS \"roomId\", room.name AS \"roomName\" " +
+           "FROM inserted i JOIN doctor ON doctor.id = i.doctor_id JOIN room ON room.id = i.room_id",
+           nativeQuery = true)
+    List<AllocatedAppointmentView> allocateAppointment(
+            @Param("specialtyId") Long specialtyId,
             @Param("patientId") Long patientId,
-            @Param("doctorId") Long doctorId,
-            @Param("roomId") Long roomId,
+            @Param("date") LocalDate date,
+            @Param("timeSlotId") Long timeSlotId,
             @Param("status") String status,
-            @Param("startDate") String startDate,
-            @Param("endDate") String endDate,
-            Pageable pageable);
+            @Param("leastLoaded") boolean leastLoaded,
+            @Param("shuffled") boolean shuffled,
+            @Param("seed") long seed);
+
+    /**
+     * Confirms every still booked appointment among {@code ids} that has no unprocessed
+     * outbox_events row, returning the appointments that changed. Only meaningful for the
+     * EVENTS outbox format, where those rows are the appointment's pending side effects.
+     */
+    @Query(value = "WITH confirmed AS (" +
+           "    UPDATE appointments a SET status = 'CONFIRMED' " +
+           "    WHERE a.id IN (:ids) AND a.status = 'BOOKED' " +
+           "    AND NOT EXISTS (SELECT 1 FROM outbox_events e " +
+           "        WHERE e.aggregate_type = 'APPOINTMENT' AND e.aggregate_id = a.id AND e.status <> 'PROCESSED') " +
+           "    RETURNING a.id, a.doctor_id, a.room_id, a.patient_id, a.date" +
+           ") " + SCOPE_COLUMNS + "FROM confirmed", nativeQuery = true)
+    List<AppointmentScopeView> confirmBookedWithoutUnprocessedEvents(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Confirms every still booked appointment among {@code ids}, returning the appointments that
+     * changed. For callers that already know all side effects are done, like a completed saga.
+     */
+    @Query(value = "WITH confirmed AS (" +
+           "    UPDATE appointments SET status = 'CONFIRMED' WHERE id IN (:ids) AND status = 'BOOKED' " +
+           "    RETURNING id, doctor_id, room_id, patient_id, date" +
+           ") " + SCOPE_COLUMNS + "FROM confirmed", nativeQuery = true)
+    List<AppointmentScopeView> confirmBooked(@Param("ids") Collection<Long> ids);
 
-    @Modifying
-    @Query("UPDATE AppointmentEntity a SET a.status = :status WHERE a.id = :appointmentId")
-    int updateAppointmentStatus(@Param("appointmentId") Long appointmentId, @Param("status") AppointmentStatus status);
+    /**
+     * Sets the status of one appointment, returning it when it exists. Bypasses the persistence
+     * context, so an entity already loaded in the transaction keeps its old status until the
+     * caller refreshes it.
+     */
+    @Query(value = "WITH updated AS (" +
+           "    UPDATE appointments SET status = :status WHERE id = :appointmentId " +
+           "    RETURNING id, doctor_id, room_id, patient_id, date" +
+           ") " + SCOPE_COLUMNS + "FROM updated", nativeQuery = true)
+    List<AppointmentScopeView> updateAppointmentStatus(@Param("appointmentId") Long appointmentId, @Param("status") String status);
 }
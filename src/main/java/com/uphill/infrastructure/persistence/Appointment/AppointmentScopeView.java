@@ -0,0 +1,14 @@
+package com.uphill.infrastructure.persistence.Appointment;
+
+import java.time.LocalDate;
+
+/**
+ * The columns of a changed appointment that decide which cached listings it can appear in.
+ */
+public interface AppointmentScopeView {
+    Long getId();
+    Long getDoctorId();
+    Long getRoomId();
+    Long getPatientId();
+    LocalDate getDate();
+}
@@ -0,0 +1,63 @@
+package com.uphill.infrastructure.persistence.Appointment;
+
+import com.uphill.core.domain.AppointmentCursor;
+import jakarta.persistence.criteria.Predicate;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Criteria for the appointment listing. Only the filters that are actually set become
+ * predicates, so every combination gets its own statement and plan instead of one catch-all
+ * query full of {@code :x IS NULL OR ...} that Postgres has to plan generically.
+ */
+final class AppointmentSpecifications {
+
+    /** Listing order; idx_appointments_date_start_time_id and the per-filter indexes follow it. */
+    static final Sort LISTING_ORDER = Sort.by(Sort.Order.desc("date"), Sort.Order.asc("startTime"), Sort.Order.asc("id"));
+
+    private AppointmentSpecifications() {
+    }
+
+    static Specification<AppointmentEntity> matching(final AppointmentFilter filter) {
+        return (root, query, cb) -> {
+            final List<Predicate> predicates = new ArrayList<>();
+            if (filter.getPatientId() != null) {
+                predicates.add(cb.equal(root.get("patient").get("id"), filter.getPatientId()));
+            }
+            if (filter.getDoctorId() != null) {
+                predicates.add(cb.equal(root.get("doctor").get("id"), filter.getDoctorId()));
+            }
+            if (filter.getRoomId() != null) {
+                predicates.add(cb.equal(root.get("room").get("id"), filter.getRoomId()));
+            }
+            if (filter.getStatus() != null) {
+                predicates.add(cb.equal(root.get("status"), filter.getStatus()));
+            }
+            if (filter.getStartDate() != null) {
+                predicates.add(cb.greaterThanOrEqualTo(root.get("date"), filter.getStartDate()));
+            }
+            if (filter.getEndDate() != null) {
+                predicates.add(cb.lessThanOrEqualTo(root.get("date"), filter.getEndDate()));
+            }
+            return cb.and(predicates.toArray(Predicate[]::new));
+        };
+    }
+
+    /**
+     * Rows after {@code cursor} in listing order. The plain {@code date <= cursor date} bound lets
+     * the index scan start at the cursor; the rest only skips the earlier rows of that one day.
+     */
+    static Specification<AppointmentEntity> after(final AppointmentCursor cursor) {
+        return (root, query, cb) -> cb.and(
+                cb.lessThanOrEqualTo(root.get("date"), cursor.getDate()),
+                cb.or(
+                        cb.lessThan(root.get("date"), cursor.getDate()),
+                        cb.greaterThan(root.get("startTime"), cursor.getStartTime()),
+                        cb.and(
+                                cb.equal(root.get("startTime"), cursor.getStartTime()),
+                                cb.greaterThan(root.get("id"), cursor.getId()))));
+    }
+}
@@ -0,0 +1,15 @@
+package com.uphill.infrastructure.persistence.Appointment;
+
+import com.uphill.core.domain.AppointmentSummary;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.List;
+
+public interface AppointmentSummaryRepository {
+    /**
+     * Listing rows matching {@code spec}, in {@code sort} order, selected as summaries in one
+     * statement.
+     */
+    List<AppointmentSummary> findSummaries(Specification<AppointmentEntity> spec, Sort sort, long offset, int limit);
+}
@@ -0,0 +1,62 @@
+package com.uphill.infrastructure.persistence.Appointment;
+
+import com.uphill.core.domain.AppointmentSummary;
+import com.uphill.infrastructure.persistence.Doctor.DoctorEntity;
+import com.uphill.infrastructure.persistence.Patient.PatientEntity;
+import com.uphill.infrastructure.persistence.Room.RoomEntity;
+import com.uphill.infrastructure.persistence.TimeSlot.TimeSlotEntity;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+
+import java.util.List;
+
+/**
+ * Selects the listing columns through inner joins, so a page is one statement whatever its size:
+ * no entity is loaded, no lazy association is touched afterwards, and wide columns such as the
+ * patient's medical history never leave the database.
+ */
+@RequiredArgsConstructor
+class AppointmentSummaryRepositoryImpl implements AppointmentSummaryRepository {
+
+    private final EntityManager entityManager;
+
+    @Override
+    public List<AppointmentSummary> findSummaries(final Specification<AppointmentEntity> spec, final Sort sort,
+                                                  final long offset, final int limit) {
+        final CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        final CriteriaQuery<AppointmentSummary> query = cb.createQuery(AppointmentSummary.class);
+        final Root<AppointmentEntity> root = query.from(AppointmentEntity.class);
+        final Join<AppointmentEntity, DoctorEntity> doctor = root.join("doctor");
+        final Join<AppointmentEntity, PatientEntity> patient = root.join("patient");
+        final Join<AppointmentEntity, RoomEntity> room = root.join("room");
+        final Join<AppointmentEntity, TimeSlotEntity> timeSlot = root.join("timeSlot");
+
+        query.select(cb.construct(AppointmentSummary.class,
+                root.get("id"),
+                doctor.get("name"),
+                patient.get("name"),
+                room.get("name"),
+                root.get("date"),
+                timeSlot.get("startTime"),
+                timeSlot.get("endTime"),
+                root.get("status")));
+        final Predicate predicate = spec.toPredicate(root, query, cb);
+        if (predicate != null) {
+            query.where(predicate);
+        }
+        query.orderBy(QueryUtils.toOrders(sort, root, cb));
+
+        return entityManager.createQuery(query)
+                .setFirstResult(Math.toIntExact(offset))
+                .setMaxResults(limit)
+                .getResultList();
+    }
+}
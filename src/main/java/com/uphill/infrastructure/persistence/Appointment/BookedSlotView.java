@@ -0,0 +1,7 @@
+package com.uphill.infrastructure.persistence.Appointment;
+
+public interface BookedSlotView {
+    Long getDoctorId();
+    Long getRoomId();
+    Long getTimeSlotId();
+}
@@ -0,0 +1,66 @@
+package com.uphill.infrastructure.persistence.AppointmentSaga;
+
+import com.uphill.core.domain.AppointmentEventPayload;
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "appointment_sagas")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@ToString(onlyExplicitlyIncluded = true)
+public class AppointmentSagaEntity {
+
+    @Id
+    @Column(name = "appointment_id")
+    @ToString.Include
+    private Long appointmentId;
+
+    @Column(name = "payload", nullable = false, updatable = false, columnDefinition = "jsonb")
+    @JdbcTypeCode(SqlTypes.JSON)
+    private AppointmentEventPayload payload;
+
+    @Column(name = "status", nullable = false)
+    @ToString.Include
+    private String status;
+
+    @Column(name = "required_steps", nullable = false)
+    @ToString.Include
+    private Integer requiredSteps;
+
+    @Column(name = "completed_steps", nullable = false)
+    @ToString.Include
+    private Integer completedSteps;
+
+    @Column(name = "step_retries", nullable = false, columnDefinition = "integer[]")
+    @JdbcTypeCode(SqlTypes.ARRAY)
+    private int[] stepRetries;
+
+    @Column(name = "next_retry_at", nullable = false)
+    private LocalDateTime nextRetryAt;
+
+    @Column(name = "claimed_by")
+    private String claimedBy;
+
+    @Column(name = "lease_until")
+    private LocalDateTime leaseUntil;
+
+    @Column(name = "created_at", nullable = false)
+    @ToString.Include
+    private LocalDateTime createdAt;
+}
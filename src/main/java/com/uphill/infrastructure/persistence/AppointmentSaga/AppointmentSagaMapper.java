@@ -0,0 +1,10 @@
+package com.uphill.infrastructure.persistence.AppointmentSaga;
+
+import com.uphill.core.domain.AppointmentSaga;
+import org.mapstruct.Mapper;
+
+@Mapper(componentModel = "spring")
+public interface AppointmentSagaMapper {
+
+    AppointmentSaga toDomain(AppointmentSagaEntity entity);
+}
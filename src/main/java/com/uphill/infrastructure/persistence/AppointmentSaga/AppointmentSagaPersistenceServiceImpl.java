@@ -0,0 +1,88 @@
+package com.uphill.infrastructure.persistence.AppointmentSaga;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.uphill.core.application.service.appointment.AppointmentSagaPersistenceService;
+import com.uphill.core.domain.AppointmentSaga;
+import com.uphill.core.domain.SagaStep;
+import com.uphill.infrastructure.config.OutboxPartitionProperties;
+import com.uphill.infrastructure.service.outbox.OutboxNode;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+@Service
+@RequiredArgsConstructor
+public class AppointmentSagaPersistenceServiceImpl implements AppointmentSagaPersistenceService {
+
+    private final AppointmentSagaRepository repository;
+    private final AppointmentSagaMapper mapper;
+    private final ObjectMapper objectMapper;
+    private final OutboxNode outboxNode;
+    private final OutboxPartitionProperties partitionProperties;
+
+    @Override
+    @Transactional
+    public void create(final AppointmentSaga saga) {
+        final LocalDateTime now = saga.getCreatedAt() != null ? saga.getCreatedAt() : LocalDateTime.now();
+        final String payload;
+        try {
+            payload = objectMapper.writeValueAsString(saga.getPayload());
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize saga payload of appointment " + saga.getAppointmentId(), e);
+        }
+        repository.upsertRequiredSteps(saga.getAppointmentId(), payload, saga.getRequiredSteps(),
+                SagaStep.values().length, now);
+    }
+
+    @Override
+    @Transactional
+    public List<AppointmentSaga> claimDueSagas(final LocalDateTime retriesDueBy, final int limit, final Duration leaseDuration) {
+        return repository.claimDueSagas(retriesDueBy, limit, partitionProperties.isEnabled(), partitionProperties.getCount(),
+                outboxNode.getId(), seconds(leaseDuration)).stream()
+            .map(mapper::toDomain)
+            .collect(Collectors.toList());
+    }
+
+    @Override
+    @Transactional
+    public List<AppointmentSaga> claimPendingSagas(final Collection<Long> appointmentIds, final Duration leaseDuration) {
+        return repository.claimPendingByIds(appointmentIds, LocalDateTime.now(), partitionProperties.isEnabled(), partitionProperties.getCount(),
+                outboxNode.getId(), seconds(leaseDuration)).stream()
+            .map(mapper::toDomain)
+            .collect(Collectors.toList());
+    }
+
+    @Override
+    @Transactional
+    public boolean completeClaim(final AppointmentSaga saga) {
+        return repository.completeClaim(saga.getAppointmentId(), outboxNode.getId(), saga.getStatus(),
+                saga.getCompletedSteps(), saga.getStepRetries(), saga.getNextRetryAt()) > 0;
+    }
+
+    @Override
+    @Transactional
+    public int requeueExpiredLeases() {
+        return repository.requeueExpiredLeases();
+    }
+
+    @Override
+    public Map<Long, LocalDateTime> findScheduledRetries(final LocalDateTime afterAt, final Long afterId,
+                                                         final LocalDateTime until, final int limit) {
+        return repository.findScheduledRetries(afterAt, afterId, until, PageRequest.of(0, limit)).stream()
+            .collect(Collectors.toMap(row -> (Long) row[0], row -> (LocalDateTime) row[1], (a, b) -> a, LinkedHashMap::new));
+    }
+
+    private static double seconds(final Duration duration) {
+        return duration.toMillis() / 1000.0;
+    }
+}
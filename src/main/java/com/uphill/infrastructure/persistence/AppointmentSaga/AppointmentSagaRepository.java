@@ -0,0 +1,90 @@
+package com.uphill.infrastructure.persistence.AppointmentSaga;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface AppointmentSagaRepository extends JpaRepository<AppointmentSagaEntity, Long> {
+    /** Partitions :claimedBy holds an unexpired lease on; only consulted when :partitioned. */
+    String OWNED_PARTITIONS = "SELECT p.partition_no FROM outbox_partitions p " +
+            "WHERE p.owner = :claimedBy AND p.lease_until > LOCALTIMESTAMP";
+    /** Saga leases run on the database clock, like the partition leases they are checked against. */
+    String LEASE_UNTIL = "LOCALTIMESTAMP + make_interval(secs => :leaseSeconds)";
+
+    @Modifying
+    @Query(value = "INSERT INTO appointment_sagas (appointment_id, payload, status, required_steps, completed_steps, " +
+           "    step_retries, next_retry_at, created_at) " +
+           "VALUES (:appointmentId, CAST(:payload AS jsonb), 'PENDING', :requiredSteps, 0, " +
+           "    array_fill(0, ARRAY[:stepCount]), :now, :now) " +
+           "ON CONFLICT (appointment_id) DO UPDATE SET " +
+           "    required_steps = appointment_sagas.required_steps | EXCLUDED.required_steps, " +
+           "    status = CASE WHEN appointment_sagas.required_steps | EXCLUDED.required_steps <> appointment_sagas.required_steps " +
+           "        AND appointment_sagas.status = 'COMPLETED' THEN 'PENDING' ELSE appointment_sagas.status END",
+           nativeQuery = true)
+    int upsertRequiredSteps(@Param("appointmentId") Long appointmentId,
+                            @Param("payload") String payload,
+                            @Param("requiredSteps") int requiredSteps,
+                            @Param("stepCount") int stepCount,
+                            @Param("now") LocalDateTime now);
+
+    @Query(value = "WITH claimed AS (" +
+           "    UPDATE appointment_sagas SET status = 'IN_FLIGHT', claimed_by = :claimedBy, lease_until = " + LEASE_UNTIL + " " +
+           "    WHERE appointment_id IN (SELECT s.appointment_id FROM appointment_sagas s " +
+           "        WHERE s.status = 'PENDING' AND (s.next_retry_at <= s.created_at OR s.next_retry_at <= :retriesDueBy) " +
+           "        AND (:partitioned = false OR mod(s.appointment_id, :partitionCount) IN (" + OWNED_PARTITIONS + ")) " +
+           "        ORDER BY s.next_retry_at ASC LIMIT :limit FOR UPDATE SKIP LOCKED) " +
+           "    RETURNING *" +
+           ") SELECT * FROM claimed ORDER BY created_at ASC, appointment_id ASC", nativeQuery = true)
+    List<AppointmentSagaEntity> claimDueSagas(@Param("retriesDueBy") LocalDateTime retriesDueBy,
+                                              @Param("limit") int limit,
+                                              @Param("partitioned") boolean partitioned,
+                                              @Param("partitionCount") int partitionCount,
+                                              @Param("claimedBy") String claimedBy,
+                                              @Param("leaseSeconds") double leaseSeconds);
+
+    @Query(value = "WITH claimed AS (" +
+           "    UPDATE appointment_sagas SET status = 'IN_FLIGHT', claimed_by = :claimedBy, lease_until = " + LEASE_UNTIL + " " +
+           "    WHERE appointment_id IN (SELECT s.appointment_id FROM appointment_sagas s " +
+           "        WHERE s.appointment_id IN (:ids) AND s.status = 'PENDING' AND s.next_retry_at <= :now " +
+           "        AND (:partitioned = false OR mod(s.appointment_id, :partitionCount) IN (" + OWNED_PARTITIONS + ")) " +
+           "        FOR UPDATE SKIP LOCKED) " +
+           "    RETURNING *" +
+           ") SELECT * FROM claimed ORDER BY created_at ASC, appointment_id ASC", nativeQuery = true)
+    List<AppointmentSagaEntity> claimPendingByIds(@Param("ids") Collection<Long> ids,
+                                                  @Param("now") LocalDateTime now,
+                                                  @Param("partitioned") boolean partitioned,
+                                                  @Param("partitionCount") int partitionCount,
+                                                  @Param("claimedBy") String claimedBy,
+                                                  @Param("leaseSeconds") double leaseSeconds);
+
+    @Modifying
+    @Query("UPDATE AppointmentSagaEntity s SET s.status = :status, s.completedSteps = :completedSteps, " +
+           "s.stepRetries = :stepRetries, s.nextRetryAt = :nextRetryAt, s.claimedBy = NULL, s.leaseUntil = NULL " +
+           "WHERE s.appointmentId = :appointmentId AND s.status = 'IN_FLIGHT' AND s.claimedBy = :claimedBy")
+    int completeClaim(@Param("appointmentId") Long appointmentId,
+                      @Param("claimedBy") String claimedBy,
+                      @Param("status") String status,
+                      @Param("completedSteps") Integer completedSteps,
+                      @Param("stepRetries") int[] stepRetries,
+                      @Param("nextRetryAt") LocalDateTime nextRetryAt);
+
+    @Modifying
+    @Query(value = "UPDATE appointment_sagas SET status = 'PENDING', claimed_by = NULL, lease_until = NULL " +
+           "WHERE status = 'IN_FLIGHT' AND lease_until < LOCALTIMESTAMP", nativeQuery = true)
+    int requeueExpiredLeases();
+
+    @Query("SELECT s.appointmentId, s.nextRetryAt FROM AppointmentSagaEntity s WHERE s.status = 'PENDING' " +
+           "AND (s.nextRetryAt > :afterAt OR (s.nextRetryAt = :afterAt AND s.appointmentId > :afterId)) AND s.nextRetryAt <= :until " +
+           "ORDER BY s.nextRetryAt ASC, s.appointmentId ASC")
+    List<Object[]> findScheduledRetries(@Param("afterAt") LocalDateTime afterAt,
+                                        @Param("afterId") Long afterId,
+                                        @Param("until") LocalDateTime until,
+                                        Pageable page);
+}
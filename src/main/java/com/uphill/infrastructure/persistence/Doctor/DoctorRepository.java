@@ -11,6 +11,9 @@ import java.util.List;
 @Repository
 public interface DoctorRepository extends JpaRepository<DoctorEntity, Long> {
 
+    @Query("SELECT d FROM DoctorEntity d JOIN FETCH d.specialty ORDER BY d.id ASC")
+    List<DoctorEntity> findAllWithSpecialty();
+
     @Query("SELECT d FROM DoctorEntity d WHERE d.specialty.id = :specialtyId AND NOT EXISTS (" +
             "SELECT a.id FROM AppointmentEntity a " +
             "WHERE a.doctor.id = d.id AND a.date = :date AND a.timeSlot.id = :timeSlotId) " +
@@ -6,10 +6,9 @@ import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.Table;
-import jakarta.persistence.UniqueConstraint;
 import org.hibernate.annotations.JdbcTypeCode;
 import org.hibernate.type.SqlTypes;
-import com.fasterxml.jackson.databind.JsonNode;
+import com.uphill.core.domain.AppointmentEventPayload;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Getter;
@@ -19,10 +18,7 @@ import lombok.ToString;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "outbox_events",
-       uniqueConstraints = {
-           @UniqueConstraint(columnNames = {"aggregate_id", "event_type", "status"})
-       })
+@Table(name = "outbox_events")
 @Getter
 @Setter
 @NoArgsConstructor
@@ -48,9 +44,10 @@ public class OutboxEventEntity {
     @ToString.Include
     private String eventType;
     
-    @Column(name = "payload", nullable = false, columnDefinition = "jsonb")
+    // Mapped straight to the typed payload; never part of an UPDATE, status changes leave it alone.
+    @Column(name = "payload", nullable = false, updatable = false, columnDefinition = "jsonb")
     @JdbcTypeCode(SqlTypes.JSON)
-    private JsonNode payload;
+    private AppointmentEventPayload payload;
     
     @Column(name = "status", nullable = false)
     @ToString.Include
@@ -63,6 +60,12 @@ public class OutboxEventEntity {
     @Column(name = "next_retry_at")
     private LocalDateTime nextRetryAt;
 
+    @Column(name = "claimed_by")
+    private String claimedBy;
+
+    @Column(name = "lease_until")
+    private LocalDateTime leaseUntil;
+
     @Column(name = "created_at", nullable = false)
     @ToString.Include
     private LocalDateTime createdAt;
@@ -1,15 +1,20 @@
 package com.uphill.infrastructure.persistence.OutboxEvent;
 
 import com.uphill.core.application.service.appointment.OutboxEventPersistenceService;
-import com.uphill.core.application.service.activity.ActivityLogPersistenceService;
 import com.uphill.core.domain.OutboxEvent;
-import com.uphill.core.domain.ActivityLog;
+import com.uphill.infrastructure.config.OutboxPartitionProperties;
+import com.uphill.infrastructure.service.outbox.OutboxNode;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 @Service
@@ -18,31 +23,72 @@ public class OutboxEventPersistenceServiceImpl implements OutboxEventPersistence
 
     private final OutboxEventRepository repository;
     private final OutboxEventMapper mapper;
-    private final ActivityLogPersistenceService activityLogPersistenceService;
+    private final OutboxNode outboxNode;
+    private final OutboxPartitionProperties partitionProperties;
 
     @Override
-    public List<OutboxEvent> findPendingDueEvents(final LocalDateTime now) {
-        return repository.findPendingDueEvents(now).stream()
+    @Transactional
+    public List<OutboxEvent> claimDueEvents(final LocalDateTime retriesDueBy, final int limit, final Duration leaseDuration) {
+        return repository.claimDueEvents(retriesDueBy, limit, partitionProperties.isEnabled(), partitionProperties.getCount(),
+                outboxNode.getId(), seconds(leaseDuration)).stream()
+            .map(mapper::toDomain)
+            .collect(Collectors.toList());
+    }
+
+    @Override
+    @Transactional
+    public List<OutboxEvent> claimPendingEvents(final Collection<Long> eventIds, final Duration leaseDuration) {
+        return repository.claimPendingByIds(eventIds, LocalDateTime.now(), partitionProperties.isEnabled(), partitionProperties.getCount(),
+                outboxNode.getId(), seconds(leaseDuration)).stream()
+            .map(mapper::toDomain)
+            .collect(Collectors.toList());
+    }
+
+    @Override
+    @Transactional
+    public List<OutboxEvent> claimPendingEventsOf(final Collection<Long> aggregateIds, final Duration leaseDuration) {
+        return repository.claimPendingByAggregates(aggregateIds, LocalDateTime.now(), partitionProperties.isEnabled(),
+                partitionProperties.getCount(), outboxNode.getId(), seconds(leaseDuration)).stream()
+            .map(mapper::toDomain)
+            .collect(Collectors.toList());
+    }
+
+    @Override
+    @Transactional
+    public List<Long> markProcessed(final Collection<Long> eventIds) {
+        return eventIds.isEmpty() ? List.of() : repository.markProcessed(toArray(eventIds), outboxNode.getId());
+    }
+
+    @Override
+    @Transactional
+    public List<Long> scheduleRetry(final Collection<Long> eventIds, final LocalDateTime nextRetryAt) {
+        return eventIds.isEmpty() ? List.of() : repository.scheduleRetry(toArray(eventIds), outboxNode.getId(), nextRetryAt);
+    }
+
+    @Override
+    @Transactional
+    public List<Long> markFailed(final Collection<Long> eventIds) {
+        return eventIds.isEmpty() ? List.of() : repository.markFailed(toArray(eventIds), outboxNode.getId());
+    }
+
+    @Override
+    @Transactional
+    public List<OutboxEvent> failPendingEvents(final Collection<Long> aggregateIds) {
+        return aggregateIds.isEmpty() ? List.of() : repository.failPending(toArray(aggregateIds)).stream()
             .map(mapper::toDomain)
             .collect(Collectors.toList());
     }
 
     @Override
     @Transactional
-    public OutboxEvent save(final OutboxEvent event) {
-        final OutboxEventEntity entity = mapper.toEntity(event);
-        final OutboxEventEntity saved = repository.save(entity);
-        
-        final ActivityLog activityLog = ActivityLog.builder()
-                .userId(0L)
-                .action("OUTBOX_EVENT_SAVED")
-                .description(String.format("Outbox event %d of type %s saved with status %s for aggregate %d", 
-                    saved.getId(), event.getEventType(), event.getStatus(), event.getAggregateId()))
-                .createdAt(LocalDateTime.now())
-                .build();
-        activityLogPersistenceService.save(activityLog);
-        
-        return mapper.toDomain(saved);
+    public int deferClaimedEvents(final Collection<Long> eventIds, final LocalDateTime nextRetryAt) {
+        return repository.deferClaimed(eventIds, outboxNode.getId(), nextRetryAt);
+    }
+
+    @Override
+    @Transactional
+    public int requeueExpiredLeases() {
+        return repository.requeueExpiredLeases();
     }
 
     @Override
@@ -51,6 +97,19 @@ public class OutboxEventPersistenceServiceImpl implements OutboxEventPersistence
             .map(mapper::toDomain)
             .collect(Collectors.toList());
     }
-}
 
+    @Override
+    public Map<Long, LocalDateTime> findScheduledRetries(final LocalDateTime afterAt, final Long afterId,
+                                                         final LocalDateTime until, final int limit) {
+        return repository.findScheduledRetries(afterAt, afterId, until, PageRequest.of(0, limit)).stream()
+            .collect(Collectors.toMap(row -> (Long) row[0], row -> (LocalDateTime) row[1], (a, b) -> a, LinkedHashMap::new));
+    }
+
+    private static double seconds(final Duration duration) {
+        return duration.toMillis() / 1000.0;
+    }
 
+    private static Long[] toArray(final Collection<Long> eventIds) {
+        return eventIds.toArray(Long[]::new);
+    }
+}
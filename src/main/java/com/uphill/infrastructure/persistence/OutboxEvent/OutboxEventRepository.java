@@ -1,18 +1,149 @@
 package com.uphill.infrastructure.persistence.OutboxEvent;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 @Repository
 public interface OutboxEventRepository extends JpaRepository<OutboxEventEntity, Long> {
-    @Query(value = "SELECT * FROM outbox_events e WHERE e.status = 'PENDING' AND (e.next_retry_at IS NULL OR e.next_retry_at <= :now) ORDER BY e.created_at ASC FOR UPDATE SKIP LOCKED", nativeQuery = true)
-    List<OutboxEventEntity> findPendingDueEvents(@Param("now") LocalDateTime now);
-    
+    /** Partitions :claimedBy holds an unexpired lease on; only consulted when :partitioned. */
+    String OWNED_PARTITIONS = "SELECT p.partition_no FROM outbox_partitions p " +
+            "WHERE p.owner = :claimedBy AND p.lease_until > LOCALTIMESTAMP";
+    /**
+     * An event of the same aggregate as e that is in flight, on this node or any other. It fences
+     * e off until it is finished, or requeued once its lease ends, so neither a partition handover
+     * nor a second claim on this node can let a later event of the aggregate overtake it. Events
+     * claimed in one batch see none of each other and are ordered by the dispatcher instead.
+     */
+    String IN_FLIGHT_FOR_AGGREGATE = "SELECT 1 FROM outbox_events f " +
+            "WHERE f.aggregate_type = e.aggregate_type AND f.aggregate_id = e.aggregate_id " +
+            "AND f.status = 'IN_FLIGHT'";
+    /**
+     * A step e depends on that is not PROCESSED yet: an appointment's confirmation email waits for
+     * its calendar update and room reservation, the dependency graph of SagaStep. A step that fails
+     * for good fails the rest of its aggregate with it, so a held email is never sent.
+     */
+    String PREREQUISITE_UNFINISHED = "SELECT 1 FROM outbox_events d " +
+            "WHERE e.event_type = 'SEND_CONFIRMATION_EMAIL' " +
+            "AND d.aggregate_type = e.aggregate_type AND d.aggregate_id = e.aggregate_id " +
+            "AND d.event_type IN ('DOCTOR_CALENDAR_UPDATE', 'ROOM_RESERVATION') AND d.status <> 'PROCESSED'";
+    /** Event leases run on the database clock, like the partition leases they are checked against. */
+    String LEASE_UNTIL = "LOCALTIMESTAMP + make_interval(secs => :leaseSeconds)";
+
+    @Query(value = "WITH claimed AS (" +
+           "    UPDATE outbox_events SET status = 'IN_FLIGHT', claimed_by = :claimedBy, lease_until = " + LEASE_UNTIL + " " +
+           "    WHERE id IN (SELECT e.id FROM outbox_events e " +
+           "        WHERE e.status = 'PENDING' AND (e.next_retry_at IS NULL OR e.next_retry_at <= :retriesDueBy) " +
+           "        AND (:partitioned = false OR mod(e.aggregate_id, :partitionCount) IN (" + OWNED_PARTITIONS + ")) " +
+           "        AND NOT EXISTS (" + IN_FLIGHT_FOR_AGGREGATE + ") " +
+           "        AND NOT EXISTS (" + PREREQUISITE_UNFINISHED + ") " +
+           "        ORDER BY e.created_at ASC LIMIT :limit FOR UPDATE SKIP LOCKED) " +
+           "    RETURNING *" +
+           ") SELECT * FROM claimed ORDER BY created_at ASC, id ASC", nativeQuery = true)
+    List<OutboxEventEntity> claimDueEvents(@Param("retriesDueBy") LocalDateTime retriesDueBy,
+                                           @Param("limit") int limit,
+                                           @Param("partitioned") boolean partitioned,
+                                           @Param("partitionCount") int partitionCount,
+                                           @Param("claimedBy") String claimedBy,
+                                           @Param("leaseSeconds") double leaseSeconds);
+
+    @Query(value = "WITH claimed AS (" +
+           "    UPDATE outbox_events SET status = 'IN_FLIGHT', claimed_by = :claimedBy, lease_until = " + LEASE_UNTIL + " " +
+           "    WHERE id IN (SELECT e.id FROM outbox_events e " +
+           "        WHERE e.id IN (:ids) AND e.status = 'PENDING' " +
+           "        AND (e.next_retry_at IS NULL OR e.next_retry_at <= :now) " +
+           "        AND (:partitioned = false OR mod(e.aggregate_id, :partitionCount) IN (" + OWNED_PARTITIONS + ")) " +
+           "        AND NOT EXISTS (" + IN_FLIGHT_FOR_AGGREGATE + ") " +
+           "        AND NOT EXISTS (" + PREREQUISITE_UNFINISHED + ") " +
+           "        FOR UPDATE SKIP LOCKED) " +
+           "    RETURNING *" +
+           ") SELECT * FROM claimed ORDER BY created_at ASC, id ASC", nativeQuery = true)
+    List<OutboxEventEntity> claimPendingByIds(@Param("ids") Collection<Long> ids,
+                                              @Param("now") LocalDateTime now,
+                                              @Param("partitioned") boolean partitioned,
+                                              @Param("partitionCount") int partitionCount,
+                                              @Param("claimedBy") String claimedBy,
+                                              @Param("leaseSeconds") double leaseSeconds);
+
+    @Query(value = "WITH claimed AS (" +
+           "    UPDATE outbox_events SET status = 'IN_FLIGHT', claimed_by = :claimedBy, lease_until = " + LEASE_UNTIL + " " +
+           "    WHERE id IN (SELECT e.id FROM outbox_events e " +
+           "        WHERE e.aggregate_id IN (:aggregateIds) AND e.status = 'PENDING' " +
+           "        AND (e.next_retry_at IS NULL OR e.next_retry_at <= :now) " +
+           "        AND (:partitioned = false OR mod(e.aggregate_id, :partitionCount) IN (" + OWNED_PARTITIONS + ")) " +
+           "        AND NOT EXISTS (" + IN_FLIGHT_FOR_AGGREGATE + ") " +
+           "        AND NOT EXISTS (" + PREREQUISITE_UNFINISHED + ") " +
+           "        FOR UPDATE SKIP LOCKED) " +
+           "    RETURNING *" +
+           ") SELECT * FROM claimed ORDER BY created_at ASC, id ASC", nativeQuery = true)
+    List<OutboxEventEntity> claimPendingByAggregates(@Param("aggregateIds") Collection<Long> aggregateIds,
+                                                     @Param("now") LocalDateTime now,
+                                                     @Param("partitioned") boolean partitioned,
+                                                     @Param("partitionCount") int partitionCount,
+                                                     @Param("claimedBy") String claimedBy,
+                                                     @Param("leaseSeconds") double leaseSeconds);
+
+    @Query(value = "WITH done AS (" +
+           "    UPDATE outbox_events SET status = 'PROCESSED', claimed_by = NULL, lease_until = NULL " +
+           "    WHERE id = ANY(:ids) AND status = 'IN_FLIGHT' AND claimed_by = :claimedBy " +
+           "    RETURNING id" +
+           ") SELECT id FROM done", nativeQuery = true)
+    List<Long> markProcessed(@Param("ids") Long[] ids,
+                             @Param("claimedBy") String claimedBy);
+
+    @Query(value = "WITH retried AS (" +
+           "    UPDATE outbox_events SET status = 'PENDING', retry_count = retry_count + 1, next_retry_at = :nextRetryAt, " +
+           "        claimed_by = NULL, lease_until = NULL " +
+           "    WHERE id = ANY(:ids) AND status = 'IN_FLIGHT' AND claimed_by = :claimedBy " +
+           "    RETURNING id" +
+           ") SELECT id FROM retried", nativeQuery = true)
+    List<Long> scheduleRetry(@Param("ids") Long[] ids,
+                             @Param("claimedBy") String claimedBy,
+                             @Param("nextRetryAt") LocalDateTime nextRetryAt);
+
+    @Query(value = "WITH failed AS (" +
+           "    UPDATE outbox_events SET status = 'FAILED', retry_count = retry_count + 1, claimed_by = NULL, lease_until = NULL " +
+           "    WHERE id = ANY(:ids) AND status = 'IN_FLIGHT' AND claimed_by = :claimedBy " +
+           "    RETURNING id" +
+           ") SELECT id FROM failed", nativeQuery = true)
+    List<Long> markFailed(@Param("ids") Long[] ids,
+                          @Param("claimedBy") String claimedBy);
+
+    @Query(value = "WITH failed AS (" +
+           "    UPDATE outbox_events SET status = 'FAILED' " +
+           "    WHERE aggregate_id = ANY(:aggregateIds) AND status = 'PENDING' " +
+           "    RETURNING *" +
+           ") SELECT * FROM failed ORDER BY created_at ASC, id ASC", nativeQuery = true)
+    List<OutboxEventEntity> failPending(@Param("aggregateIds") Long[] aggregateIds);
+
+    @Modifying
+    @Query("UPDATE OutboxEventEntity e SET e.status = 'PENDING', e.nextRetryAt = :nextRetryAt, " +
+           "e.claimedBy = NULL, e.leaseUntil = NULL " +
+           "WHERE e.id IN :ids AND e.status = 'IN_FLIGHT' AND e.claimedBy = :claimedBy")
+    int deferClaimed(@Param("ids") Collection<Long> ids,
+                     @Param("claimedBy") String claimedBy,
+                     @Param("nextRetryAt") LocalDateTime nextRetryAt);
+
+    @Modifying
+    @Query(value = "UPDATE outbox_events SET status = 'PENDING', claimed_by = NULL, lease_until = NULL " +
+           "WHERE status = 'IN_FLIGHT' AND lease_until < LOCALTIMESTAMP", nativeQuery = true)
+    int requeueExpiredLeases();
+
     List<OutboxEventEntity> findByAggregateId(Long aggregateId);
+
+    @Query("SELECT e.id, e.nextRetryAt FROM OutboxEventEntity e WHERE e.status = 'PENDING' " +
+           "AND (e.nextRetryAt > :afterAt OR (e.nextRetryAt = :afterAt AND e.id > :afterId)) AND e.nextRetryAt <= :until " +
+           "ORDER BY e.nextRetryAt ASC, e.id ASC")
+    List<Object[]> findScheduledRetries(@Param("afterAt") LocalDateTime afterAt,
+                                        @Param("afterId") Long afterId,
+                                        @Param("until") LocalDateTime until,
+                                        Pageable page);
 }
 
 
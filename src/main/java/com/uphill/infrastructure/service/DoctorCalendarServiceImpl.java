@@ -2,13 +2,13 @@ package com.uphill.infrastructure.service;
 
 import com.uphill.core.application.service.appointment.DoctorCalendarService;
 import com.uphill.core.domain.AppointmentEventPayload;
+import com.uphill.core.exception.DownstreamUnavailableException;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.RestTemplate;
-import org.springframework.http.ResponseEntity;
+
+import java.util.concurrent.CompletableFuture;
 
 @Service
 @RequiredArgsConstructor
@@ -16,20 +16,18 @@ public class DoctorCalendarServiceImpl implements DoctorCalendarService {
 
     private static final Logger log = LoggerFactory.getLogger(DoctorCalendarServiceImpl.class);
 
-    private final RestTemplate restTemplate;
-
-    @Value("${external.mock.base-url:http://localhost:3001}")
-    private String baseUrl;
+    private final ExternalServiceClient externalServiceClient;
 
     @Override
-    public boolean updateDoctorCalendar(AppointmentEventPayload event) {
-        try {
-            ResponseEntity<String> response = restTemplate.postForEntity(baseUrl + "/doctor-calendar", event, String.class);
-            return response.getStatusCode().is2xxSuccessful();
-        } catch (Exception ex) {
-            log.warn("Doctor calendar call failed: {}", ex.getMessage());
-            return false;
-        }
+    public CompletableFuture<Boolean> updateDoctorCalendar(AppointmentEventPayload event) {
+        return externalServiceClient.post("/doctor-calendar", event)
+                .exceptionally(ex -> {
+                    if (ExternalServiceClient.unwrap(ex) instanceof DownstreamUnavailableException unavailable) {
+                        throw unavailable;
+                    }
+                    log.warn("Doctor calendar call failed: {}", ex.getMessage());
+                    return false;
+                });
     }
 }
 
@@ -3,14 +3,16 @@ package com.uphill.infrastructure.service;
 import com.uphill.core.application.service.appointment.DoctorService;
 import com.uphill.core.exception.AppointmentSlotUnavailableException;
 import com.uphill.core.domain.Doctor;
-import com.uphill.infrastructure.persistence.Doctor.DoctorEntity;
 import com.uphill.infrastructure.persistence.Doctor.DoctorRepository;
 import com.uphill.infrastructure.persistence.EntityMapper;
+import com.uphill.infrastructure.service.availability.AvailabilityIndex;
+import com.uphill.infrastructure.service.selection.CandidateSelector;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDate;
 import java.util.List;
+import java.util.Set;
 
 @Service
 @RequiredArgsConstructor
@@ -18,14 +20,24 @@ public class DoctorServiceImpl implements DoctorService {
 
     private final DoctorRepository doctorRepository;
     private final EntityMapper entityMapper;
+    private final AvailabilityIndex availabilityIndex;
+    private final CandidateSelector candidateSelector;
 
     @Override
-    public Doctor findAvailableDoctor(final Long specialtyId, final LocalDate date, final Long timeSlotId) {
-        final List<DoctorEntity> availableDoctors = doctorRepository.findAvailableBySpecialtyAndDateAndTimeSlot(specialtyId, date, timeSlotId);
-        if (availableDoctors.isEmpty()) {
+    public Doctor findAvailableDoctor(final Long specialtyId, final LocalDate date, final Long timeSlotId,
+                                      final Long patientId, final Set<Long> excludedDoctorIds) {
+        final List<Doctor> availableDoctors = availabilityIndex.isEnabled()
+                ? availabilityIndex.findFreeDoctors(specialtyId, date, timeSlotId)
+                : doctorRepository.findAvailableBySpecialtyAndDateAndTimeSlot(specialtyId, date, timeSlotId).stream()
+                        .map(entityMapper::toDomain)
+                        .toList();
+        final List<Doctor> candidates = excludedDoctorIds.isEmpty()
+                ? availableDoctors
+                : availableDoctors.stream().filter(doctor -> !excludedDoctorIds.contains(doctor.getId())).toList();
+        if (candidates.isEmpty()) {
             throw new AppointmentSlotUnavailableException("No available doctor for the requested specialty, date, and time slot");
         }
-        return entityMapper.toDomain(availableDoctors.get(0));
+        return candidateSelector.selectDoctor(candidates, date, patientId);
     }
 }
 
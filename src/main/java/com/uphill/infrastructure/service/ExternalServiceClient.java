@@ -0,0 +1,151 @@
+package com.uphill.infrastructure.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.uphill.core.exception.DownstreamUnavailableException;
+import com.uphill.core.exception.ExternalServiceException;
+import com.uphill.infrastructure.config.ExternalBatchingProperties;
+import com.uphill.infrastructure.service.resilience.DownstreamRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.function.Function;
+
+/**
+ * Posts JSON to the external services without blocking the caller. The returned future
+ * completes with {@code true} on a 2xx answer and fails with {@link ExternalServiceException}
+ * on any other status, or with the transport error (timeouts included). Responses are handed
+ * to the outbox executor so callers may block (e.g. on the database) in what they chain on it
+ * without stalling the client's I/O threads.
+ * <p>
+ * Each path is its own downstream with a circuit breaker and bulkhead; while either turns a call
+ * away the future fails at once with {@link DownstreamUnavailableException}. Client errors (4xx
+ * other than 429) do not count against the circuit.
+ * <p>
+ * Downstreams configured under {@code external.batching} receive items in bulk on
+ * {@code <path>/batch} as {@code {"items": [...]}} and answer {@code {"results": [{"ok": true}, ...]}}
+ * in the same order; an item that is not ok completes with {@code false}.
+ */
+@Component
+public class ExternalServiceClient {
+
+    private static final Logger log = LoggerFactory.getLogger(ExternalServiceClient.class);
+
+    private final HttpClient externalHttpClient;
+    private final ObjectMapper objectMapper;
+    private final ExecutorService responseExecutor;
+    private final DownstreamRegistry downstreamRegistry;
+    private final ExternalBatchingProperties batchingProperties;
+    private final ScheduledExecutorService batchScheduler;
+    private final Map<String, RequestBatcher> batchers = new ConcurrentHashMap<>();
+
+    @Value("${external.mock.base-url:http://localhost:3001}")
+    private String baseUrl;
+
+    @Value("${external.http.request-timeout-ms:5000}")
+    private long requestTimeoutMs;
+
+    public ExternalServiceClient(final HttpClient externalHttpClient,
+                                 final ObjectMapper objectMapper,
+                                 @Qualifier("outboxExecutor") final ExecutorService responseExecutor,
+                                 final DownstreamRegistry downstreamRegistry,
+                                 final ExternalBatchingProperties batchingProperties,
+                                 @Qualifier("externalBatchScheduler") final ScheduledExecutorService batchScheduler) {
+        this.externalHttpClient = externalHttpClient;
+        this.objectMapper = objectMapper;
+        this.responseExecutor = responseExecutor;
+        this.downstreamRegistry = downstreamRegistry;
+        this.batchingProperties = batchingProperties;
+        this.batchScheduler = batchScheduler;
+    }
+
+    public CompletableFuture<Boolean> post(final String path, final Object body) {
+        final String downstream = path.substring(1);
+        final ExternalBatchingProperties.Batch batch = batchingProperties.getDownstreams().get(downstream);
+        if (batch != null) {
+            return batchers.computeIfAbsent(downstream, name -> new RequestBatcher(
+                    batch.getMaxItems(), Duration.ofMillis(batch.getMaxDelayMs()), batchScheduler,
+                    items -> postBatch(path, items))).submit(body);
+        }
+        return send(downstream, path, body, response -> true);
+    }
+
+    /** Unwraps the exception a failed {@link #post} future reports to its dependents. */
+    public static Throwable unwrap(final Throwable ex) {
+        return ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex;
+    }
+
+    private CompletableFuture<List<Boolean>> postBatch(final String path, final List<Object> items) {
+        return send(path.substring(1), path + "/batch", Map.of("items", items), response -> {
+            final JsonNode results;
+            try {
+                results = objectMapper.readTree(response).path("results");
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+            final List<Boolean> outcomes = new ArrayList<>(results.size());
+            int failed = 0;
+            for (final JsonNode result : results) {
+                final boolean ok = result.path("ok").asBoolean(false);
+                outcomes.add(ok);
+                failed += ok ? 0 : 1;
+            }
+            if (failed > 0) {
+                log.warn("POST {}/batch: {} of {} items failed", path, failed, items.size());
+            }
+            return outcomes;
+        });
+    }
+
+    private <T> CompletableFuture<T> send(final String downstream, final String path, final Object body,
+                                          final Function<byte[], T> parser) {
+        final HttpRequest request;
+        try {
+            request = HttpRequest.newBuilder(URI.create(baseUrl + path))
+                    .timeout(Duration.ofMillis(requestTimeoutMs))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(body)))
+                    .build();
+        } catch (JsonProcessingException ex) {
+            return CompletableFuture.failedFuture(ex);
+        }
+        return downstreamRegistry.execute(downstream, () -> externalHttpClient
+                .sendAsync(request, HttpResponse.BodyHandlers.ofByteArray())
+                .handleAsync((response, ex) -> {
+                    if (ex != null) {
+                        throw ex instanceof CompletionException completion ? completion : new CompletionException(ex);
+                    }
+                    if (response.statusCode() / 100 != 2) {
+                        throw new ExternalServiceException(
+                                "POST " + path + " returned " + response.statusCode(), response.statusCode());
+                    }
+                    return parser.apply(response.body());
+                }, responseExecutor), ExternalServiceClient::countsAsFailure);
+    }
+
+    private static boolean countsAsFailure(final Throwable ex) {
+        if (unwrap(ex) instanceof ExternalServiceException rejected) {
+            return rejected.getStatusCode() >= 500 || rejected.getStatusCode() == 429;
+        }
+        return true;
+    }
+}
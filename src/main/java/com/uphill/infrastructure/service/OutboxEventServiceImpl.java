@@ -1,52 +1,78 @@
 package com.uphill.infrastructure.service;
 
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.uphill.core.application.service.appointment.AppointmentSagaPersistenceService;
 import com.uphill.core.application.service.appointment.OutboxEventService;
 import com.uphill.core.domain.Appointment;
+import com.uphill.core.domain.AppointmentEventPayload;
+import com.uphill.core.domain.AppointmentSaga;
+import com.uphill.core.domain.SagaStep;
+import com.uphill.infrastructure.config.OutboxPartitionProperties;
 import com.uphill.infrastructure.persistence.OutboxEvent.OutboxEventEntity;
 import com.uphill.infrastructure.persistence.OutboxEvent.OutboxEventRepository;
-import com.uphill.infrastructure.service.dto.AppointmentEventDto;
+import com.uphill.infrastructure.service.outbox.AfterCommitOutboxDispatch;
+import com.uphill.infrastructure.service.outbox.OutboxFormat;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 @Service
 @RequiredArgsConstructor
 public class OutboxEventServiceImpl implements OutboxEventService {
 
+    private static final Object NOTIFY_REGISTERED = new Object();
+    private static final Object PENDING_SAGAS = new Object();
+
     private final OutboxEventRepository outboxEventRepository;
-    private final ObjectMapper objectMapper;
+    private final JdbcTemplate jdbcTemplate;
+    private final AfterCommitOutboxDispatch afterCommitOutboxDispatch;
+    private final AppointmentSagaPersistenceService appointmentSagaPersistenceService;
+    private final OutboxPartitionProperties partitionProperties;
+
+    @Value("${outbox.format:EVENTS}")
+    private OutboxFormat format;
+
+    @Value("${outbox.notify.enabled:true}")
+    private boolean notifyEnabled;
+
+    @Value("${outbox.notify.channel:outbox_events}")
+    private String notifyChannel;
 
     @Override
     public void createDoctorCalendarUpdateEvent(final Appointment appointment) {
-        saveEvent(appointment, "DOCTOR_CALENDAR_UPDATE");
+        if (format == OutboxFormat.SAGA) {
+            addSagaStep(appointment, SagaStep.DOCTOR_CALENDAR);
+        } else {
+            saveEvent(appointment, "DOCTOR_CALENDAR_UPDATE");
+        }
     }
 
     @Override
     public void createRoomReservationEvent(final Appointment appointment) {
-        saveEvent(appointment, "ROOM_RESERVATION");
+        if (format == OutboxFormat.SAGA) {
+            addSagaStep(appointment, SagaStep.ROOM_RESERVATION);
+        } else {
+            saveEvent(appointment, "ROOM_RESERVATION");
+        }
     }
 
     @Override
     public void createEmailConfirmationEvent(final Appointment appointment) {
-        saveEvent(appointment, "SEND_CONFIRMATION_EMAIL");
+        if (format == OutboxFormat.SAGA) {
+            addSagaStep(appointment, SagaStep.CONFIRMATION_EMAIL);
+        } else {
+            saveEvent(appointment, "SEND_CONFIRMATION_EMAIL");
+        }
     }
 
     private void saveEvent(final Appointment appointment, final String eventType) {
-        // Create a simple DTO to avoid serialization issues with complex domain objects
-        final AppointmentEventDto eventDto = AppointmentEventDto.builder()
-                .appointmentId(appointment.getId())
-                .patientId(appointment.getPatient().getId())
-                .doctorId(appointment.getDoctor().getId())
-                .roomId(appointment.getRoom().getId())
-                .timeSlotId(appointment.getTimeSlot().getId())
-                .date(appointment.getDate())
-                .status(appointment.getStatus().name())
-                .build();
-        
-        final JsonNode payload = objectMapper.valueToTree(eventDto);
+        final AppointmentEventPayload payload = toPayload(appointment);
         final OutboxEventEntity entity = OutboxEventEntity.builder()
                 .aggregateId(appointment.getId())
                 .aggregateType("APPOINTMENT")
@@ -57,7 +83,121 @@ public class OutboxEventServiceImpl implements OutboxEventService {
                 .nextRetryAt(LocalDateTime.now())
                 .createdAt(LocalDateTime.now())
                 .build();
-        outboxEventRepository.save(entity);
+        final OutboxEventEntity saved = outboxEventRepository.save(entity);
+        if (afterCommitOutboxDispatch.isEnabled()) {
+            afterCommitOutboxDispatch.dispatchAfterCommit(saved.getId());
+        }
+        if (mustNotify()) {
+            notifyOnCommit();
+        }
+    }
+
+    /**
+     * Adds a step to the appointment's saga. All steps requested in one transaction are written
+     * as a single upsert just before it commits; outside a transaction the step is written
+     * straight away and merged into the existing row.
+     */
+    @SuppressWarnings("unchecked")
+    private void addSagaStep(final Appointment appointment, final SagaStep step) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            appointmentSagaPersistenceService.create(toSaga(appointment, step.mask()));
+            announceSaga(appointment.getId());
+            return;
+        }
+        Map<Long, AppointmentSaga> drafts = (Map<Long, AppointmentSaga>) TransactionSynchronizationManager.getResource(PENDING_SAGAS);
+        if (drafts == null) {
+            final Map<Long, AppointmentSaga> pending = new LinkedHashMap<>();
+            TransactionSynchronizationManager.bindResource(PENDING_SAGAS, pending);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void beforeCommit(final boolean readOnly) {
+                    pending.values().forEach(appointmentSagaPersistenceService::create);
+                }
+
+                @Override
+                public void afterCompletion(final int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(PENDING_SAGAS);
+                }
+            });
+            drafts = pending;
+        }
+        final AppointmentSaga draft = drafts.get(appointment.getId());
+        if (draft != null) {
+            draft.setRequiredSteps(draft.getRequiredSteps() | step.mask());
+            return;
+        }
+        drafts.put(appointment.getId(), toSaga(appointment, step.mask()));
+        announceSaga(appointment.getId());
+    }
+
+    private void announceSaga(final Long appointmentId) {
+        if (afterCommitOutboxDispatch.isEnabled()) {
+            afterCommitOutboxDispatch.dispatchSagaAfterCommit(appointmentId);
+        }
+        if (mustNotify()) {
+            notifyOnCommit();
+        }
+    }
+
+    // Work dispatched locally right after commit needs no wake-up, unless it may belong to a
+    // partition another node owns: the local claim then skips it and the owner has to be told.
+    private boolean mustNotify() {
+        return !afterCommitOutboxDispatch.isEnabled() || partitionProperties.isEnabled();
+    }
+
+    private AppointmentSaga toSaga(final Appointment appointment, final int requiredSteps) {
+        return AppointmentSaga.builder()
+                .appointmentId(appointment.getId())
+                .payload(toPayload(appointment))
+                .requiredSteps(requiredSteps)
+                .createdAt(LocalDateTime.now())
+                .build();
+    }
+
+    // Only the ids downstream services need, never the JPA-backed domain graph
+    private AppointmentEventPayload toPayload(final Appointment appointment) {
+        return AppointmentEventPayload.builder()
+                .appointmentId(appointment.getId())
+                .patientId(appointment.getPatient().getId())
+                .doctorId(appointment.getDoctor().getId())
+                .roomId(appointment.getRoom().getId())
+                .timeSlotId(appointment.getTimeSlot().getId())
+                .date(appointment.getDate())
+                .status(appointment.getStatus().name())
+                .build();
+    }
+
+    /**
+     * Sends one NOTIFY per transaction, just before it commits. Postgres delivers it to
+     * listeners only when the commit succeeds, by which time the new rows are visible.
+     */
+    private void notifyOnCommit() {
+        if (!notifyEnabled) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            sendNotify();
+            return;
+        }
+        if (TransactionSynchronizationManager.hasResource(NOTIFY_REGISTERED)) {
+            return;
+        }
+        TransactionSynchronizationManager.bindResource(NOTIFY_REGISTERED, Boolean.TRUE);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void beforeCommit(final boolean readOnly) {
+                sendNotify();
+            }
+
+            @Override
+            public void afterCompletion(final int status) {
+                TransactionSynchronizationManager.unbindResourceIfPossible(NOTIFY_REGISTERED);
+            }
+        });
+    }
+
+    private void sendNotify() {
+        jdbcTemplate.query("SELECT pg_notify(?, '')", resultSet -> null, notifyChannel);
     }
 }
 
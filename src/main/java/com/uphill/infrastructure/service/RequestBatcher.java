@@ -0,0 +1,89 @@
+package com.uphill.infrastructure.service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Collects items until {@code maxItems} are waiting or the oldest has waited {@code maxDelay},
+ * then sends them with one call. Each item's future completes with its own entry of the result
+ * list, or with the call's failure.
+ */
+final class RequestBatcher {
+
+    private final int maxItems;
+    private final Duration maxDelay;
+    private final ScheduledExecutorService scheduler;
+    private final Function<List<Object>, CompletableFuture<List<Boolean>>> sender;
+
+    private List<Object> items = new ArrayList<>();
+    private List<CompletableFuture<Boolean>> futures = new ArrayList<>();
+    private ScheduledFuture<?> flushTask;
+
+    RequestBatcher(final int maxItems, final Duration maxDelay, final ScheduledExecutorService scheduler,
+                   final Function<List<Object>, CompletableFuture<List<Boolean>>> sender) {
+        this.maxItems = maxItems;
+        this.maxDelay = maxDelay;
+        this.scheduler = scheduler;
+        this.sender = sender;
+    }
+
+    CompletableFuture<Boolean> submit(final Object item) {
+        final CompletableFuture<Boolean> future = new CompletableFuture<>();
+        final boolean full;
+        synchronized (this) {
+            items.add(item);
+            futures.add(future);
+            full = items.size() >= maxItems;
+            if (!full && flushTask == null) {
+                flushTask = scheduler.schedule(this::flush, maxDelay.toMillis(), TimeUnit.MILLISECONDS);
+            }
+        }
+        if (full) {
+            flush();
+        }
+        return future;
+    }
+
+    private void flush() {
+        final List<Object> batch;
+        final List<CompletableFuture<Boolean>> batchFutures;
+        synchronized (this) {
+            if (items.isEmpty()) {
+                return;
+            }
+            batch = items;
+            batchFutures = futures;
+            items = new ArrayList<>();
+            futures = new ArrayList<>();
+            if (flushTask != null) {
+                flushTask.cancel(false);
+                flushTask = null;
+            }
+        }
+
+        CompletableFuture<List<Boolean>> call;
+        try {
+            call = sender.apply(batch);
+        } catch (RuntimeException ex) {
+            call = CompletableFuture.failedFuture(ex);
+        }
+        call.whenComplete((results, ex) -> {
+            for (int i = 0; i < batchFutures.size(); i++) {
+                if (ex != null) {
+                    batchFutures.get(i).completeExceptionally(ex);
+                } else if (results.size() != batchFutures.size()) {
+                    batchFutures.get(i).completeExceptionally(new IllegalStateException(
+                            "Batch of " + batchFutures.size() + " answered with " + results.size() + " results"));
+                } else {
+                    batchFutures.get(i).complete(results.get(i));
+                }
+            }
+        });
+    }
+}
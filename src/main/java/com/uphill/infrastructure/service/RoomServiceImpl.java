@@ -4,13 +4,15 @@ import com.uphill.core.application.service.appointment.RoomService;
 import com.uphill.core.exception.AppointmentSlotUnavailableException;
 import com.uphill.core.domain.Room;
 import com.uphill.infrastructure.persistence.EntityMapper;
-import com.uphill.infrastructure.persistence.Room.RoomEntity;
 import com.uphill.infrastructure.persistence.Room.RoomRepository;
+import com.uphill.infrastructure.service.availability.AvailabilityIndex;
+import com.uphill.infrastructure.service.selection.CandidateSelector;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDate;
 import java.util.List;
+import java.util.Set;
 
 @Service
 @RequiredArgsConstructor
@@ -18,14 +20,23 @@ public class RoomServiceImpl implements RoomService {
 
     private final RoomRepository roomRepository;
     private final EntityMapper entityMapper;
+    private final AvailabilityIndex availabilityIndex;
+    private final CandidateSelector candidateSelector;
 
     @Override
-    public Room findAvailableRoom(final LocalDate date, final Long timeSlotId) {
-        final List<RoomEntity> availableRooms = roomRepository.findAvailableByDateAndTimeSlot(date, timeSlotId);
-        if (availableRooms.isEmpty()) {
+    public Room findAvailableRoom(final LocalDate date, final Long timeSlotId, final Long patientId, final Set<Long> excludedRoomIds) {
+        final List<Room> availableRooms = availabilityIndex.isEnabled()
+                ? availabilityIndex.findFreeRooms(date, timeSlotId)
+                : roomRepository.findAvailableByDateAndTimeSlot(date, timeSlotId).stream()
+                        .map(entityMapper::toDomain)
+                        .toList();
+        final List<Room> candidates = excludedRoomIds.isEmpty()
+                ? availableRooms
+                : availableRooms.stream().filter(room -> !excludedRoomIds.contains(room.getId())).toList();
+        if (candidates.isEmpty()) {
             throw new AppointmentSlotUnavailableException("No available room for the requested date and time slot");
         }
-        return entityMapper.toDomain(availableRooms.get(0));
+        return candidateSelector.selectRoom(candidates, date, patientId);
     }
 }
 
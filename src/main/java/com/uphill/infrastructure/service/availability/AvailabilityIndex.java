@@ -0,0 +1,320 @@
+package com.uphill.infrastructure.service.availability;
+
+import com.uphill.core.domain.Doctor;
+import com.uphill.core.domain.Room;
+import com.uphill.infrastructure.persistence.Appointment.AppointmentRepository;
+import com.uphill.infrastructure.persistence.Appointment.BookedSlotView;
+import com.uphill.infrastructure.persistence.Doctor.DoctorRepository;
+import com.uphill.infrastructure.persistence.EntityMapper;
+import com.uphill.infrastructure.persistence.Room.RoomRepository;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * In-memory view of which doctors and rooms are booked per date and time slot.
+ * Doctors and rooms are addressed by their position in an id-ordered catalog, so every
+ * slot is two bitmaps and "free doctors of a specialty" is a single {@code andNot}.
+ * Days are loaded lazily with one query and kept current by bookings committed on this node,
+ * including those that commit while the day's query runs. Bookings made on other nodes only show
+ * up once the day expires, so the unique constraints on appointments remain the real guard
+ * against double bookings; the index only keeps most requests from running into them.
+ */
+@Component
+@RequiredArgsConstructor
+public class AvailabilityIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(AvailabilityIndex.class);
+
+    private final DoctorRepository doctorRepository;
+    private final RoomRepository roomRepository;
+    private final AppointmentRepository appointmentRepository;
+    private final EntityMapper entityMapper;
+
+    private final Map<LocalDate, DayAvailability> days = new ConcurrentHashMap<>();
+    private final List<DayLoad> loads = new CopyOnWriteArrayList<>();
+    private volatile Catalog catalog;
+
+    @Value("${availability.index.enabled:true}")
+    private boolean enabled;
+
+    @Value("${availability.index.ttl-seconds:60}")
+    private long dayTtlSeconds;
+
+    @Value("${availability.index.catalog-ttl-seconds:300}")
+    private long catalogTtlSeconds;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public List<Doctor> findFreeDoctors(final Long specialtyId, final LocalDate date, final Long timeSlotId) {
+        final DayAvailability day = day(date);
+        final BitSet free = day.catalog.doctorsOfSpecialty(specialtyId);
+        day.slot(timeSlotId).removeBookedDoctors(free);
+        final List<Doctor> doctors = new ArrayList<>(free.cardinality());
+        for (int i = free.nextSetBit(0); i >= 0; i = free.nextSetBit(i + 1)) {
+            doctors.add(day.catalog.doctors[i]);
+        }
+        return doctors;
+    }
+
+    public List<Room> findFreeRooms(final LocalDate date, final Long timeSlotId) {
+        final DayAvailability day = day(date);
+        final BitSet free = new BitSet(day.catalog.rooms.length);
+        free.set(0, day.catalog.rooms.length);
+        day.slot(timeSlotId).removeBookedRooms(free);
+        final List<Room> rooms = new ArrayList<>(free.cardinality());
+        for (int i = free.nextSetBit(0); i >= 0; i = free.nextSetBit(i + 1)) {
+            rooms.add(day.catalog.rooms[i]);
+        }
+        return rooms;
+    }
+
+    /**
+     * Number of slots each doctor is booked for on the given date, as seen by this node, from a
+     * single pass over the day. Doctors without bookings are absent.
+     */
+    public Map<Long, Integer> doctorBookings(final LocalDate date) {
+        final DayAvailability day = day(date);
+        final int[] counts = new int[day.catalog.doctors.length];
+        day.slots.values().forEach(slot -> slot.countDoctors(counts));
+        final Map<Long, Integer> bookings = new HashMap<>();
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] > 0) {
+                bookings.put(day.catalog.doctors[i].getId(), counts[i]);
+            }
+        }
+        return bookings;
+    }
+
+    public Map<Long, Integer> roomBookings(final LocalDate date) {
+        final DayAvailability day = day(date);
+        final int[] counts = new int[day.catalog.rooms.length];
+        day.slots.values().forEach(slot -> slot.countRooms(counts));
+        final Map<Long, Integer> bookings = new HashMap<>();
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] > 0) {
+                bookings.put(day.catalog.rooms[i].getId(), counts[i]);
+            }
+        }
+        return bookings;
+    }
+
+    /**
+     * Records a booking that is about to be inserted. Inside a transaction the index is only
+     * updated once the insert commits; a rollback (typically a unique-constraint race with
+     * another node) evicts the day so the next lookup reloads it from the database.
+     */
+    public void trackBooking(final LocalDate date, final Long timeSlotId, final Long doctorId, final Long roomId) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            markBooked(date, timeSlotId, doctorId, roomId);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                markBooked(date, timeSlotId, doctorId, roomId);
+            }
+
+            @Override
+            public void afterCompletion(final int status) {
+                if (status == STATUS_ROLLED_BACK) {
+                    invalidate(date);
+                }
+            }
+        });
+    }
+
+    public void invalidate(final LocalDate date) {
+        days.remove(date);
+    }
+
+    private void markBooked(final LocalDate date, final Long timeSlotId, final Long doctorId, final Long roomId) {
+        // Recorded for loads in progress first: a load registers its day before replaying these,
+        // so a booking either lands in the replay or finds the day already registered below.
+        for (final DayLoad load : loads) {
+            if (load.date.equals(date)) {
+                load.bookings.add(new TrackedBooking(timeSlotId, doctorId, roomId));
+            }
+        }
+        final DayAvailability day = days.get(date);
+        if (day != null) {
+            markBooked(day, timeSlotId, doctorId, roomId);
+        }
+    }
+
+    private void markBooked(final DayAvailability day, final Long timeSlotId, final Long doctorId, final Long roomId) {
+        final Integer doctorPosition = day.catalog.doctorPositions.get(doctorId);
+        final Integer roomPosition = day.catalog.roomPositions.get(roomId);
+        if (doctorPosition == null || roomPosition == null) {
+            log.info("Booking references doctor {} / room {} unknown to the availability catalog, reloading", doctorId, roomId);
+            catalog = null;
+            days.clear();
+            return;
+        }
+        day.slot(timeSlotId).markBooked(doctorPosition, roomPosition);
+    }
+
+    private DayAvailability day(final LocalDate date) {
+        final Catalog current = catalog();
+        final long now = System.currentTimeMillis();
+        final DayAvailability cached = days.get(date);
+        if (cached != null && cached.catalog == current && now - cached.loadedAt < dayTtlSeconds * 1000) {
+            return cached;
+        }
+        days.entrySet().removeIf(entry -> now - entry.getValue().loadedAt >= dayTtlSeconds * 1000);
+
+        // Registered before the query so bookings committing while it runs are not lost.
+        final DayLoad load = new DayLoad(date);
+        loads.add(load);
+        try {
+            final List<BookedSlotView> bookedSlots = appointmentRepository.findBookedSlotsByDate(date);
+            Catalog effective = current;
+            if (!effective.covers(bookedSlots)) {
+                catalog = null;
+                effective = catalog();
+            }
+            final DayAvailability loaded = new DayAvailability(effective, now);
+            for (final BookedSlotView booked : bookedSlots) {
+                final Integer doctorPosition = effective.doctorPositions.get(booked.getDoctorId());
+                final Integer roomPosition = effective.roomPositions.get(booked.getRoomId());
+                if (doctorPosition != null && roomPosition != null) {
+                    loaded.slot(booked.getTimeSlotId()).markBooked(doctorPosition, roomPosition);
+                }
+            }
+            days.put(date, loaded);
+            for (final TrackedBooking booking : load.bookings) {
+                markBooked(loaded, booking.timeSlotId(), booking.doctorId(), booking.roomId());
+            }
+            return loaded;
+        } finally {
+            loads.remove(load);
+        }
+    }
+
+    private Catalog catalog() {
+        final Catalog current = catalog;
+        if (current != null && System.currentTimeMillis() - current.loadedAt < catalogTtlSeconds * 1000) {
+            return current;
+        }
+        final List<Doctor> doctors = doctorRepository.findAllWithSpecialty().stream()
+                .map(entityMapper::toDomain)
+                .toList();
+        final List<Room> rooms = roomRepository.findAll(Sort.by("id")).stream()
+                .map(entityMapper::toDomain)
+                .toList();
+        final Catalog loaded = new Catalog(doctors, rooms);
+        days.clear();
+        catalog = loaded;
+        return loaded;
+    }
+
+    private static final class Catalog {
+        private final Doctor[] doctors;
+        private final Room[] rooms;
+        private final Map<Long, Integer> doctorPositions = new HashMap<>();
+        private final Map<Long, Integer> roomPositions = new HashMap<>();
+        private final Map<Long, BitSet> doctorsBySpecialty = new HashMap<>();
+        private final long loadedAt = System.currentTimeMillis();
+
+        private Catalog(final List<Doctor> doctors, final List<Room> rooms) {
+            this.doctors = doctors.toArray(Doctor[]::new);
+            this.rooms = rooms.toArray(Room[]::new);
+            for (int i = 0; i < this.doctors.length; i++) {
+                final Doctor doctor = this.doctors[i];
+                doctorPositions.put(doctor.getId(), i);
+                if (doctor.getSpecialty() != null) {
+                    doctorsBySpecialty.computeIfAbsent(doctor.getSpecialty().getId(), id -> new BitSet()).set(i);
+                }
+            }
+            for (int i = 0; i < this.rooms.length; i++) {
+                roomPositions.put(this.rooms[i].getId(), i);
+            }
+        }
+
+        private boolean covers(final List<BookedSlotView> bookedSlots) {
+            return bookedSlots.stream().allMatch(booked ->
+                    doctorPositions.containsKey(booked.getDoctorId()) && roomPositions.containsKey(booked.getRoomId()));
+        }
+
+        private BitSet doctorsOfSpecialty(final Long specialtyId) {
+            final BitSet doctorsOfSpecialty = doctorsBySpecialty.get(specialtyId);
+            return doctorsOfSpecialty != null ? (BitSet) doctorsOfSpecialty.clone() : new BitSet();
+        }
+    }
+
+    /** A day being read from the database and the bookings committed meanwhile. */
+    private static final class DayLoad {
+        private final LocalDate date;
+        private final Queue<TrackedBooking> bookings = new ConcurrentLinkedQueue<>();
+
+        private DayLoad(final LocalDate date) {
+            this.date = date;
+        }
+    }
+
+    private record TrackedBooking(Long timeSlotId, Long doctorId, Long roomId) {
+    }
+
+    private static final class DayAvailability {
+        private final Catalog catalog;
+        private final long loadedAt;
+        private final Map<Long, SlotBookings> slots = new ConcurrentHashMap<>();
+
+        private DayAvailability(final Catalog catalog, final long loadedAt) {
+            this.catalog = catalog;
+            this.loadedAt = loadedAt;
+        }
+
+        private SlotBookings slot(final Long timeSlotId) {
+            return slots.computeIfAbsent(timeSlotId, id -> new SlotBookings());
+        }
+    }
+
+    private static final class SlotBookings {
+        private final BitSet doctors = new BitSet();
+        private final BitSet rooms = new BitSet();
+
+        private synchronized void markBooked(final int doctorPosition, final int roomPosition) {
+            doctors.set(doctorPosition);
+            rooms.set(roomPosition);
+        }
+
+        private synchronized void countDoctors(final int[] counts) {
+            for (int i = doctors.nextSetBit(0); i >= 0 && i < counts.length; i = doctors.nextSetBit(i + 1)) {
+                counts[i]++;
+            }
+        }
+
+        private synchronized void countRooms(final int[] counts) {
+            for (int i = rooms.nextSetBit(0); i >= 0 && i < counts.length; i = rooms.nextSetBit(i + 1)) {
+                counts[i]++;
+            }
+        }
+
+        private synchronized void removeBookedDoctors(final BitSet candidates) {
+            candidates.andNot(doctors);
+        }
+
+        private synchronized void removeBookedRooms(final BitSet candidates) {
+            candidates.andNot(rooms);
+        }
+    }
+}
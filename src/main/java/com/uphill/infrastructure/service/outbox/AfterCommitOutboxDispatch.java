@@ -0,0 +1,99 @@
+package com.uphill.infrastructure.service.outbox;
+
+import com.uphill.core.application.service.appointment.OutboxProcessingService;
+import com.uphill.core.application.service.appointment.SagaProcessingService;
+import com.uphill.infrastructure.config.OutboxDispatchProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Consumer;
+
+/**
+ * Collects the outbox events (or appointment sagas) created in the current transaction and,
+ * once it commits, hands them to the dispatcher on the outbox executor. Nothing here is
+ * durable: if the hand-off fails or the node dies, the events are still PENDING and the poller
+ * picks them up.
+ */
+@Component
+public class AfterCommitOutboxDispatch {
+
+    private static final Logger log = LoggerFactory.getLogger(AfterCommitOutboxDispatch.class);
+    private static final Object PENDING_EVENT_IDS = new Object();
+    private static final Object PENDING_SAGA_IDS = new Object();
+
+    private final OutboxProcessingService outboxProcessingService;
+    private final SagaProcessingService sagaProcessingService;
+    private final ExecutorService executor;
+    private final OutboxDispatchProperties properties;
+
+    public AfterCommitOutboxDispatch(final OutboxProcessingService outboxProcessingService,
+                                     final SagaProcessingService sagaProcessingService,
+                                     @Qualifier("outboxExecutor") final ExecutorService executor,
+                                     final OutboxDispatchProperties properties) {
+        this.outboxProcessingService = outboxProcessingService;
+        this.sagaProcessingService = sagaProcessingService;
+        this.executor = executor;
+        this.properties = properties;
+    }
+
+    public boolean isEnabled() {
+        return properties.isAfterCommit();
+    }
+
+    public void dispatchAfterCommit(final Long eventId) {
+        collect(PENDING_EVENT_IDS, eventId, ids -> submit("outbox events", ids, outboxProcessingService::dispatchNow));
+    }
+
+    public void dispatchSagaAfterCommit(final Long appointmentId) {
+        collect(PENDING_SAGA_IDS, appointmentId, ids -> submit("sagas", ids, sagaProcessingService::dispatchNow));
+    }
+
+    @SuppressWarnings("unchecked")
+    private void collect(final Object key, final Long id, final Consumer<List<Long>> submit) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            submit.accept(List.of(id));
+            return;
+        }
+        List<Long> pending = (List<Long>) TransactionSynchronizationManager.getResource(key);
+        if (pending == null) {
+            final List<Long> ids = new ArrayList<>();
+            TransactionSynchronizationManager.bindResource(key, ids);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    submit.accept(List.copyOf(ids));
+                }
+
+                @Override
+                public void afterCompletion(final int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(key);
+                }
+            });
+            pending = ids;
+        }
+        pending.add(id);
+    }
+
+    private void submit(final String kind, final List<Long> ids, final Consumer<List<Long>> dispatch) {
+        try {
+            executor.execute(() -> {
+                try {
+                    dispatch.accept(ids);
+                } catch (RuntimeException ex) {
+                    log.warn("Immediate dispatch of {} {} failed, leaving them to the poller: {}",
+                            kind, ids, ex.getMessage());
+                }
+            });
+        } catch (RejectedExecutionException ex) {
+            log.warn("Outbox executor rejected {} {}, leaving them to the poller", kind, ids);
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.uphill.infrastructure.service.outbox;
+
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Semaphore whose acquire returns a future instead of blocking, so waiting for a permit
+ * does not park a dispatcher thread.
+ */
+final class AsyncPermits {
+
+    private final Queue<CompletableFuture<Void>> waiters = new ArrayDeque<>();
+    private int available;
+
+    AsyncPermits(final int permits) {
+        this.available = permits;
+    }
+
+    CompletableFuture<Void> acquire() {
+        synchronized (this) {
+            if (available > 0) {
+                available--;
+                return CompletableFuture.completedFuture(null);
+            }
+            final CompletableFuture<Void> waiter = new CompletableFuture<>();
+            waiters.add(waiter);
+            return waiter;
+        }
+    }
+
+    void release() {
+        final CompletableFuture<Void> next;
+        synchronized (this) {
+            next = waiters.poll();
+            if (next == null) {
+                available++;
+            }
+        }
+        if (next != null) {
+            next.complete(null);
+        }
+    }
+
+    synchronized int available() {
+        return available;
+    }
+}
@@ -0,0 +1,129 @@
+package com.uphill.infrastructure.service.outbox;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Hierarchical timing wheel: the lowest level has {@code wheelSize} buckets of {@code tickMs}
+ * each, and anything due beyond its span goes to an overflow level whose tick is that whole
+ * span, created on demand. Adding is O(1) whatever the delay; as time advances, the bucket a
+ * higher level reaches is cascaded down into the finer levels.
+ * <p>
+ * Entries never fire early: on the lowest level they sit in the bucket of the first tick at or
+ * after their due time. Not thread-safe.
+ */
+final class HierarchicalTimingWheel<T> {
+
+    private final long tickMs;
+    private final int wheelSize;
+    private final boolean lowest;
+    private final List<List<Entry<T>>> buckets;
+    private long currentTimeMs;
+    private HierarchicalTimingWheel<T> overflow;
+    private int size;
+
+    HierarchicalTimingWheel(final long tickMs, final int wheelSize, final long startMs) {
+        this(tickMs, wheelSize, startMs, true);
+    }
+
+    private HierarchicalTimingWheel(final long tickMs, final int wheelSize, final long startMs, final boolean lowest) {
+        if (tickMs <= 0 || wheelSize < 2) {
+            throw new IllegalArgumentException("Timing wheel needs a positive tick and at least two buckets");
+        }
+        this.tickMs = tickMs;
+        this.wheelSize = wheelSize;
+        this.lowest = lowest;
+        this.currentTimeMs = startMs - Math.floorMod(startMs, tickMs);
+        this.buckets = new ArrayList<>(wheelSize);
+        for (int i = 0; i < wheelSize; i++) {
+            buckets.add(new ArrayList<>());
+        }
+    }
+
+    /**
+     * Schedules {@code item} for {@code dueMs}.
+     *
+     * @return false, without scheduling anything, if the item is already due
+     */
+    boolean add(final long dueMs, final T item) {
+        if (dueMs <= currentTimeMs) {
+            return false;
+        }
+        offer(new Entry<>(dueMs, item));
+        size++;
+        return true;
+    }
+
+    /**
+     * Moves the wheel forward to {@code nowMs}, passing every item that became due to {@code due}.
+     */
+    void advance(final long nowMs, final Consumer<T> due) {
+        while (currentTimeMs + tickMs <= nowMs) {
+            currentTimeMs += tickMs;
+            fire(takeBucket(currentTimeMs), due);
+            if (overflow != null) {
+                overflow.cascade(currentTimeMs, this, due);
+            }
+        }
+    }
+
+    int size() {
+        return size;
+    }
+
+    // The lowest level buckets by the tick at or after the due time, so entries fire late rather
+    // than early; higher levels bucket by the tick before it, so entries move down in time.
+    private void offer(final Entry<T> entry) {
+        final long currentSlot = currentTimeMs / tickMs;
+        final long slot = lowest ? Math.ceilDiv(entry.dueMs(), tickMs) : Math.floorDiv(entry.dueMs(), tickMs);
+        // A lowest-level slot one full turn ahead lands in the bucket just flushed, which is fine:
+        // that bucket is not visited again until exactly that slot.
+        final boolean fits = lowest ? slot <= currentSlot + wheelSize : slot < currentSlot + wheelSize;
+        if (fits) {
+            buckets.get(Math.floorMod(slot, wheelSize)).add(entry);
+        } else {
+            if (overflow == null) {
+                overflow = new HierarchicalTimingWheel<>(tickMs * wheelSize, wheelSize, currentTimeMs, false);
+            }
+            overflow.offer(entry);
+        }
+    }
+
+    private void cascade(final long timeMs, final HierarchicalTimingWheel<T> lowestLevel, final Consumer<T> due) {
+        while (currentTimeMs + tickMs <= timeMs) {
+            currentTimeMs += tickMs;
+            for (final Entry<T> entry : takeBucket(currentTimeMs)) {
+                if (entry.dueMs() <= lowestLevel.currentTimeMs) {
+                    lowestLevel.size--;
+                    due.accept(entry.item());
+                } else {
+                    lowestLevel.offer(entry);
+                }
+            }
+            if (overflow != null) {
+                overflow.cascade(currentTimeMs, lowestLevel, due);
+            }
+        }
+    }
+
+    private void fire(final List<Entry<T>> entries, final Consumer<T> due) {
+        for (final Entry<T> entry : entries) {
+            size--;
+            due.accept(entry.item());
+        }
+    }
+
+    private List<Entry<T>> takeBucket(final long timeMs) {
+        final int index = Math.floorMod(timeMs / tickMs, wheelSize);
+        final List<Entry<T>> bucket = buckets.get(index);
+        if (bucket.isEmpty()) {
+            return List.of();
+        }
+        buckets.set(index, new ArrayList<>());
+        return bucket;
+    }
+
+    private record Entry<T>(long dueMs, T item) {
+    }
+}
@@ -0,0 +1,11 @@
+package com.uphill.infrastructure.service.outbox;
+
+/**
+ * How the outbox records the downstream work of an appointment.
+ */
+public enum OutboxFormat {
+    /** One outbox_events row per downstream call. */
+    EVENTS,
+    /** One appointment_sagas row per appointment, tracking each call as a step. */
+    SAGA
+}
@@ -0,0 +1,36 @@
+package com.uphill.infrastructure.service.outbox;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.UUID;
+
+/**
+ * Identity this instance uses when it claims outbox work. Unique per process start unless
+ * {@code outbox.node-id} is set, so a restarted node never mistakes an old lease for its own.
+ */
+@Component
+public class OutboxNode {
+
+    private final String id;
+
+    public OutboxNode(@Value("${outbox.node-id:}") final String configuredId) {
+        this.id = configuredId.isBlank()
+                ? hostName() + "-" + UUID.randomUUID().toString().substring(0, 8)
+                : configuredId;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    private static String hostName() {
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException e) {
+            return "node";
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package com.uphill.infrastructure.service.outbox;
+
+import com.uphill.core.application.service.appointment.OutboxPoller;
+import lombok.RequiredArgsConstructor;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.regex.Pattern;
+
+/**
+ * Holds a dedicated (non-pooled) connection that LISTENs on the outbox channel and wakes the
+ * {@link OutboxPoller} whenever new events are committed. Polling remains the safety net: after
+ * every (re)connect the poller is woken once to pick up anything sent while nobody listened.
+ */
+@Component
+@RequiredArgsConstructor
+public class OutboxNotificationListener implements SmartLifecycle {
+
+    private static final Logger log = LoggerFactory.getLogger(OutboxNotificationListener.class);
+    private static final Pattern CHANNEL_NAME = Pattern.compile("[a-z_][a-z0-9_]*");
+    private static final int RECEIVE_TIMEOUT_MS = 500;
+
+    private final DataSourceProperties dataSourceProperties;
+    private final OutboxPoller outboxPoller;
+
+    @Value("${outbox.notify.enabled:true}")
+    private boolean enabled;
+
+    @Value("${outbox.notify.channel:outbox_events}")
+    private String channel;
+
+    @Value("${outbox.notify.reconnect-delay-ms:5000}")
+    private long reconnectDelayMs;
+
+    private Thread thread;
+    private volatile boolean running;
+
+    @Override
+    public void start() {
+        if (!enabled || running) {
+            return;
+        }
+        final String url = dataSourceProperties.determineUrl();
+        if (url == null || !url.startsWith("jdbc:postgresql:")) {
+            log.info("Outbox notifications need PostgreSQL, relying on polling for {}", url);
+            return;
+        }
+        if (!CHANNEL_NAME.matcher(channel).matches()) {
+            throw new IllegalStateException("Invalid outbox notification channel: " + channel);
+        }
+        running = true;
+        thread = new Thread(() -> run(url), "outbox-listener");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        if (thread != null) {
+            thread.interrupt();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    private void run(final String url) {
+        while (running) {
+            try (Connection connection = DriverManager.getConnection(url,
+                    dataSourceProperties.determineUsername(), dataSourceProperties.determinePassword())) {
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("LISTEN " + channel);
+                }
+                log.info("Listening for outbox notifications on channel {}", channel);
+                outboxPoller.wakeUp();
+                receive(connection.unwrap(PGConnection.class));
+            } catch (SQLException ex) {
+                if (!running) {
+                    return;
+                }
+                log.warn("Outbox notification connection lost, reconnecting in {} ms: {}", reconnectDelayMs, ex.getMessage());
+                try {
+                    Thread.sleep(reconnectDelayMs);
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+        }
+    }
+
+    private void receive(final PGConnection connection) throws SQLException {
+        while (running) {
+            final PGNotification[] notifications = connection.getNotifications(RECEIVE_TIMEOUT_MS);
+            if (notifications != null && notifications.length > 0) {
+                outboxPoller.wakeUp();
+            }
+        }
+    }
+}
@@ -0,0 +1,178 @@
+package com.uphill.infrastructure.service.outbox;
+
+import com.uphill.core.application.service.appointment.OutboxPoller;
+import com.uphill.infrastructure.config.OutboxPartitionProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Leases outbox partitions to this node. Every heartbeat the node records itself in
+ * outbox_nodes, renews the leases it holds, and moves towards its fair share of
+ * {@code ceil(partitions / live nodes)}: surplus partitions are released for newcomers and
+ * free or expired ones are taken over, so the work rebalances when nodes join or die.
+ * <p>
+ * Claim queries check ownership against outbox_partitions themselves, so a node whose lease ran
+ * out stops claiming even if it has not noticed yet. All lease times, event leases included, use
+ * the database clock.
+ */
+@Component
+public class OutboxPartitionCoordinator implements SmartLifecycle {
+
+    private static final Logger log = LoggerFactory.getLogger(OutboxPartitionCoordinator.class);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final OutboxNode outboxNode;
+    private final OutboxPartitionProperties properties;
+    private final OutboxPoller outboxPoller;
+
+    private volatile Set<Integer> ownedPartitions = Set.of();
+    private Thread thread;
+    private volatile boolean running;
+    private boolean initialized;
+
+    public OutboxPartitionCoordinator(final JdbcTemplate jdbcTemplate,
+                                      final OutboxNode outboxNode,
+                                      final OutboxPartitionProperties properties,
+                                      final OutboxPoller outboxPoller) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.outboxNode = outboxNode;
+        this.properties = properties;
+        this.outboxPoller = outboxPoller;
+    }
+
+    public boolean isEnabled() {
+        return properties.isEnabled();
+    }
+
+    public int getPartitionCount() {
+        return properties.getCount();
+    }
+
+    /**
+     * Partitions this node believed it held at its last heartbeat.
+     */
+    public Set<Integer> getOwnedPartitions() {
+        return ownedPartitions;
+    }
+
+    @Override
+    public void start() {
+        if (!properties.isEnabled() || running) {
+            return;
+        }
+        running = true;
+        thread = new Thread(this::run, "outbox-partitions");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    // Stops after the poller (higher phases stop first) so partitions are handed back only once
+    // this node has stopped claiming from them.
+    @Override
+    public void stop() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        thread.interrupt();
+        try {
+            thread.join(properties.getHeartbeatMs());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        try {
+            ownedPartitions = Set.of();
+            jdbcTemplate.update("UPDATE outbox_partitions SET owner = NULL, lease_until = NULL WHERE owner = ?",
+                    outboxNode.getId());
+            jdbcTemplate.update("DELETE FROM outbox_nodes WHERE node_id = ?", outboxNode.getId());
+            log.info("Released outbox partitions of node {}", outboxNode.getId());
+        } catch (DataAccessException ex) {
+            log.warn("Could not release outbox partitions, they will expire: {}", ex.getMessage());
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        return DEFAULT_PHASE - 1;
+    }
+
+    private void run() {
+        while (running) {
+            try {
+                heartbeat();
+            } catch (DataAccessException ex) {
+                log.warn("Outbox partition heartbeat failed: {}", ex.getMessage());
+            }
+            try {
+                Thread.sleep(properties.getHeartbeatMs());
+            } catch (InterruptedException e) {
+                return;
+            }
+        }
+    }
+
+    // Package-private so tests can drive heartbeats without the thread.
+    void heartbeat() {
+        if (!initialized) {
+            jdbcTemplate.update("INSERT INTO outbox_partitions (partition_no) " +
+                    "SELECT generate_series(0, ? - 1) ON CONFLICT DO NOTHING", properties.getCount());
+            initialized = true;
+        }
+        final String nodeId = outboxNode.getId();
+        final double ttlSeconds = properties.getLeaseTtlMs() / 1000.0;
+        jdbcTemplate.update("INSERT INTO outbox_nodes (node_id, heartbeat_at) VALUES (?, LOCALTIMESTAMP) " +
+                "ON CONFLICT (node_id) DO UPDATE SET heartbeat_at = EXCLUDED.heartbeat_at", nodeId);
+        jdbcTemplate.update("DELETE FROM outbox_nodes WHERE heartbeat_at < LOCALTIMESTAMP - make_interval(secs => ?)",
+                ttlSeconds * 10);
+        final Integer liveNodes = jdbcTemplate.queryForObject("SELECT count(*) FROM outbox_nodes " +
+                "WHERE heartbeat_at > LOCALTIMESTAMP - make_interval(secs => ?)", Integer.class, ttlSeconds);
+        final int fairShare = (properties.getCount() + Math.max(1, liveNodes) - 1) / Math.max(1, liveNodes);
+
+        final Set<Integer> owned = new TreeSet<>(jdbcTemplate.queryForList("UPDATE outbox_partitions " +
+                "SET lease_until = LOCALTIMESTAMP + make_interval(secs => ?) " +
+                "WHERE owner = ? AND partition_no < ? RETURNING partition_no",
+                Integer.class, ttlSeconds, nodeId, properties.getCount()));
+
+        if (owned.size() > fairShare) {
+            final List<Integer> surplus = owned.stream().skip(fairShare).toList();
+            owned.removeAll(surplus);
+            ownedPartitions = Set.copyOf(owned);
+            for (final Integer partition : surplus) {
+                jdbcTemplate.update("UPDATE outbox_partitions SET owner = NULL, lease_until = NULL " +
+                        "WHERE partition_no = ? AND owner = ?", partition, nodeId);
+            }
+            log.info("Released outbox partitions {} to rebalance across {} nodes", surplus, liveNodes);
+        } else if (owned.size() < fairShare) {
+            final List<Integer> acquired = jdbcTemplate.queryForList("UPDATE outbox_partitions " +
+                    "SET owner = ?, lease_until = LOCALTIMESTAMP + make_interval(secs => ?) " +
+                    "WHERE partition_no IN (SELECT p.partition_no FROM outbox_partitions p " +
+                    "    WHERE p.partition_no < ? AND (p.owner IS NULL OR p.lease_until < LOCALTIMESTAMP) " +
+                    "    ORDER BY p.partition_no LIMIT ? FOR UPDATE SKIP LOCKED) " +
+                    "RETURNING partition_no",
+                    Integer.class, nodeId, ttlSeconds, properties.getCount(), fairShare - owned.size());
+            if (!acquired.isEmpty()) {
+                owned.addAll(acquired);
+                log.info("Acquired outbox partitions {}, now owning {} of {}", acquired, owned.size(), properties.getCount());
+            }
+        }
+        final boolean gained = !ownedPartitions.containsAll(owned);
+        ownedPartitions = Set.copyOf(owned);
+        if (gained) {
+            // Pick up whatever piled up in the new partitions without waiting for the next poll.
+            outboxPoller.wakeUp();
+        }
+    }
+}
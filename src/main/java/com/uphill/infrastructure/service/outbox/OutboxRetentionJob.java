@@ -0,0 +1,223 @@
+package com.uphill.infrastructure.service.outbox;
+
+import com.uphill.infrastructure.config.OutboxRetentionProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Maintains the daily partitions of outbox_events: creates the next few days ahead of time and,
+ * when {@code outbox.retention.enabled}, retires every partition whose range ended more than
+ * {@code outbox.retention.days} ago, by detaching it and then dropping it or attaching it to
+ * outbox_events_archive. History goes away a whole partition at a time, so the live partitions
+ * and their indexes only ever hold recent rows. A partition that still has pending or in-flight
+ * rows is kept until they are done.
+ * <p>
+ * outbox_events has no default partition, so upcoming partitions are always created, at startup
+ * and on every run, whatever the retention settings; days follow the database clock that sets
+ * created_at.
+ * <p>
+ * outbox_events is never locked against the queue: partitions are created on their own and then
+ * attached, and detached CONCURRENTLY, both of which only take SHARE UPDATE EXCLUSIVE on it. The
+ * concurrent detach cannot run in a transaction, so one run holds a session advisory lock
+ * instead, and only one node does the work.
+ */
+@Component
+public class OutboxRetentionJob {
+
+    private static final Logger log = LoggerFactory.getLogger(OutboxRetentionJob.class);
+    private static final long ADVISORY_LOCK_KEY = 0x6f7574626f78L;
+    private static final DateTimeFormatter PARTITION_SUFFIX = DateTimeFormatter.ofPattern("yyyyMMdd");
+    private static final Pattern UPPER_BOUND = Pattern.compile("TO \\('([^']+)'\\)");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final OutboxRetentionProperties properties;
+
+    public OutboxRetentionJob(final JdbcTemplate jdbcTemplate,
+                              final TransactionTemplate transactionTemplate,
+                              final OutboxRetentionProperties properties) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.properties = properties;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onStartup() {
+        run();
+    }
+
+    @Scheduled(initialDelayString = "${outbox.retention.interval-ms:3600000}",
+               fixedDelayString = "${outbox.retention.interval-ms:3600000}")
+    public void run() {
+        try {
+            // The lock lives on a connection held for the whole run; the steps use others.
+            jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+                if (advisoryLock(connection, "pg_try_advisory_lock")) {
+                    try {
+                        maintain();
+                    } finally {
+                        advisoryLock(connection, "pg_advisory_unlock");
+                    }
+                }
+                return null;
+            });
+        } catch (DataAccessException ex) {
+            log.error("Outbox partition maintenance failed: {}", ex.getMessage());
+        }
+    }
+
+    private void maintain() {
+        final LocalDate today = jdbcTemplate.queryForObject("SELECT CURRENT_DATE", LocalDate.class);
+        premake(today);
+        if (properties.isEnabled()) {
+            retireOld(today);
+        }
+    }
+
+    private void premake(final LocalDate today) {
+        final Set<String> existing = partitions().stream().map(Partition::name).collect(Collectors.toSet());
+        for (int i = 0; i <= properties.getPremakeDays(); i++) {
+            final LocalDate day = today.plusDays(i);
+            if (!existing.contains(partitionName(day))) {
+                step(() -> createPartition(day));
+            }
+        }
+    }
+
+    private void retireOld(final LocalDate today) {
+        final LocalDateTime cutoff = today.minusDays(properties.getDays()).atStartOfDay();
+        for (final Partition partition : partitions()) {
+            if (partition.detachPending()) {
+                // A concurrent detach that was interrupted leaves the partition half detached.
+                step(() -> finishDetach(partition));
+            } else if (partition.upperBound() != null && !partition.upperBound().isAfter(cutoff)) {
+                step(() -> retire(partition));
+            }
+        }
+    }
+
+    private void createPartition(final LocalDate day) {
+        final String name = quote(partitionName(day));
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.execute("CREATE TABLE " + name + " (LIKE outbox_events INCLUDING DEFAULTS)");
+            jdbcTemplate.execute("ALTER TABLE outbox_events ATTACH PARTITION " + name +
+                    " FOR VALUES FROM ('" + day.atStartOfDay() + "') TO ('" + day.plusDays(1).atStartOfDay() + "')");
+        });
+        log.info("Created outbox partition {}", partitionName(day));
+    }
+
+    private void retire(final Partition partition) {
+        if (hasUnfinishedEvents(partition)) {
+            log.warn("Outbox partition {} is past retention but still has unfinished events, keeping it", partition.name());
+            return;
+        }
+        jdbcTemplate.execute("ALTER TABLE outbox_events DETACH PARTITION " + quote(partition.name()) + " CONCURRENTLY");
+        dispose(partition);
+    }
+
+    private void finishDetach(final Partition partition) {
+        jdbcTemplate.execute("ALTER TABLE outbox_events DETACH PARTITION " + quote(partition.name()) + " FINALIZE");
+        dispose(partition);
+    }
+
+    /**
+     * Drops or archives a detached partition, or attaches it back if an event in it turned
+     * unfinished while the detach was waiting. If that fails it is attached back as well, so the
+     * next run retries it instead of the table being left behind detached.
+     */
+    private void dispose(final Partition partition) {
+        final String name = quote(partition.name());
+        try {
+            disposeDetached(partition, name);
+        } catch (DataAccessException ex) {
+            jdbcTemplate.execute("ALTER TABLE outbox_events ATTACH PARTITION " + name + " " + partition.bound());
+            throw ex;
+        }
+    }
+
+    private void disposeDetached(final Partition partition, final String name) {
+        transactionTemplate.executeWithoutResult(status -> {
+            if (hasUnfinishedEvents(partition)) {
+                jdbcTemplate.execute("ALTER TABLE outbox_events ATTACH PARTITION " + name + " " + partition.bound());
+                log.warn("Outbox partition {} got unfinished events while being retired, attached it back", partition.name());
+            } else if (properties.getMode() == OutboxRetentionProperties.Mode.ARCHIVE) {
+                jdbcTemplate.execute("ALTER TABLE outbox_events_archive ATTACH PARTITION " + name + " " + partition.bound());
+                log.info("Moved outbox partition {} to outbox_events_archive", partition.name());
+            } else {
+                jdbcTemplate.execute("DROP TABLE " + name);
+                log.info("Dropped outbox partition {}", partition.name());
+            }
+        });
+    }
+
+    private boolean hasUnfinishedEvents(final Partition partition) {
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject("SELECT EXISTS (SELECT 1 FROM " + quote(partition.name()) +
+                " WHERE status IN ('PENDING', 'IN_FLIGHT'))", Boolean.class));
+    }
+
+    private List<Partition> partitions() {
+        return jdbcTemplate.query("SELECT c.relname, pg_get_expr(c.relpartbound, c.oid), i.inhdetachpending " +
+                        "FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid " +
+                        "WHERE i.inhparent = 'outbox_events'::regclass",
+                (rs, rowNum) -> {
+                    final String bound = rs.getString(2);
+                    final Matcher upper = UPPER_BOUND.matcher(bound);
+                    return new Partition(rs.getString(1), bound,
+                            upper.find() ? LocalDateTime.parse(upper.group(1).replace(' ', 'T')) : null,
+                            rs.getBoolean(3));
+                });
+    }
+
+    private void step(final Runnable step) {
+        try {
+            step.run();
+        } catch (DataAccessException ex) {
+            log.error("Outbox partition maintenance step failed: {}", ex.getMessage());
+        }
+    }
+
+    private static boolean advisoryLock(final Connection connection, final String function) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement("SELECT " + function + "(?)")) {
+            statement.setLong(1, ADVISORY_LOCK_KEY);
+            try (ResultSet rs = statement.executeQuery()) {
+                return rs.next() && rs.getBoolean(1);
+            }
+        }
+    }
+
+    private static String partitionName(final LocalDate day) {
+        return "outbox_events_p" + day.format(PARTITION_SUFFIX);
+    }
+
+    private static String quote(final String identifier) {
+        return "\"" + identifier.replace("\"", "\"\"") + "\"";
+    }
+
+    /**
+     * A partition of outbox_events; the upper bound is null for a partition without one, and
+     * {@code detachPending} is set while a concurrent detach of it is unfinished.
+     */
+    private record Partition(String name, String bound, LocalDateTime upperBound, boolean detachPending) {
+    }
+}
@@ -0,0 +1,76 @@
+package com.uphill.infrastructure.service.outbox;
+
+import com.uphill.core.application.service.appointment.OutboxRetryScheduler;
+import com.uphill.infrastructure.config.OutboxRetryWheelProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * {@link OutboxRetryScheduler} backed by a {@link HierarchicalTimingWheel}. Scheduling only
+ * records the retry; {@link OutboxRetryWheelRunner} advances the wheel and dispatches what is due.
+ * Work that is already due when scheduled is handed out on the next advance.
+ */
+@Component
+public class OutboxRetryWheel implements OutboxRetryScheduler {
+
+    private final OutboxRetryWheelProperties properties;
+    private final HierarchicalTimingWheel<Target> wheel;
+    private final List<Target> dueNow = new ArrayList<>();
+
+    public OutboxRetryWheel(final OutboxRetryWheelProperties properties) {
+        this.properties = properties;
+        this.wheel = new HierarchicalTimingWheel<>(properties.getTickMs(), properties.getWheelSize(),
+                System.currentTimeMillis());
+    }
+
+    @Override
+    public void scheduleEvent(final Long eventId, final LocalDateTime dueAt) {
+        schedule(new Target(false, eventId), dueAt);
+    }
+
+    @Override
+    public void scheduleSaga(final Long appointmentId, final LocalDateTime dueAt) {
+        schedule(new Target(true, appointmentId), dueAt);
+    }
+
+    @Override
+    public Duration pollerGrace() {
+        return properties.isEnabled() ? Duration.ofMillis(properties.getPollerGraceMs()) : Duration.ZERO;
+    }
+
+    /**
+     * Advances the wheel to {@code nowMs} and returns everything that became due.
+     */
+    synchronized List<Target> advance(final long nowMs) {
+        final List<Target> due = new ArrayList<>(dueNow);
+        dueNow.clear();
+        wheel.advance(nowMs, due::add);
+        return due;
+    }
+
+    synchronized int size() {
+        return wheel.size() + dueNow.size();
+    }
+
+    private void schedule(final Target target, final LocalDateTime dueAt) {
+        if (!properties.isEnabled() || dueAt == null) {
+            return;
+        }
+        // Rounded up so the sub-millisecond part of next_retry_at can never make it fire early.
+        final long dueMs = dueAt.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli() + 1;
+        synchronized (this) {
+            if (!wheel.add(dueMs, target)) {
+                dueNow.add(target);
+            }
+        }
+    }
+
+    /** An outbox event, or the saga of an appointment. */
+    record Target(boolean saga, Long id) {
+    }
+}
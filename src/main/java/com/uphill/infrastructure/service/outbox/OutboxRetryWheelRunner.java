@@ -0,0 +1,175 @@
+package com.uphill.infrastructure.service.outbox;
+
+import com.uphill.core.application.service.appointment.AppointmentSagaPersistenceService;
+import com.uphill.core.application.service.appointment.OutboxEventPersistenceService;
+import com.uphill.core.application.service.appointment.OutboxProcessingService;
+import com.uphill.core.application.service.appointment.SagaProcessingService;
+import com.uphill.infrastructure.config.OutboxRetryWheelProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/**
+ * Turns the {@link OutboxRetryWheel} once per tick on a dedicated thread and dispatches whatever
+ * became due on the outbox executor. The wheel is filled from next_retry_at of pending events and
+ * sagas, in pages and only up to {@code outbox.retry-wheel.load-horizon-ms} ahead; the window is
+ * extended every half horizon, so delayed retries survive a restart without waiting for a poll and
+ * the wheel never holds more than is due soon. Retries written into an already loaded window by
+ * another node are left to the poller. Claims only take work that is still pending and due, so
+ * stale or duplicate entries are harmless.
+ */
+@Component
+public class OutboxRetryWheelRunner implements SmartLifecycle {
+
+    private static final Logger log = LoggerFactory.getLogger(OutboxRetryWheelRunner.class);
+
+    private final OutboxRetryWheel wheel;
+    private final OutboxProcessingService outboxProcessingService;
+    private final SagaProcessingService sagaProcessingService;
+    private final OutboxEventPersistenceService outboxEventPersistenceService;
+    private final AppointmentSagaPersistenceService appointmentSagaPersistenceService;
+    private final ExecutorService executor;
+    private final OutboxRetryWheelProperties properties;
+
+    private Thread thread;
+    private volatile boolean running;
+    private LocalDateTime loadedUntil = LocalDateTime.now();
+    private long nextLoadMs;
+
+    public OutboxRetryWheelRunner(final OutboxRetryWheel wheel,
+                                  final OutboxProcessingService outboxProcessingService,
+                                  final SagaProcessingService sagaProcessingService,
+                                  final OutboxEventPersistenceService outboxEventPersistenceService,
+                                  final AppointmentSagaPersistenceService appointmentSagaPersistenceService,
+                                  @Qualifier("outboxExecutor") final ExecutorService executor,
+                                  final OutboxRetryWheelProperties properties) {
+        this.wheel = wheel;
+        this.outboxProcessingService = outboxProcessingService;
+        this.sagaProcessingService = sagaProcessingService;
+        this.outboxEventPersistenceService = outboxEventPersistenceService;
+        this.appointmentSagaPersistenceService = appointmentSagaPersistenceService;
+        this.executor = executor;
+        this.properties = properties;
+    }
+
+    @Override
+    public void start() {
+        if (!properties.isEnabled() || running) {
+            return;
+        }
+        running = true;
+        thread = new Thread(this::run, "outbox-retry-wheel");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        if (thread != null) {
+            thread.interrupt();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    private void run() {
+        while (running) {
+            if (System.currentTimeMillis() >= nextLoadMs) {
+                load();
+            }
+            try {
+                Thread.sleep(properties.getTickMs());
+            } catch (InterruptedException e) {
+                return;
+            }
+            final List<OutboxRetryWheel.Target> due = wheel.advance(System.currentTimeMillis());
+            if (!due.isEmpty()) {
+                dispatch(due);
+            }
+        }
+    }
+
+    // Package-private so tests can drive loads without the thread.
+    void load() {
+        final LocalDateTime until = LocalDateTime.now().plus(Duration.ofMillis(properties.getLoadHorizonMs()));
+        nextLoadMs = System.currentTimeMillis() + properties.getLoadHorizonMs() / 2;
+        try {
+            final int events = loadPages(outboxEventPersistenceService::findScheduledRetries, wheel::scheduleEvent, until);
+            final int sagas = loadPages(appointmentSagaPersistenceService::findScheduledRetries, wheel::scheduleSaga, until);
+            loadedUntil = until;
+            if (events + sagas > 0) {
+                log.info("Loaded {} outbox event and {} saga retries due by {} into the retry wheel", events, sagas, until);
+            }
+        } catch (RuntimeException ex) {
+            log.error("Loading scheduled outbox retries failed, leaving them to the poller: {}", ex.getMessage(), ex);
+        }
+    }
+
+    // Pages through (loadedUntil, until] by (due time, id), so no row is skipped or read twice.
+    private int loadPages(final RetryPages pages, final BiConsumer<Long, LocalDateTime> schedule, final LocalDateTime until) {
+        LocalDateTime afterAt = loadedUntil;
+        Long afterId = Long.MAX_VALUE;
+        int loaded = 0;
+        while (true) {
+            final Map<Long, LocalDateTime> page = pages.find(afterAt, afterId, until, properties.getLoadPageSize());
+            for (final Map.Entry<Long, LocalDateTime> retry : page.entrySet()) {
+                schedule.accept(retry.getKey(), retry.getValue());
+                afterId = retry.getKey();
+                afterAt = retry.getValue();
+            }
+            loaded += page.size();
+            if (page.size() < properties.getLoadPageSize()) {
+                return loaded;
+            }
+        }
+    }
+
+    private void dispatch(final List<OutboxRetryWheel.Target> due) {
+        final List<Long> eventIds = new ArrayList<>();
+        final List<Long> appointmentIds = new ArrayList<>();
+        for (final OutboxRetryWheel.Target target : due) {
+            (target.saga() ? appointmentIds : eventIds).add(target.id());
+        }
+        if (!eventIds.isEmpty()) {
+            submit("outbox events", eventIds, outboxProcessingService::dispatchNow);
+        }
+        if (!appointmentIds.isEmpty()) {
+            submit("sagas", appointmentIds, sagaProcessingService::dispatchNow);
+        }
+    }
+
+    private void submit(final String kind, final List<Long> ids, final Consumer<List<Long>> dispatch) {
+        try {
+            executor.execute(() -> {
+                try {
+                    dispatch.accept(ids);
+                } catch (RuntimeException ex) {
+                    log.warn("Retry of {} {} failed, leaving them to the poller: {}", kind, ids, ex.getMessage());
+                }
+            });
+        } catch (RejectedExecutionException ex) {
+            log.warn("Outbox executor rejected retry of {} {}, leaving them to the poller", kind, ids);
+        }
+    }
+
+    @FunctionalInterface
+    private interface RetryPages {
+        Map<Long, LocalDateTime> find(LocalDateTime afterAt, Long afterId, LocalDateTime until, int limit);
+    }
+}
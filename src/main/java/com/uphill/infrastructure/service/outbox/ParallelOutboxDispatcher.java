@@ -0,0 +1,89 @@
+package com.uphill.infrastructure.service.outbox;
+
+import com.uphill.core.application.service.appointment.OutboxDispatcher;
+import com.uphill.core.domain.OutboxEvent;
+import com.uphill.infrastructure.config.OutboxDispatchProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.function.BiPredicate;
+import java.util.function.Function;
+
+/**
+ * Fans outbox events out to the outbox executor. An event starts once the earlier events of its
+ * aggregate it must follow have finished, so by default the aggregate's events run in order;
+ * different aggregates run concurrently, bounded by a global permit
+ * count and an optional per event type limit. Permits are held until the handler's future
+ * completes, so asynchronous handlers are bounded the same way as blocking ones.
+ */
+@Service
+public class ParallelOutboxDispatcher implements OutboxDispatcher {
+
+    private static final Logger log = LoggerFactory.getLogger(ParallelOutboxDispatcher.class);
+
+    private final ExecutorService executor;
+    private final OutboxDispatchProperties properties;
+    private final AsyncPermits globalPermits;
+    private final Map<String, AsyncPermits> typePermits = new ConcurrentHashMap<>();
+
+    public ParallelOutboxDispatcher(@Qualifier("outboxExecutor") final ExecutorService executor,
+                                    final OutboxDispatchProperties properties) {
+        this.executor = executor;
+        this.properties = properties;
+        this.globalPermits = new AsyncPermits(properties.getConcurrency());
+    }
+
+    @Override
+    public CompletableFuture<Void> dispatch(final List<OutboxEvent> events,
+                                            final BiPredicate<OutboxEvent, OutboxEvent> mustFollow,
+                                            final Function<OutboxEvent, CompletableFuture<Void>> handler) {
+        final Map<Long, List<OutboxEvent>> byAggregate = new LinkedHashMap<>();
+        for (final OutboxEvent event : events) {
+            byAggregate.computeIfAbsent(event.getAggregateId(), id -> new ArrayList<>()).add(event);
+        }
+
+        final List<CompletableFuture<Void>> runs = new ArrayList<>(events.size());
+        for (final List<OutboxEvent> aggregateEvents : byAggregate.values()) {
+            final List<CompletableFuture<Void>> started = new ArrayList<>(aggregateEvents.size());
+            for (final OutboxEvent event : aggregateEvents) {
+                final List<CompletableFuture<Void>> predecessors = new ArrayList<>();
+                for (int i = 0; i < started.size(); i++) {
+                    if (mustFollow.test(aggregateEvents.get(i), event)) {
+                        predecessors.add(started.get(i));
+                    }
+                }
+                started.add(CompletableFuture.allOf(predecessors.toArray(CompletableFuture[]::new))
+                        .thenCompose(ignored -> run(event, handler)));
+            }
+            runs.addAll(started);
+        }
+        return CompletableFuture.allOf(runs.toArray(CompletableFuture[]::new));
+    }
+
+    // Type permit first: a saturated type must not sit on global permits other types could use.
+    private CompletableFuture<Void> run(final OutboxEvent event, final Function<OutboxEvent, CompletableFuture<Void>> handler) {
+        final AsyncPermits permits = typePermits.computeIfAbsent(event.getEventType(),
+                type -> new AsyncPermits(properties.concurrencyFor(type)));
+        return permits.acquire()
+                .thenCompose(ignored -> globalPermits.acquire())
+                .thenCompose(ignored -> CompletableFuture.supplyAsync(() -> handler.apply(event), executor))
+                .thenCompose(Function.identity())
+                .handle((ignored, ex) -> {
+                    globalPermits.release();
+                    permits.release();
+                    if (ex != null) {
+                        log.error("Dispatch of outbox event {} failed: {}", event.getId(), ex.getMessage(), ex);
+                    }
+                    return null;
+                });
+    }
+}
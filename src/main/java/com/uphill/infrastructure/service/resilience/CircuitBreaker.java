@@ -0,0 +1,163 @@
+package com.uphill.infrastructure.service.resilience;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.function.LongSupplier;
+
+/**
+ * Circuit breaker over a rolling window of one second buckets. The circuit opens once enough
+ * calls were seen and either the failure rate or the slow call rate crosses its threshold;
+ * after the open duration a fixed number of trial calls decide whether it closes again.
+ */
+final class CircuitBreaker {
+
+    enum State { CLOSED, OPEN, HALF_OPEN }
+
+    private static final long NANOS_PER_SECOND = 1_000_000_000L;
+
+    private final int minimumCalls;
+    private final int failureRateThreshold;
+    private final int slowCallRateThreshold;
+    private final long slowCallNanos;
+    private final long openNanos;
+    private final int halfOpenCalls;
+    private final LongSupplier nanoClock;
+
+    private final long[] bucketSecond;
+    private final int[] bucketCalls;
+    private final int[] bucketFailures;
+    private final int[] bucketSlow;
+
+    private State state = State.CLOSED;
+    private long openUntil;
+    private int halfOpenStarted;
+    private int halfOpenSucceeded;
+
+    CircuitBreaker(final int windowSeconds, final int minimumCalls, final int failureRateThreshold,
+                   final int slowCallRateThreshold, final Duration slowCallDuration, final Duration openDuration,
+                   final int halfOpenCalls, final LongSupplier nanoClock) {
+        this.minimumCalls = minimumCalls;
+        this.failureRateThreshold = failureRateThreshold;
+        this.slowCallRateThreshold = slowCallRateThreshold;
+        this.slowCallNanos = slowCallDuration.toNanos();
+        this.openNanos = openDuration.toNanos();
+        this.halfOpenCalls = halfOpenCalls;
+        this.nanoClock = nanoClock;
+        this.bucketSecond = new long[windowSeconds];
+        this.bucketCalls = new int[windowSeconds];
+        this.bucketFailures = new int[windowSeconds];
+        this.bucketSlow = new int[windowSeconds];
+        Arrays.fill(bucketSecond, Long.MIN_VALUE);
+    }
+
+    /**
+     * Returns whether a call may go out now. Every permitted call must be followed by exactly
+     * one {@link #onResult}.
+     */
+    synchronized boolean tryAcquire() {
+        if (state == State.OPEN) {
+            if (nanoClock.getAsLong() - openUntil < 0) {
+                return false;
+            }
+            state = State.HALF_OPEN;
+            halfOpenStarted = 0;
+            halfOpenSucceeded = 0;
+        }
+        if (state == State.HALF_OPEN) {
+            if (halfOpenStarted >= halfOpenCalls) {
+                return false;
+            }
+            halfOpenStarted++;
+        }
+        return true;
+    }
+
+    /**
+     * Records the outcome of a permitted call.
+     *
+     * @return the new state if this result changed it, otherwise {@code null}
+     */
+    synchronized State onResult(final long durationNanos, final boolean success) {
+        final State before = state;
+        final boolean slow = durationNanos >= slowCallNanos;
+        switch (state) {
+            case HALF_OPEN -> {
+                if (!success || slow) {
+                    open();
+                } else if (++halfOpenSucceeded >= halfOpenCalls) {
+                    close();
+                }
+            }
+            case CLOSED -> {
+                record(success, slow);
+                final int[] totals = totals();
+                if (totals[0] >= minimumCalls
+                        && (totals[1] * 100 >= failureRateThreshold * totals[0]
+                            || totals[2] * 100 >= slowCallRateThreshold * totals[0])) {
+                    open();
+                }
+            }
+            case OPEN -> {
+                // a call that started before the circuit opened; its outcome no longer matters
+            }
+        }
+        return state != before ? state : null;
+    }
+
+    /** Time until an open circuit lets trial calls through, zero otherwise. */
+    synchronized Duration retryAfter() {
+        if (state != State.OPEN) {
+            return Duration.ZERO;
+        }
+        return Duration.ofNanos(Math.max(0, openUntil - nanoClock.getAsLong()));
+    }
+
+    synchronized Snapshot snapshot() {
+        final int[] totals = totals();
+        return new Snapshot(state, totals[0], totals[1], totals[2]);
+    }
+
+    private void open() {
+        state = State.OPEN;
+        openUntil = nanoClock.getAsLong() + openNanos;
+    }
+
+    private void close() {
+        state = State.CLOSED;
+        Arrays.fill(bucketSecond, Long.MIN_VALUE);
+    }
+
+    private void record(final boolean success, final boolean slow) {
+        final long second = nanoClock.getAsLong() / NANOS_PER_SECOND;
+        final int index = (int) Math.floorMod(second, (long) bucketSecond.length);
+        if (bucketSecond[index] != second) {
+            bucketSecond[index] = second;
+            bucketCalls[index] = 0;
+            bucketFailures[index] = 0;
+            bucketSlow[index] = 0;
+        }
+        bucketCalls[index]++;
+        if (!success) {
+            bucketFailures[index]++;
+        }
+        if (slow) {
+            bucketSlow[index]++;
+        }
+    }
+
+    private int[] totals() {
+        final long now = nanoClock.getAsLong() / NANOS_PER_SECOND;
+        final int[] totals = new int[3];
+        for (int i = 0; i < bucketSecond.length; i++) {
+            if (bucketSecond[i] > now - bucketSecond.length) {
+                totals[0] += bucketCalls[i];
+                totals[1] += bucketFailures[i];
+                totals[2] += bucketSlow[i];
+            }
+        }
+        return totals;
+    }
+
+    record Snapshot(State state, int calls, int failures, int slowCalls) {
+    }
+}
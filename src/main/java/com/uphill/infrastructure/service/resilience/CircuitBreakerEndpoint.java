@@ -0,0 +1,21 @@
+package com.uphill.infrastructure.service.resilience;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+@Component
+@Endpoint(id = "circuitbreakers")
+@RequiredArgsConstructor
+public class CircuitBreakerEndpoint {
+
+    private final DownstreamRegistry downstreamRegistry;
+
+    @ReadOperation
+    public Map<String, Map<String, Object>> circuitBreakers() {
+        return downstreamRegistry.describe();
+    }
+}
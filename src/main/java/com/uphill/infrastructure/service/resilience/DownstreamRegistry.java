@@ -0,0 +1,99 @@
+package com.uphill.infrastructure.service.resilience;
+
+import com.uphill.core.exception.DownstreamUnavailableException;
+import com.uphill.infrastructure.config.DownstreamResilienceProperties;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * One circuit breaker and one bulkhead per external downstream. Calls that are turned away
+ * fail immediately with {@link DownstreamUnavailableException} and never reach the network.
+ */
+@Component
+@RequiredArgsConstructor
+public class DownstreamRegistry {
+
+    private static final Logger log = LoggerFactory.getLogger(DownstreamRegistry.class);
+
+    private final DownstreamResilienceProperties properties;
+    private final Map<String, Downstream> downstreams = new ConcurrentHashMap<>();
+
+    /**
+     * Runs {@code call} if the downstream's circuit and bulkhead allow it. {@code isFailure}
+     * decides which exceptions count against the circuit; successful results always count
+     * as successes.
+     */
+    public <T> CompletableFuture<T> execute(final String name, final Supplier<CompletableFuture<T>> call,
+                                            final Predicate<Throwable> isFailure) {
+        final Downstream downstream = downstreams.computeIfAbsent(name, this::create);
+        if (!downstream.bulkhead.tryAcquire()) {
+            return CompletableFuture.failedFuture(new DownstreamUnavailableException(
+                    name, Duration.ofMillis(properties.getBulkheadRetryAfterMs()), "bulkhead full"));
+        }
+        if (!downstream.circuit.tryAcquire()) {
+            downstream.bulkhead.release();
+            return CompletableFuture.failedFuture(new DownstreamUnavailableException(
+                    name, downstream.circuit.retryAfter(), "circuit open"));
+        }
+
+        final long start = System.nanoTime();
+        CompletableFuture<T> result;
+        try {
+            result = call.get();
+        } catch (RuntimeException ex) {
+            result = CompletableFuture.failedFuture(ex);
+        }
+        return result.whenComplete((value, ex) -> {
+            downstream.bulkhead.release();
+            final CircuitBreaker.State changed =
+                    downstream.circuit.onResult(System.nanoTime() - start, ex == null || !isFailure.test(ex));
+            if (changed != null) {
+                log.warn("Circuit for {} is now {}", name, changed);
+            }
+        });
+    }
+
+    /** Current state of every downstream called so far, by name. */
+    public Map<String, Map<String, Object>> describe() {
+        final Map<String, Map<String, Object>> result = new TreeMap<>();
+        downstreams.forEach((name, downstream) -> {
+            final CircuitBreaker.Snapshot snapshot = downstream.circuit.snapshot();
+            result.put(name, Map.of(
+                    "state", snapshot.state().name(),
+                    "calls", snapshot.calls(),
+                    "failures", snapshot.failures(),
+                    "slowCalls", snapshot.slowCalls(),
+                    "retryAfterMs", downstream.circuit.retryAfter().toMillis(),
+                    "inFlight", properties.getMaxConcurrentCalls() - downstream.bulkhead.availablePermits(),
+                    "maxConcurrentCalls", properties.getMaxConcurrentCalls()));
+        });
+        return result;
+    }
+
+    private Downstream create(final String name) {
+        final CircuitBreaker circuit = new CircuitBreaker(
+                properties.getWindowSeconds(),
+                properties.getMinimumCalls(),
+                properties.getFailureRateThreshold(),
+                properties.getSlowCallRateThreshold(),
+                Duration.ofMillis(properties.getSlowCallDurationMs()),
+                Duration.ofMillis(properties.getOpenDurationMs()),
+                properties.getHalfOpenCalls(),
+                System::nanoTime);
+        return new Downstream(circuit, new Semaphore(properties.getMaxConcurrentCalls()));
+    }
+
+    private record Downstream(CircuitBreaker circuit, Semaphore bulkhead) {
+    }
+}
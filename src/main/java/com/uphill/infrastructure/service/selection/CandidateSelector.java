@@ -0,0 +1,111 @@
+package com.uphill.infrastructure.service.selection;
+
+import com.uphill.core.domain.Doctor;
+import com.uphill.core.domain.Room;
+import com.uphill.infrastructure.persistence.Appointment.AppointmentRepository;
+import com.uphill.infrastructure.persistence.Appointment.BookedSlotView;
+import com.uphill.infrastructure.service.availability.AvailabilityIndex;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+@Component
+@RequiredArgsConstructor
+public class CandidateSelector {
+
+    private static final long HASH_MULTIPLIER = 0x9E3779B97F4A7C15L;
+
+    private final AvailabilityIndex availabilityIndex;
+    private final AppointmentRepository appointmentRepository;
+    private final AtomicLong roundRobinCounter = new AtomicLong();
+
+    @Value("${appointment.selection.strategy:RANDOM}")
+    private SelectionStrategy strategy;
+
+    public Doctor selectDoctor(final List<Doctor> candidates, final LocalDate date, final Long patientId) {
+        return select(candidates, patientId, Doctor::getId, () -> availabilityIndex.isEnabled()
+                ? availabilityIndex.doctorBookings(date)
+                : countBookings(date, BookedSlotView::getDoctorId));
+    }
+
+    public Room selectRoom(final List<Room> candidates, final LocalDate date, final Long patientId) {
+        return select(candidates, patientId, Room::getId, () -> availabilityIndex.isEnabled()
+                ? availabilityIndex.roomBookings(date)
+                : countBookings(date, BookedSlotView::getRoomId));
+    }
+
+    /**
+     * The same strategy expressed as the ordering single-statement allocation applies to the free
+     * doctors and rooms it locks: optionally by the day's bookings, then by a seeded hash of the
+     * id (a random seed, the patient id or the round-robin counter), then by id.
+     */
+    public AllocationOrder allocationOrder(final Long patientId) {
+        return switch (strategy) {
+            case LOWEST_ID -> new AllocationOrder(false, false, 0L);
+            case RANDOM -> new AllocationOrder(false, true, ThreadLocalRandom.current().nextLong());
+            case PATIENT_HASH -> new AllocationOrder(false, true,
+                    patientId != null ? patientId * HASH_MULTIPLIER : ThreadLocalRandom.current().nextLong());
+            case LEAST_LOADED -> new AllocationOrder(true, true, ThreadLocalRandom.current().nextLong());
+            case ROUND_ROBIN -> new AllocationOrder(false, true, roundRobinCounter.getAndIncrement());
+        };
+    }
+
+    public record AllocationOrder(boolean leastLoaded, boolean shuffled, long seed) {
+    }
+
+    private <T> T select(final List<T> candidates, final Long patientId, final Function<T, Long> id,
+                         final Supplier<Map<Long, Integer>> dailyLoads) {
+        if (candidates.size() == 1) {
+            return candidates.get(0);
+        }
+        return switch (strategy) {
+            case LOWEST_ID -> candidates.get(0);
+            case RANDOM -> random(candidates);
+            case PATIENT_HASH -> patientId == null
+                    ? random(candidates)
+                    : candidates.get(Math.floorMod(Long.hashCode(patientId * HASH_MULTIPLIER), candidates.size()));
+            case LEAST_LOADED -> random(leastLoaded(candidates, id, dailyLoads.get()));
+            case ROUND_ROBIN -> candidates.get((int) Math.floorMod(roundRobinCounter.getAndIncrement(), (long) candidates.size()));
+        };
+    }
+
+    // Ties are broken randomly, otherwise every request of a burst would pick the same least-loaded row.
+    private <T> List<T> leastLoaded(final List<T> candidates, final Function<T, Long> id, final Map<Long, Integer> dailyLoads) {
+        final List<T> least = new ArrayList<>();
+        int minimum = Integer.MAX_VALUE;
+        for (final T candidate : candidates) {
+            final int load = dailyLoads.getOrDefault(id.apply(candidate), 0);
+            if (load < minimum) {
+                minimum = load;
+                least.clear();
+            }
+            if (load == minimum) {
+                least.add(candidate);
+            }
+        }
+        return least;
+    }
+
+    // Without the index the day's bookings are counted from one query instead.
+    private Map<Long, Integer> countBookings(final LocalDate date, final Function<BookedSlotView, Long> id) {
+        final Map<Long, Integer> bookings = new HashMap<>();
+        for (final BookedSlotView booked : appointmentRepository.findBookedSlotsByDate(date)) {
+            bookings.merge(id.apply(booked), 1, Integer::sum);
+        }
+        return bookings;
+    }
+
+    private <T> T random(final List<T> candidates) {
+        return candidates.get(ThreadLocalRandom.current().nextInt(candidates.size()));
+    }
+}
@@ -0,0 +1,14 @@
+package com.uphill.infrastructure.service.selection;
+
+/**
+ * How a doctor or room is picked from the free candidates of a slot.
+ * Anything other than {@link #LOWEST_ID} spreads concurrent bookings for the same slot
+ * over different rows instead of having them all race for the first one.
+ */
+public enum SelectionStrategy {
+    LOWEST_ID,
+    RANDOM,
+    PATIENT_HASH,
+    LEAST_LOADED,
+    ROUND_ROBIN
+}
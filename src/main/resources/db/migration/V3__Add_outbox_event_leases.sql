@@ -0,0 +1,7 @@
+-- Lease-based outbox claiming: a worker marks a batch IN_FLIGHT under its node id and
+-- commits straight away, performs the downstream calls outside any transaction and writes the
+-- outcome with an update fenced on claimed_by. Expired leases are put back to PENDING.
+ALTER TABLE outbox_events ADD COLUMN claimed_by TEXT NULL;
+ALTER TABLE outbox_events ADD COLUMN lease_until TIMESTAMP NULL;
+
+CREATE INDEX idx_outbox_events_in_flight_lease ON outbox_events(lease_until) WHERE status = 'IN_FLIGHT';
@@ -0,0 +1,18 @@
+-- Alternative outbox format (outbox.format=SAGA): one row per appointment instead of one row per
+-- downstream step. The payload is stored once; required_steps and completed_steps are bitmasks
+-- over the saga steps and step_retries holds the failed attempts of each step by step index.
+CREATE TABLE appointment_sagas (
+  appointment_id BIGINT PRIMARY KEY REFERENCES appointments(id) ON DELETE CASCADE,
+  payload JSONB NOT NULL,
+  status TEXT NOT NULL DEFAULT 'PENDING',
+  required_steps INTEGER NOT NULL,
+  completed_steps INTEGER NOT NULL DEFAULT 0,
+  step_retries INTEGER[] NOT NULL,
+  next_retry_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+  claimed_by TEXT NULL,
+  lease_until TIMESTAMP NULL,
+  created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+CREATE INDEX idx_appointment_sagas_pending ON appointment_sagas(next_retry_at) WHERE status = 'PENDING';
+CREATE INDEX idx_appointment_sagas_in_flight_lease ON appointment_sagas(lease_until) WHERE status = 'IN_FLIGHT';
@@ -0,0 +1,16 @@
+-- Partitioned outbox processing: outbox work hashes into partitions by aggregate id
+-- (mod(aggregate_id, partition count)) and every partition is leased to one live node, which is
+-- the only one allowed to claim its work. Nodes announce themselves with heartbeats so each can
+-- size its fair share; leases of nodes that stop renewing expire and are taken over.
+CREATE TABLE outbox_nodes (
+  node_id TEXT PRIMARY KEY,
+  heartbeat_at TIMESTAMP NOT NULL
+);
+
+CREATE TABLE outbox_partitions (
+  partition_no INTEGER PRIMARY KEY,
+  owner TEXT NULL,
+  lease_until TIMESTAMP NULL
+);
+
+CREATE INDEX idx_outbox_partitions_owner ON outbox_partitions(owner);
@@ -0,0 +1,60 @@
+-- outbox_events becomes a table range-partitioned by created_at: one partition per day, created
+-- ahead of time by the retention job, which also drops (or moves to outbox_events_archive) whole
+-- partitions once they are past retention. Existing rows go into a single history partition.
+--
+-- The partition key has to be part of every unique constraint, so the primary key becomes
+-- (id, created_at) and UNIQUE (aggregate_id, event_type, status) is dropped. Of the old indexes
+-- only those the queue needs are kept, as partial indexes over live rows where possible.
+ALTER TABLE outbox_events RENAME TO outbox_events_legacy;
+ALTER TABLE outbox_events_legacy RENAME CONSTRAINT outbox_events_pkey TO outbox_events_legacy_pkey;
+ALTER SEQUENCE outbox_events_id_seq OWNED BY NONE;
+
+CREATE TABLE outbox_events (
+  id BIGINT NOT NULL DEFAULT nextval('outbox_events_id_seq'),
+  aggregate_id BIGINT NOT NULL,
+  aggregate_type TEXT NOT NULL,
+  event_type TEXT NOT NULL,
+  payload JSONB NOT NULL,
+  status TEXT NOT NULL DEFAULT 'PENDING',
+  retry_count INT NOT NULL DEFAULT 0,
+  next_retry_at TIMESTAMP NULL,
+  created_at TIMESTAMP NOT NULL DEFAULT now(),
+  claimed_by TEXT NULL,
+  lease_until TIMESTAMP NULL,
+  PRIMARY KEY (id, created_at)
+) PARTITION BY RANGE (created_at);
+
+ALTER SEQUENCE outbox_events_id_seq OWNED BY outbox_events.id;
+
+-- There is no default partition: Postgres refuses DETACH PARTITION ... CONCURRENTLY, which the
+-- retention job retires partitions with, while one exists. The job creates each day's partition
+-- days ahead instead; here today and the next three days are created, plus any later day an
+-- existing row already falls on.
+DO $$
+DECLARE
+  today DATE := CURRENT_DATE;
+  day DATE;
+BEGIN
+  EXECUTE format('CREATE TABLE outbox_events_history PARTITION OF outbox_events FOR VALUES FROM (MINVALUE) TO (%L)',
+                 today::timestamp);
+  FOR day IN SELECT today + i FROM generate_series(0, 3) AS i
+             UNION SELECT DISTINCT created_at::date FROM outbox_events_legacy WHERE created_at >= today LOOP
+    EXECUTE format('CREATE TABLE %I PARTITION OF outbox_events FOR VALUES FROM (%L) TO (%L)',
+                   'outbox_events_p' || to_char(day, 'YYYYMMDD'), day::timestamp, (day + 1)::timestamp);
+  END LOOP;
+END $$;
+
+INSERT INTO outbox_events (id, aggregate_id, aggregate_type, event_type, payload, status, retry_count,
+                           next_retry_at, created_at, claimed_by, lease_until)
+SELECT id, aggregate_id, aggregate_type, event_type, payload, status, retry_count,
+       next_retry_at, created_at, claimed_by, lease_until
+FROM outbox_events_legacy;
+
+DROP TABLE outbox_events_legacy;
+
+CREATE INDEX idx_outbox_events_pending ON outbox_events(created_at) WHERE status = 'PENDING';
+CREATE INDEX idx_outbox_events_in_flight_lease ON outbox_events(lease_until) WHERE status = 'IN_FLIGHT';
+CREATE INDEX idx_outbox_events_aggregate ON outbox_events(aggregate_type, aggregate_id);
+
+-- Partitions retired in ARCHIVE mode are re-attached here instead of being dropped.
+CREATE TABLE outbox_events_archive (LIKE outbox_events INCLUDING DEFAULTS) PARTITION BY RANGE (created_at);
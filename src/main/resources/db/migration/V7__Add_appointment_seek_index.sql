@@ -0,0 +1,12 @@
+-- Keyset paging over appointments walks (date DESC, start time, id). The start time lives on
+-- time_slots, so it is copied onto each appointment (an appointment never changes slot) and one
+-- index serves both the ordering and the seek predicate of every page.
+ALTER TABLE appointments ADD COLUMN start_time TIME;
+
+UPDATE appointments a SET start_time = t.start_time
+FROM time_slots t
+WHERE t.id = a.time_slot_id;
+
+ALTER TABLE appointments ALTER COLUMN start_time SET NOT NULL;
+
+CREATE INDEX idx_appointments_date_start_time_id ON appointments(date DESC, start_time, id);
@@ -0,0 +1,13 @@
+-- The listing only emits the predicates of the filters actually given, so each common filter gets
+-- an index led by its column and continued by the listing order (date DESC, start time, id): the
+-- filtered rows come out already sorted and a keyset page stops after reading just that page.
+-- The single-column indexes they replace are prefixes of the new ones.
+CREATE INDEX idx_appointments_doctor_listing ON appointments(doctor_id, date DESC, start_time, id);
+CREATE INDEX idx_appointments_room_listing ON appointments(room_id, date DESC, start_time, id);
+CREATE INDEX idx_appointments_patient_listing ON appointments(patient_id, date DESC, start_time, id);
+CREATE INDEX idx_appointments_status_listing ON appointments(status, date DESC, start_time, id);
+
+DROP INDEX idx_appointments_doctor_id;
+DROP INDEX idx_appointments_room_id;
+DROP INDEX idx_appointments_patient_id;
+DROP INDEX idx_appointments_status_date;
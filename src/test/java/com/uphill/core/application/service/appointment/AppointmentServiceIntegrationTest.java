@@ -2,7 +2,10 @@ package com.uphill.core.application.service.appointment;
 
 import com.uphill.core.application.service.activity.ActivityLogPersistenceService;
 import com.uphill.core.domain.Appointment;
+import com.uphill.core.domain.AppointmentCursor;
 import com.uphill.core.domain.AppointmentStatus;
+import com.uphill.core.domain.AppointmentSummary;
+import com.uphill.core.domain.CursorPage;
 import com.uphill.core.domain.Doctor;
 import com.uphill.core.domain.Patient;
 import com.uphill.core.domain.Room;
@@ -12,12 +15,18 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionOperations;
 
 import java.time.LocalDate;
 import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
@@ -39,6 +48,9 @@ class AppointmentServiceIntegrationTest {
     @Mock
     private ActivityLogPersistenceService activityLogPersistenceService;
 
+    @Spy
+    private TransactionOperations transactionOperations = TransactionOperations.withoutTransaction();
+
     @InjectMocks
     private AppointmentService appointmentService;
 
@@ -55,8 +67,8 @@ class AppointmentServiceIntegrationTest {
         savedAppointment.setId(1L);
 
         when(timeSlotService.findByTimeRange(any(LocalTime.class), any(LocalTime.class))).thenReturn(timeSlot);
-        when(doctorService.findAvailableDoctor(any(), any(), any())).thenReturn(doctor);
-        when(roomService.findAvailableRoom(any(), any())).thenReturn(room);
+        when(doctorService.findAvailableDoctor(any(), any(), any(), any(), any())).thenReturn(doctor);
+        when(roomService.findAvailableRoom(any(), any(), any(), any())).thenReturn(room);
         when(appointmentPersistenceService.saveAppointment(any())).thenReturn(savedAppointment);
 
         // When
@@ -74,6 +86,54 @@ class AppointmentServiceIntegrationTest {
         verify(outboxEventService, times(1)).createEmailConfirmationEvent(any());
     }
 
+    @Test
+    void findAppointmentsByCursor_PagingThroughNextCursor_ShouldReturnEveryRowOnce() {
+        // Given - rows in listing order, several sharing date and start time
+        final List<AppointmentSummary> listing = new ArrayList<>();
+        long id = 1;
+        for (final LocalDate date : List.of(LocalDate.of(2024, 1, 16), LocalDate.of(2024, 1, 15))) {
+            for (final LocalTime startTime : List.of(LocalTime.of(9, 0), LocalTime.of(10, 0))) {
+                for (int i = 0; i < 3; i++) {
+                    listing.add(new AppointmentSummary(id++, "Dr. Test", "Patient", "Room " + i, date,
+                            startTime, startTime.plusHours(1), AppointmentStatus.BOOKED));
+                }
+            }
+        }
+        when(appointmentPersistenceService.findAppointmentsByCursor(any(), any(), any(), any(), any(), any(), any(), anyInt()))
+                .thenAnswer(invocation -> page(listing, invocation.getArgument(6), invocation.getArgument(7)));
+
+        // When
+        final List<Long> seen = new ArrayList<>();
+        String cursor = null;
+        do {
+            final CursorPage<AppointmentSummary> page = appointmentService.findAppointmentsByCursor(
+                    null, null, null, null, null, null, cursor, 5);
+            page.getContent().forEach(row -> seen.add(row.getId()));
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+
+        // Then - no gaps, no duplicates
+        assertEquals(listing.stream().map(AppointmentSummary::getId).toList(), seen);
+    }
+
+    // Mirrors the persistence seek: rows strictly after the cursor, one extra to detect a next page.
+    private static CursorPage<AppointmentSummary> page(final List<AppointmentSummary> listing,
+                                                       final AppointmentCursor after, final int size) {
+        final List<AppointmentSummary> rows = listing.stream()
+                .filter(row -> after == null
+                        || row.getDate().isBefore(after.getDate())
+                        || row.getDate().equals(after.getDate()) && (row.getStartTime().isAfter(after.getStartTime())
+                            || row.getStartTime().equals(after.getStartTime()) && row.getId() > after.getId()))
+                .limit(size + 1L)
+                .toList();
+        if (rows.size() <= size) {
+            return new CursorPage<>(rows, null);
+        }
+        final AppointmentSummary last = rows.get(size - 1);
+        return new CursorPage<>(rows.subList(0, size),
+                new AppointmentCursor(last.getDate(), last.getStartTime(), last.getId()).encode());
+    }
+
     private Appointment createTestAppointment() {
         return Appointment.builder()
                 .patient(Patient.builder().id(1L).build())
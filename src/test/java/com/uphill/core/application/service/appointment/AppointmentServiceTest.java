@@ -8,17 +8,27 @@ import com.uphill.core.domain.Patient;
 import com.uphill.core.domain.Room;
 import com.uphill.core.domain.Specialty;
 import com.uphill.core.domain.TimeSlot;
+import com.uphill.core.exception.ResourceAlreadyBookedException;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionOperations;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.test.util.ReflectionTestUtils;
 
 import java.time.LocalDate;
 import java.time.LocalTime;
+import java.util.Optional;
+import java.util.Set;
 
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -39,6 +49,9 @@ class AppointmentServiceTest {
     @Mock
     private ActivityLogPersistenceService activityLogPersistenceService;
 
+    @Spy
+    private TransactionOperations transactionOperations = TransactionOperations.withoutTransaction();
+
     @InjectMocks
     private AppointmentService appointmentService;
 
@@ -55,8 +68,8 @@ class AppointmentServiceTest {
         savedAppointment.setId(1L);
 
         when(timeSlotService.findByTimeRange(any(LocalTime.class), any(LocalTime.class))).thenReturn(timeSlot);
-        when(doctorService.findAvailableDoctor(any(), any(), any())).thenReturn(doctor);
-        when(roomService.findAvailableRoom(any(), any())).thenReturn(room);
+        when(doctorService.findAvailableDoctor(any(), any(), any(), any(), any())).thenReturn(doctor);
+        when(roomService.findAvailableRoom(any(), any(), any(), any())).thenReturn(room);
         when(appointmentPersistenceService.saveAppointment(any())).thenReturn(savedAppointment);
 
         // When
@@ -72,6 +85,92 @@ class AppointmentServiceTest {
         verify(outboxEventService, times(1)).createEmailConfirmationEvent(any());
     }
 
+    @Test
+    void createAppointment_WithSingleStatementAllocation_ShouldSkipPerResourceLookups() {
+        // Given
+        ReflectionTestUtils.setField(appointmentService, "singleStatementAllocation", true);
+        Appointment appointment = createTestAppointment();
+        Appointment allocated = createTestAppointment();
+        allocated.setId(1L);
+        allocated.setRoom(createTestRoom());
+
+        when(timeSlotService.findByTimeRange(any(LocalTime.class), any(LocalTime.class))).thenReturn(createTestTimeSlot());
+        when(appointmentPersistenceService.allocateAppointment(any())).thenReturn(Optional.of(allocated));
+
+        // When
+        appointmentService.createAppointment(appointment, "09:00-10:00");
+
+        // Then
+        verify(doctorService, never()).findAvailableDoctor(any(), any(), any(), any(), any());
+        verify(roomService, never()).findAvailableRoom(any(), any(), any(), any());
+        verify(appointmentPersistenceService, never()).saveAppointment(any());
+        verify(activityLogPersistenceService, times(1)).save(argThat(log -> "DOCTOR_SELECTED".equals(log.getAction())));
+        verify(outboxEventService, times(1)).createEmailConfirmationEvent(allocated);
+    }
+
+    @Test
+    void createAppointment_WhenSingleStatementAllocationFindsNothing_ShouldFallBack() {
+        // Given
+        ReflectionTestUtils.setField(appointmentService, "singleStatementAllocation", true);
+        Appointment savedAppointment = createTestAppointment();
+        savedAppointment.setId(1L);
+
+        when(timeSlotService.findByTimeRange(any(LocalTime.class), any(LocalTime.class))).thenReturn(createTestTimeSlot());
+        when(appointmentPersistenceService.allocateAppointment(any())).thenReturn(Optional.empty());
+        when(doctorService.findAvailableDoctor(any(), any(), any(), any(), any())).thenReturn(createTestDoctor());
+        when(roomService.findAvailableRoom(any(), any(), any(), any())).thenReturn(createTestRoom());
+        when(appointmentPersistenceService.saveAppointment(any())).thenReturn(savedAppointment);
+
+        // When
+        appointmentService.createAppointment(createTestAppointment(), "09:00-10:00");
+
+        // Then
+        verify(appointmentPersistenceService, times(1)).saveAppointment(any());
+        verify(outboxEventService, times(1)).createEmailConfirmationEvent(savedAppointment);
+    }
+
+    @Test
+    void createAppointment_WhenChosenDoctorIsTakenConcurrently_ShouldRetryWithOtherCandidates() {
+        // Given
+        ReflectionTestUtils.setField(appointmentService, "maxBookingAttempts", 3);
+        Doctor otherDoctor = Doctor.builder().id(2L).name("Dr. Other").specialty(Specialty.builder().id(1L).build()).build();
+        Appointment savedAppointment = createTestAppointment();
+        savedAppointment.setId(1L);
+
+        when(timeSlotService.findByTimeRange(any(LocalTime.class), any(LocalTime.class))).thenReturn(createTestTimeSlot());
+        when(doctorService.findAvailableDoctor(any(), any(), any(), any(), eq(Set.of()))).thenReturn(createTestDoctor());
+        when(doctorService.findAvailableDoctor(any(), any(), any(), any(), eq(Set.of(1L)))).thenReturn(otherDoctor);
+        when(roomService.findAvailableRoom(any(), any(), any(), any())).thenReturn(createTestRoom());
+        when(appointmentPersistenceService.saveAppointment(any()))
+                .thenThrow(new ResourceAlreadyBookedException(ResourceAlreadyBookedException.Resource.DOCTOR, null))
+                .thenReturn(savedAppointment);
+
+        // When
+        appointmentService.createAppointment(createTestAppointment(), "09:00-10:00");
+
+        // Then
+        verify(appointmentPersistenceService, times(2)).saveAppointment(any());
+        verify(transactionOperations, times(2)).execute(any());
+        verify(roomService, times(2)).findAvailableRoom(any(), any(), any(), eq(Set.of()));
+        verify(outboxEventService, times(1)).createEmailConfirmationEvent(savedAppointment);
+    }
+
+    @Test
+    void createAppointment_WhenIntegrityErrorIsNotARace_ShouldNotRetry() {
+        // Given
+        ReflectionTestUtils.setField(appointmentService, "maxBookingAttempts", 3);
+        when(timeSlotService.findByTimeRange(any(LocalTime.class), any(LocalTime.class))).thenReturn(createTestTimeSlot());
+        when(doctorService.findAvailableDoctor(any(), any(), any(), any(), any())).thenReturn(createTestDoctor());
+        when(roomService.findAvailableRoom(any(), any(), any(), any())).thenReturn(createTestRoom());
+        when(appointmentPersistenceService.saveAppointment(any()))
+                .thenThrow(new DataIntegrityViolationException("violates foreign key constraint appointments_patient_id_fkey"));
+
+        // When / Then
+        assertThrows(DataIntegrityViolationException.class,
+                () -> appointmentService.createAppointment(createTestAppointment(), "09:00-10:00"));
+        verify(transactionOperations, times(1)).execute(any());
+    }
+
     private Appointment createTestAppointment() {
         return Appointment.builder()
                 .patient(Patient.builder().id(1L).build())
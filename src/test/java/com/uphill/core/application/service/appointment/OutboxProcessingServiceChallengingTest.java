@@ -1,24 +1,34 @@
 package com.uphill.core.application.service.appointment;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import com.uphill.core.application.service.activity.ActivityLogPersistenceService;
 import com.uphill.core.domain.AppointmentEventPayload;
 import com.uphill.core.domain.AppointmentStatus;
 import com.uphill.core.domain.OutboxEvent;
+import com.uphill.core.exception.DownstreamUnavailableException;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.ArgumentMatchers.argThat;
-import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.lenient;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
@@ -40,33 +50,49 @@ class OutboxProcessingServiceChallengingTest {
 	@Mock
 	private ActivityLogPersistenceService activityLogPersistenceService;
 	@Mock
-	private ObjectMapper objectMapper;
+	private OutboxRetryScheduler outboxRetryScheduler;
+	@Mock
+	private OutboxDispatcher outboxDispatcher;
 
 	@InjectMocks
 	private OutboxProcessingService outboxProcessingService;
 
+	@BeforeEach
+	void setUp() {
+		lenient().when(outboxDispatcher.dispatch(any(), any(), any())).thenAnswer(invocation -> {
+			final List<OutboxEvent> events = invocation.getArgument(0);
+			final Function<OutboxEvent, CompletableFuture<Void>> handler = invocation.getArgument(2);
+			events.forEach(event -> handler.apply(event).join());
+			return CompletableFuture.completedFuture(null);
+		});
+		lenient().when(outboxEventPersistenceService.markProcessed(any())).thenAnswer(invocation -> idsOf(invocation.getArgument(0)));
+		lenient().when(outboxEventPersistenceService.scheduleRetry(any(), any())).thenAnswer(invocation -> idsOf(invocation.getArgument(0)));
+		lenient().when(outboxEventPersistenceService.markFailed(any())).thenAnswer(invocation -> idsOf(invocation.getArgument(0)));
+	}
+
 	@Test
-	void pollAndProcess_InvalidPayload_ShouldRetryAndLog() throws Exception {
+	void pollAndProcess_MissingPayload_ShouldRetryAndLog() throws Exception {
 		OutboxEvent badEvent = OutboxEvent.builder()
 				.id(1L)
 				.aggregateId(100L)
 				.eventType("DOCTOR_CALENDAR_UPDATE")
 				.status("PENDING")
 				.retryCount(0)
-				.payload("{invalid}")
+				.payload(null)
 				.nextRetryAt(LocalDateTime.now().minusMinutes(1))
 				.build();
 
-		when(outboxEventPersistenceService.findPendingDueEvents(any(LocalDateTime.class)))
+		when(outboxEventPersistenceService.claimDueEvents(any(LocalDateTime.class), anyInt(), any(Duration.class)))
 				.thenReturn(List.of(badEvent));
-        when(objectMapper.readValue(any(String.class), eq(AppointmentEventPayload.class)))
-				.thenThrow(new JsonProcessingException("bad json"){});
 
 		outboxProcessingService.pollAndProcess();
 
-		verify(outboxEventPersistenceService, times(1)).save(argThat(e -> e.getRetryCount() == 1));
-		verify(activityLogPersistenceService, times(1)).save(argThat(log ->
-				"OUTBOX_EVENT_RETRY".equals(log.getAction()) && log.getUserId() == 0L));
+		verify(outboxEventPersistenceService, times(1)).scheduleRetry(eq(Set.of(1L)),
+				argThat(at -> at.isAfter(LocalDateTime.now().plusSeconds(50))));
+		verify(outboxRetryScheduler).scheduleEvent(eq(1L), any());
+		verify(activityLogPersistenceService, times(1)).saveAll(argThat(logs -> logs.size() == 2
+				&& "OUTBOX_EVENT_SAVED".equals(logs.get(0).getAction()) && logs.get(0).getDescription().contains("status PENDING")
+				&& "OUTBOX_EVENT_RETRY".equals(logs.get(1).getAction()) && logs.get(1).getUserId() == 0L));
 		verify(appointmentPersistenceService, never()).updateAppointmentStatus(any(), any());
 	}
 
@@ -78,24 +104,71 @@ class OutboxProcessingServiceChallengingTest {
 				.eventType("ROOM_RESERVATION")
 				.status("PENDING")
 				.retryCount(4)
-				.payload("{}")
+				.payload(new AppointmentEventPayload())
 				.nextRetryAt(LocalDateTime.now().minusMinutes(1))
 				.build();
 
-		when(outboxEventPersistenceService.findPendingDueEvents(any(LocalDateTime.class)))
+		when(outboxEventPersistenceService.claimDueEvents(any(LocalDateTime.class), anyInt(), any(Duration.class)))
 				.thenReturn(List.of(event));
-        when(objectMapper.readValue(any(String.class), eq(AppointmentEventPayload.class)))
-                .thenReturn(null);
-		when(roomReservationService.reserveRoom(any())).thenReturn(false);
+		when(roomReservationService.reserveRoom(any())).thenReturn(CompletableFuture.completedFuture(false));
 
 		outboxProcessingService.pollAndProcess();
 
-		verify(outboxEventPersistenceService, atLeastOnce()).save(argThat(e -> "FAILED".equals(e.getStatus())));
-		verify(activityLogPersistenceService, times(1)).save(argThat(log ->
-				"OUTBOX_EVENT_FAILED".equals(log.getAction())));
+		verify(outboxEventPersistenceService, times(1)).markFailed(Set.of(2L));
+		verify(outboxEventPersistenceService, never()).scheduleRetry(any(), any());
+		verify(activityLogPersistenceService, times(1)).saveAll(argThat(logs -> logs.size() == 2
+				&& "OUTBOX_EVENT_SAVED".equals(logs.get(0).getAction()) && logs.get(0).getDescription().contains("status FAILED")
+				&& "OUTBOX_EVENT_FAILED".equals(logs.get(1).getAction())));
 		verify(appointmentPersistenceService, times(1)).updateAppointmentStatus(200L, AppointmentStatus.CANCELLED);
 	}
 
+	@Test
+	void pollAndProcess_MaxRetries_ShouldFailTheHeldConfirmationEmail() {
+		OutboxEvent room = OutboxEvent.builder().id(11L).aggregateId(1100L).eventType("ROOM_RESERVATION")
+				.status("IN_FLIGHT").retryCount(4).payload(new AppointmentEventPayload()).build();
+		OutboxEvent email = OutboxEvent.builder().id(12L).aggregateId(1100L).eventType("SEND_CONFIRMATION_EMAIL")
+				.status("FAILED").retryCount(0).payload(new AppointmentEventPayload()).build();
+
+		when(outboxEventPersistenceService.claimDueEvents(any(LocalDateTime.class), anyInt(), any(Duration.class)))
+				.thenReturn(List.of(room));
+		when(roomReservationService.reserveRoom(any())).thenReturn(CompletableFuture.completedFuture(false));
+		when(outboxEventPersistenceService.failPendingEvents(Set.of(1100L))).thenReturn(List.of(email));
+
+		outboxProcessingService.pollAndProcess();
+
+		verify(activityLogPersistenceService, times(1)).saveAll(argThat(logs -> logs.size() == 4
+				&& logs.get(2).getDescription().contains("Outbox event 12 of type SEND_CONFIRMATION_EMAIL saved with status FAILED")
+				&& "OUTBOX_EVENT_CANCELLED".equals(logs.get(3).getAction())));
+		verify(appointmentPersistenceService, times(1)).updateAppointmentStatus(1100L, AppointmentStatus.CANCELLED);
+		verify(emailNotificationService, never()).sendEmail(any());
+	}
+
+	@Test
+	void dispatchNow_CalendarAndRoomProcessed_ShouldReleaseTheHeldEmail() {
+		OutboxEvent calendar = OutboxEvent.builder().id(13L).aggregateId(1300L).eventType("DOCTOR_CALENDAR_UPDATE")
+				.status("IN_FLIGHT").retryCount(0).payload(new AppointmentEventPayload()).build();
+		OutboxEvent room = OutboxEvent.builder().id(14L).aggregateId(1300L).eventType("ROOM_RESERVATION")
+				.status("IN_FLIGHT").retryCount(0).payload(new AppointmentEventPayload()).build();
+		OutboxEvent email = OutboxEvent.builder().id(15L).aggregateId(1300L).eventType("SEND_CONFIRMATION_EMAIL")
+				.status("IN_FLIGHT").retryCount(0).payload(new AppointmentEventPayload()).build();
+
+		// The email is not claimable with the other two; it is claimed once they are processed.
+		when(outboxEventPersistenceService.claimPendingEvents(eq(List.of(13L, 14L, 15L)), any(Duration.class)))
+				.thenReturn(List.of(calendar, room));
+		when(outboxEventPersistenceService.claimPendingEventsOf(eq(Set.of(1300L)), any(Duration.class)))
+				.thenReturn(List.of(email));
+		when(doctorCalendarService.updateDoctorCalendar(any())).thenReturn(CompletableFuture.completedFuture(true));
+		when(roomReservationService.reserveRoom(any())).thenReturn(CompletableFuture.completedFuture(true));
+		when(emailNotificationService.sendEmail(any())).thenReturn(CompletableFuture.completedFuture(true));
+
+		outboxProcessingService.dispatchNow(List.of(13L, 14L, 15L)).join();
+
+		final InOrder order = inOrder(outboxEventPersistenceService, emailNotificationService);
+		order.verify(outboxEventPersistenceService).markProcessed(Set.of(13L, 14L));
+		order.verify(emailNotificationService).sendEmail(any());
+		order.verify(outboxEventPersistenceService).markProcessed(Set.of(15L));
+	}
+
 	@Test
 	void pollAndProcess_AllProcessed_ShouldConfirmAppointment() throws Exception {
 		OutboxEvent event = OutboxEvent.builder()
@@ -104,23 +177,47 @@ class OutboxProcessingServiceChallengingTest {
 				.eventType("DOCTOR_CALENDAR_UPDATE")
 				.status("PENDING")
 				.retryCount(0)
-				.payload("{}")
+				.payload(new AppointmentEventPayload())
 				.nextRetryAt(LocalDateTime.now().minusMinutes(1))
 				.build();
 
-		when(outboxEventPersistenceService.findPendingDueEvents(any(LocalDateTime.class)))
+		when(outboxEventPersistenceService.claimDueEvents(any(LocalDateTime.class), anyInt(), any(Duration.class)))
 				.thenReturn(List.of(event));
-        when(objectMapper.readValue(any(String.class), eq(AppointmentEventPayload.class)))
-                .thenReturn(null);
-		when(doctorCalendarService.updateDoctorCalendar(any())).thenReturn(true);
-		when(outboxEventPersistenceService.findByAggregateId(300L))
-				.thenReturn(List.of(
-					OutboxEvent.builder().status("PROCESSED").build()
-				));
+		when(doctorCalendarService.updateDoctorCalendar(any())).thenReturn(CompletableFuture.completedFuture(true));
+		when(appointmentPersistenceService.confirmBookedAppointmentsWithoutUnprocessedEvents(Set.of(300L)))
+				.thenReturn(List.of(300L));
 
 		outboxProcessingService.pollAndProcess();
 
-		verify(appointmentPersistenceService, times(1)).updateAppointmentStatus(300L, AppointmentStatus.CONFIRMED);
+		verify(outboxEventPersistenceService, times(1)).markProcessed(Set.of(3L));
+		verify(appointmentPersistenceService, times(1)).confirmBookedAppointmentsWithoutUnprocessedEvents(Set.of(300L));
+		verify(activityLogPersistenceService, times(1)).saveAll(argThat(logs -> logs.size() == 2
+				&& "OUTBOX_EVENT_SAVED".equals(logs.get(0).getAction()) && logs.get(0).getDescription().contains("status PROCESSED")
+				&& "OUTBOX_EVENT_PROCESSED".equals(logs.get(1).getAction())));
+		verify(outboxEventPersistenceService, never()).findByAggregateId(any());
+	}
+
+	@Test
+	void pollAndProcess_LeaseLost_ShouldNotConfirmOrLogProcessed() throws Exception {
+		OutboxEvent event = OutboxEvent.builder()
+				.id(5L)
+				.aggregateId(500L)
+				.eventType("ROOM_RESERVATION")
+				.status("IN_FLIGHT")
+				.retryCount(0)
+				.payload(new AppointmentEventPayload())
+				.build();
+
+		when(outboxEventPersistenceService.claimDueEvents(any(LocalDateTime.class), anyInt(), any(Duration.class)))
+				.thenReturn(List.of(event));
+		when(roomReservationService.reserveRoom(any())).thenReturn(CompletableFuture.completedFuture(true));
+		doReturn(List.of()).when(outboxEventPersistenceService).markProcessed(any());
+
+		outboxProcessingService.pollAndProcess();
+
+		verify(appointmentPersistenceService, never()).confirmBookedAppointmentsWithoutUnprocessedEvents(any());
+		verify(activityLogPersistenceService, never()).saveAll(any());
+		verify(appointmentPersistenceService, never()).updateAppointmentStatus(any(), any());
 	}
 
 	@Test
@@ -131,23 +228,80 @@ class OutboxProcessingServiceChallengingTest {
 				.eventType("SEND_EMAIL")
 				.status("PENDING")
 				.retryCount(0)
-				.payload("{}")
+				.payload(new AppointmentEventPayload())
 				.nextRetryAt(LocalDateTime.now().minusMinutes(1))
 				.build();
 
-		when(outboxEventPersistenceService.findPendingDueEvents(any(LocalDateTime.class)))
+		when(outboxEventPersistenceService.claimDueEvents(any(LocalDateTime.class), anyInt(), any(Duration.class)))
 				.thenReturn(List.of(event));
-        when(objectMapper.readValue(any(String.class), eq(AppointmentEventPayload.class)))
-                .thenReturn(null);
-		when(emailNotificationService.sendEmail(any())).thenReturn(true);
-		when(outboxEventPersistenceService.findByAggregateId(400L))
-				.thenReturn(List.of(
-					OutboxEvent.builder().status("PROCESSED").build(),
-					OutboxEvent.builder().status("PENDING").build()
-				));
+		when(emailNotificationService.sendEmail(any())).thenReturn(CompletableFuture.completedFuture(true));
+		// another event of the aggregate is still pending, so the database confirms nothing
+		when(appointmentPersistenceService.confirmBookedAppointmentsWithoutUnprocessedEvents(Set.of(400L)))
+				.thenReturn(List.of());
 
 		outboxProcessingService.pollAndProcess();
 
 		verify(appointmentPersistenceService, never()).updateAppointmentStatus(any(), any());
 	}
+
+	@Test
+	void dispatchNow_AlreadyClaimedElsewhere_ShouldNotDispatch() {
+		when(outboxEventPersistenceService.claimPendingEvents(eq(List.of(6L, 7L)), any(Duration.class)))
+				.thenReturn(List.of());
+
+		outboxProcessingService.dispatchNow(List.of(6L, 7L)).join();
+
+		verify(outboxDispatcher, never()).dispatch(any(), any(), any());
+		verify(outboxEventPersistenceService, never()).markProcessed(any());
+	}
+
+	@Test
+	void pollAndProcess_DownstreamUnavailable_ShouldDeferWithoutBurningRetries() throws Exception {
+		OutboxEvent event = OutboxEvent.builder()
+				.id(8L)
+				.aggregateId(800L)
+				.eventType("SEND_CONFIRMATION_EMAIL")
+				.status("IN_FLIGHT")
+				.retryCount(2)
+				.payload(new AppointmentEventPayload())
+				.build();
+
+		when(outboxEventPersistenceService.claimDueEvents(any(LocalDateTime.class), anyInt(), any(Duration.class)))
+				.thenReturn(List.of(event));
+		when(emailNotificationService.sendEmail(any())).thenReturn(CompletableFuture.failedFuture(
+				new DownstreamUnavailableException("email-notification", Duration.ofSeconds(30), "circuit open")));
+
+		outboxProcessingService.pollAndProcess();
+
+		verify(outboxEventPersistenceService).deferClaimedEvents(eq(List.of(8L)),
+				argThat(until -> until.isAfter(LocalDateTime.now().plusSeconds(25))));
+		verify(outboxEventPersistenceService, never()).scheduleRetry(any(), any());
+		verify(outboxEventPersistenceService, never()).markFailed(any());
+		verify(activityLogPersistenceService, never()).saveAll(any());
+		assertEquals(2, event.getRetryCount());
+	}
+
+	@Test
+	void pollAndProcess_FailuresOnSameAttempt_ShouldRescheduleWithOneUpdate() {
+		final List<OutboxEvent> events = List.of(
+				OutboxEvent.builder().id(9L).aggregateId(900L).eventType("ROOM_RESERVATION").status("IN_FLIGHT")
+						.retryCount(1).payload(new AppointmentEventPayload()).build(),
+				OutboxEvent.builder().id(10L).aggregateId(1000L).eventType("ROOM_RESERVATION").status("IN_FLIGHT")
+						.retryCount(1).payload(new AppointmentEventPayload()).build());
+
+		when(outboxEventPersistenceService.claimDueEvents(any(LocalDateTime.class), anyInt(), any(Duration.class)))
+				.thenReturn(events);
+		when(roomReservationService.reserveRoom(any())).thenReturn(CompletableFuture.completedFuture(false));
+
+		outboxProcessingService.pollAndProcess();
+
+		verify(outboxEventPersistenceService, times(1)).scheduleRetry(eq(Set.of(9L, 10L)), any());
+		verify(activityLogPersistenceService, times(1)).saveAll(argThat(logs -> logs.size() == 4
+				&& logs.stream().filter(log -> "OUTBOX_EVENT_SAVED".equals(log.getAction())).count() == 2));
+		verify(activityLogPersistenceService, never()).save(any());
+	}
+
+	private static List<Long> idsOf(final Collection<Long> eventIds) {
+		return List.copyOf(eventIds);
+	}
 }
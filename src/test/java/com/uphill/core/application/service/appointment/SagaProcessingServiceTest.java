@@ -0,0 +1,172 @@
+package com.uphill.core.application.service.appointment;
+
+import com.uphill.core.application.service.activity.ActivityLogPersistenceService;
+import com.uphill.core.domain.AppointmentEventPayload;
+import com.uphill.core.domain.AppointmentSaga;
+import com.uphill.core.domain.AppointmentStatus;
+import com.uphill.core.domain.SagaStep;
+import com.uphill.core.exception.DownstreamUnavailableException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class SagaProcessingServiceTest {
+
+	private static final int ALL_STEPS = SagaStep.DOCTOR_CALENDAR.mask()
+			| SagaStep.ROOM_RESERVATION.mask() | SagaStep.CONFIRMATION_EMAIL.mask();
+
+	@Mock
+	private AppointmentSagaPersistenceService appointmentSagaPersistenceService;
+	@Mock
+	private AppointmentPersistenceService appointmentPersistenceService;
+	@Mock
+	private DoctorCalendarService doctorCalendarService;
+	@Mock
+	private RoomReservationService roomReservationService;
+	@Mock
+	private EmailNotificationService emailNotificationService;
+	@Mock
+	private ActivityLogPersistenceService activityLogPersistenceService;
+	@Mock
+	private OutboxRetryScheduler outboxRetryScheduler;
+
+	@InjectMocks
+	private SagaProcessingService sagaProcessingService;
+
+	private static final AppointmentEventPayload payload = AppointmentEventPayload.builder().appointmentId(7L).build();
+
+	@BeforeEach
+	void setUp() {
+		lenient().when(appointmentSagaPersistenceService.completeClaim(any())).thenReturn(true);
+		lenient().when(doctorCalendarService.updateDoctorCalendar(any())).thenReturn(CompletableFuture.completedFuture(true));
+		lenient().when(roomReservationService.reserveRoom(any())).thenReturn(CompletableFuture.completedFuture(true));
+		lenient().when(emailNotificationService.sendEmail(any())).thenReturn(CompletableFuture.completedFuture(true));
+	}
+
+	@Test
+	void pollAndProcess_AllStepsSucceed_ShouldCompleteAndConfirm() {
+		claim(saga(0, new int[] {0, 0, 0}));
+
+		assertEquals(1, sagaProcessingService.pollAndProcess());
+
+		verify(appointmentSagaPersistenceService).completeClaim(argThat(s ->
+				"COMPLETED".equals(s.getStatus()) && s.getCompletedSteps() == ALL_STEPS));
+		verify(appointmentPersistenceService).confirmBookedAppointments(Set.of(7L));
+	}
+
+	@Test
+	void pollAndProcess_ShouldOnlyRetryIncompleteSteps() {
+		claim(saga(SagaStep.DOCTOR_CALENDAR.mask() | SagaStep.ROOM_RESERVATION.mask(), new int[] {0, 0, 2}));
+		when(emailNotificationService.sendEmail(any())).thenReturn(CompletableFuture.completedFuture(false));
+
+		sagaProcessingService.pollAndProcess();
+
+		verify(doctorCalendarService, never()).updateDoctorCalendar(any());
+		verify(roomReservationService, never()).reserveRoom(any());
+		verify(appointmentSagaPersistenceService).completeClaim(argThat(s ->
+				"PENDING".equals(s.getStatus()) && s.getStepRetries()[2] == 3
+						&& s.getNextRetryAt().isAfter(LocalDateTime.now().plusMinutes(3))));
+		verify(appointmentPersistenceService, never()).confirmBookedAppointments(any());
+		verify(outboxRetryScheduler).scheduleSaga(eq(7L), any(LocalDateTime.class));
+	}
+
+	@Test
+	void pollAndProcess_StepOutOfAttempts_ShouldFailSagaAndCancelAppointment() {
+		claim(saga(0, new int[] {4, 0, 0}));
+		when(doctorCalendarService.updateDoctorCalendar(any())).thenReturn(CompletableFuture.completedFuture(false));
+
+		sagaProcessingService.pollAndProcess();
+
+		verify(appointmentSagaPersistenceService).completeClaim(argThat(s -> "FAILED".equals(s.getStatus())));
+		verify(appointmentPersistenceService).updateAppointmentStatus(7L, AppointmentStatus.CANCELLED);
+		verify(activityLogPersistenceService).save(argThat(log -> "OUTBOX_SAGA_FAILED".equals(log.getAction())));
+	}
+
+	@Test
+	void pollAndProcess_DownstreamUnavailable_ShouldDeferWithoutCountingRetry() {
+		claim(saga(0, new int[] {0, 0, 0}));
+		when(roomReservationService.reserveRoom(any())).thenReturn(CompletableFuture.failedFuture(
+				new DownstreamUnavailableException("room-service", Duration.ofSeconds(30), "circuit open")));
+
+		sagaProcessingService.pollAndProcess();
+
+		verify(appointmentSagaPersistenceService).completeClaim(argThat(s ->
+				"PENDING".equals(s.getStatus())
+						&& s.getStepRetries()[SagaStep.ROOM_RESERVATION.getIndex()] == 0
+						&& s.isCompleted(SagaStep.DOCTOR_CALENDAR)
+						&& !s.isCompleted(SagaStep.ROOM_RESERVATION)));
+	}
+
+	@Test
+	void dispatchNow_ShouldRunCalendarAndRoomConcurrentlyAndEmailAfterBoth() {
+		final CompletableFuture<Boolean> calendar = new CompletableFuture<>();
+		final CompletableFuture<Boolean> room = new CompletableFuture<>();
+		when(doctorCalendarService.updateDoctorCalendar(any())).thenReturn(calendar);
+		when(roomReservationService.reserveRoom(any())).thenReturn(room);
+		when(appointmentSagaPersistenceService.claimPendingSagas(any(), any(Duration.class)))
+				.thenReturn(List.of(saga(0, new int[] {0, 0, 0})));
+
+		final CompletableFuture<Void> done = sagaProcessingService.dispatchNow(List.of(7L));
+
+		verify(doctorCalendarService).updateDoctorCalendar(payload);
+		verify(roomReservationService).reserveRoom(payload);
+		room.complete(true);
+		verify(emailNotificationService, never()).sendEmail(any());
+		calendar.complete(true);
+		done.join();
+
+		verify(emailNotificationService).sendEmail(payload);
+		verify(appointmentPersistenceService).confirmBookedAppointments(Set.of(7L));
+	}
+
+	@Test
+	void pollAndProcess_DependencyFailed_ShouldSkipEmailWithoutUsingAttempt() {
+		claim(saga(0, new int[] {0, 0, 0}));
+		when(doctorCalendarService.updateDoctorCalendar(any())).thenReturn(CompletableFuture.completedFuture(false));
+
+		sagaProcessingService.pollAndProcess();
+
+		verify(emailNotificationService, never()).sendEmail(any());
+		verify(appointmentSagaPersistenceService).completeClaim(argThat(s ->
+				"PENDING".equals(s.getStatus())
+						&& s.getStepRetries()[SagaStep.DOCTOR_CALENDAR.getIndex()] == 1
+						&& s.getStepRetries()[SagaStep.CONFIRMATION_EMAIL.getIndex()] == 0
+						&& s.isCompleted(SagaStep.ROOM_RESERVATION)));
+	}
+
+	private void claim(final AppointmentSaga saga) {
+		when(appointmentSagaPersistenceService.claimDueSagas(any(LocalDateTime.class), anyInt(), any(Duration.class)))
+				.thenReturn(List.of(saga));
+	}
+
+	private static AppointmentSaga saga(final int completedSteps, final int[] stepRetries) {
+		return AppointmentSaga.builder()
+				.appointmentId(7L)
+				.payload(payload)
+				.status("IN_FLIGHT")
+				.requiredSteps(ALL_STEPS)
+				.completedSteps(completedSteps)
+				.stepRetries(stepRetries)
+				.build();
+	}
+}
@@ -0,0 +1,152 @@
+package com.uphill.infrastructure.persistence.ActivityLog;
+
+import com.uphill.core.domain.ActivityLog;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class BufferedActivityLogPersistenceServiceTest {
+
+    @Mock
+    private ActivityLogPersistenceServiceImpl delegate;
+
+    private SimpleMeterRegistry meterRegistry;
+    private BufferedActivityLogPersistenceService bufferedService;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        bufferedService = new BufferedActivityLogPersistenceService(delegate, meterRegistry);
+        ReflectionTestUtils.setField(bufferedService, "enabled", true);
+        ReflectionTestUtils.setField(bufferedService, "capacity", 100);
+        ReflectionTestUtils.setField(bufferedService, "batchSize", 2);
+        ReflectionTestUtils.setField(bufferedService, "flushIntervalMs", 10_000L);
+        ReflectionTestUtils.setField(bufferedService, "overflowPolicy", OverflowPolicy.DROP_NEWEST);
+        ReflectionTestUtils.setField(bufferedService, "blockTimeoutMs", 10L);
+        ReflectionTestUtils.setField(bufferedService, "shutdownTimeoutMs", 5_000L);
+    }
+
+    @AfterEach
+    void tearDown() {
+        bufferedService.stop();
+    }
+
+    @Test
+    void save_ShouldWriteFullBatchesWithoutWaitingForTheInterval() {
+        bufferedService.start();
+
+        for (int i = 0; i < 4; i++) {
+            bufferedService.save(createTestActivityLog("ACTION_" + i));
+        }
+
+        verify(delegate, timeout(2_000).times(2)).saveAll(argThat(batch -> batch.size() == 2));
+        verify(delegate, never()).save(org.mockito.ArgumentMatchers.any());
+    }
+
+    @Test
+    void stop_ShouldFlushPartialBatch() {
+        ReflectionTestUtils.setField(bufferedService, "batchSize", 50);
+        bufferedService.start();
+
+        bufferedService.save(createTestActivityLog("FIRST"));
+        bufferedService.save(createTestActivityLog("SECOND"));
+        bufferedService.save(createTestActivityLog("THIRD"));
+        bufferedService.stop();
+
+        verify(delegate, times(1)).saveAll(argThat(batch -> batch.size() == 3));
+    }
+
+    @Test
+    void save_WhenQueueIsFull_ShouldDropAndCount() throws InterruptedException {
+        ReflectionTestUtils.setField(bufferedService, "capacity", 1);
+        ReflectionTestUtils.setField(bufferedService, "batchSize", 1);
+        final CountDownLatch writerBusy = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            writerBusy.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return null;
+        }).when(delegate).saveAll(anyList());
+        bufferedService.start();
+
+        bufferedService.save(createTestActivityLog("IN_FLIGHT"));
+        writerBusy.await(2, TimeUnit.SECONDS);
+        bufferedService.save(createTestActivityLog("QUEUED"));
+        bufferedService.save(createTestActivityLog("DROPPED"));
+        release.countDown();
+
+        assertEquals(1.0, meterRegistry.counter("activity_log.buffer.dropped").count());
+        bufferedService.stop();
+        verify(delegate, times(2)).saveAll(anyList());
+    }
+
+    @Test
+    void saveAll_InsideTransaction_ShouldQueueOnlyAfterCommit() {
+        bufferedService.start();
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            bufferedService.saveAll(List.of(createTestActivityLog("FIRST"), createTestActivityLog("SECOND")));
+            verify(delegate, never()).saveAll(anyList());
+
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        verify(delegate, timeout(2_000)).saveAll(argThat(batch -> batch.size() == 2));
+    }
+
+    @Test
+    void saveAll_WhenQueueIsFull_ShouldDropAndCount() throws InterruptedException {
+        ReflectionTestUtils.setField(bufferedService, "capacity", 1);
+        ReflectionTestUtils.setField(bufferedService, "batchSize", 1);
+        final CountDownLatch writerBusy = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            writerBusy.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return null;
+        }).when(delegate).saveAll(anyList());
+        bufferedService.start();
+
+        bufferedService.save(createTestActivityLog("IN_FLIGHT"));
+        writerBusy.await(2, TimeUnit.SECONDS);
+        bufferedService.saveAll(List.of(createTestActivityLog("QUEUED"), createTestActivityLog("DROPPED")));
+        release.countDown();
+
+        assertEquals(1.0, meterRegistry.counter("activity_log.buffer.dropped").count());
+        bufferedService.stop();
+        verify(delegate, times(2)).saveAll(anyList());
+    }
+
+    private ActivityLog createTestActivityLog(final String action) {
+        return ActivityLog.builder()
+                .userId(0L)
+                .action(action)
+                .description("Test activity log")
+                .createdAt(LocalDateTime.now())
+                .build();
+    }
+}
@@ -0,0 +1,157 @@
+package com.uphill.infrastructure.persistence.Appointment;
+
+import com.uphill.core.domain.AppointmentCursor;
+import com.uphill.core.domain.AppointmentStatus;
+import com.uphill.core.domain.AppointmentSummary;
+import com.uphill.infrastructure.persistence.Doctor.DoctorEntity;
+import com.uphill.infrastructure.persistence.Patient.PatientEntity;
+import com.uphill.infrastructure.persistence.Room.RoomEntity;
+import com.uphill.infrastructure.persistence.Specialty.SpecialtyEntity;
+import com.uphill.infrastructure.persistence.TimeSlot.TimeSlotEntity;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIf;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.support.PropertiesLoaderUtils;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Properties;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Runs the seek predicate against the Flyway-migrated schema of the test profile; skipped when
+ * that database is not reachable. Every row is written in the test transaction and rolled back.
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("test")
+@EnabledIf("databaseAvailable")
+class AppointmentCursorPagingTest {
+
+	private static final LocalDate FIRST_DAY = LocalDate.of(2099, 3, 2);
+	private static final LocalDate SECOND_DAY = LocalDate.of(2099, 3, 3);
+
+	@Autowired
+	private AppointmentRepository appointmentRepository;
+	@Autowired
+	private EntityManager entityManager;
+
+	private final List<AppointmentEntity> appointments = new ArrayList<>();
+
+	@BeforeEach
+	void setUp() {
+		final SpecialtyEntity specialty = persist(SpecialtyEntity.builder().name("Cursor paging test").build());
+		final PatientEntity patient = persist(PatientEntity.builder()
+				.name("Cursor Patient").email("cursor-paging@test.invalid").dob("1990-01-01").build());
+		// Odd slots no seed data uses, two of them sharing a start time.
+		final List<TimeSlotEntity> slots = List.of(
+				persist(TimeSlotEntity.builder().startTime(LocalTime.of(23, 1)).endTime(LocalTime.of(23, 2)).build()),
+				persist(TimeSlotEntity.builder().startTime(LocalTime.of(23, 1)).endTime(LocalTime.of(23, 3)).build()),
+				persist(TimeSlotEntity.builder().startTime(LocalTime.of(23, 4)).endTime(LocalTime.of(23, 5)).build()));
+		final List<DoctorEntity> doctors = new ArrayList<>();
+		final List<RoomEntity> rooms = new ArrayList<>();
+		for (int i = 0; i < 4; i++) {
+			doctors.add(persist(DoctorEntity.builder().name("Dr. Cursor " + i)
+					.email("cursor-paging-" + i + "@test.invalid").specialty(specialty).build()));
+			rooms.add(persist(RoomEntity.builder().name("Cursor Room " + i).build()));
+		}
+		// Several appointments per (date, start time), so pages have to break inside ties.
+		for (final LocalDate day : List.of(FIRST_DAY, SECOND_DAY)) {
+			for (final TimeSlotEntity slot : slots) {
+				for (int i = 0; i < doctors.size(); i++) {
+					appointments.add(persist(AppointmentEntity.builder()
+							.doctor(doctors.get(i)).room(rooms.get(i)).patient(patient).timeSlot(slot)
+							.date(day).startTime(slot.getStartTime()).status(AppointmentStatus.BOOKED)
+							.build()));
+				}
+			}
+		}
+		entityManager.flush();
+		entityManager.clear();
+	}
+
+	@Test
+	void after_PagingThroughTies_ShouldReturnEveryRowOnceInListingOrder() {
+		final AppointmentFilter filter = AppointmentFilter.builder().startDate(FIRST_DAY).endDate(SECOND_DAY).build();
+		final List<Long> seen = new ArrayList<>();
+		AppointmentCursor cursor = null;
+		int pages = 0;
+		do {
+			Specification<AppointmentEntity> spec = AppointmentSpecifications.matching(filter);
+			if (cursor != null) {
+				spec = spec.and(AppointmentSpecifications.after(cursor));
+			}
+			final List<AppointmentSummary> page = appointmentRepository.findSummaries(
+					spec, AppointmentSpecifications.LISTING_ORDER, 0, 5);
+			page.forEach(row -> seen.add(row.getId()));
+			final AppointmentSummary last = page.isEmpty() ? null : page.get(page.size() - 1);
+			cursor = page.size() < 5 ? null : new AppointmentCursor(last.getDate(), last.getStartTime(), last.getId());
+			pages++;
+		} while (cursor != null);
+
+		final List<Long> expected = appointments.stream()
+				.sorted(Comparator.comparing(AppointmentEntity::getDate).reversed()
+						.thenComparing(AppointmentEntity::getStartTime)
+						.thenComparing(AppointmentEntity::getId))
+				.map(AppointmentEntity::getId)
+				.toList();
+		assertEquals(expected, seen);
+		assertEquals(5, pages);
+	}
+
+	@Test
+	void after_ShouldBeServedBySeekIndex() {
+		final AppointmentEntity middle = appointments.get(appointments.size() / 2);
+		entityManager.createNativeQuery("SET LOCAL enable_seqscan = off").executeUpdate();
+
+		final String plan = String.join("\n", entityManager.createNativeQuery(
+				"EXPLAIN SELECT id FROM appointments " +
+				"WHERE date <= :date AND (date < :date OR start_time > :startTime " +
+				"    OR (start_time = :startTime AND id > :id)) " +
+				"ORDER BY date DESC, start_time, id LIMIT 6", String.class)
+				.setParameter("date", middle.getDate())
+				.setParameter("startTime", middle.getStartTime())
+				.setParameter("id", middle.getId())
+				.getResultList());
+
+		assertTrue(plan.contains("idx_appointments_date_start_time_id"), plan);
+	}
+
+	private <T> T persist(final T entity) {
+		entityManager.persist(entity);
+		return entity;
+	}
+
+	static boolean databaseAvailable() {
+		try {
+			final Properties properties = PropertiesLoaderUtils.loadProperties(new ClassPathResource("application-test.properties"));
+			try (Connection ignored = DriverManager.getConnection(setting(properties, "spring.datasource.url"),
+					setting(properties, "spring.datasource.username"), setting(properties, "spring.datasource.password"))) {
+				return true;
+			}
+		} catch (IOException | SQLException ex) {
+			return false;
+		}
+	}
+
+	// System properties win, as they do for the Spring context.
+	private static String setting(final Properties properties, final String name) {
+		return System.getProperty(name, properties.getProperty(name));
+	}
+}
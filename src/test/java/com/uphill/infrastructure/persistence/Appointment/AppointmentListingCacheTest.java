@@ -0,0 +1,127 @@
+package com.uphill.infrastructure.persistence.Appointment;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.uphill.core.domain.AppointmentStatus;
+import com.uphill.core.domain.AppointmentSummary;
+import com.uphill.core.domain.CountStrategy;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class AppointmentListingCacheTest {
+
+	private static final LocalDate TODAY = LocalDate.of(2026, 10, 18);
+
+	@Mock
+	private RedisTemplate<String, String> redisTemplate;
+	@Mock
+	private ValueOperations<String, String> valueOperations;
+
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+	private AppointmentListingCache cache;
+
+	@BeforeEach
+	void setUp() {
+		final ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+		cache = new AppointmentListingCache(redisTemplate, objectMapper, meterRegistry, true, 60, 31);
+		lenient().when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+	}
+
+	@Test
+	void slice_SecondRead_ShouldBeServedFromCache() {
+		final AppointmentFilter filter = AppointmentFilter.builder().doctorId(5L).startDate(TODAY).endDate(TODAY).build();
+		final Pageable page = PageRequest.of(0, 20);
+		final List<String> stored = new ArrayList<>();
+		when(valueOperations.multiGet(List.of("appointment-listing:gen:doctor:5:2026-10-18"))).thenReturn(List.of("3"));
+		when(valueOperations.get(anyString())).thenAnswer(inv -> stored.isEmpty() ? null : stored.get(0));
+		final ArgumentCaptor<String> value = ArgumentCaptor.forClass(String.class);
+		final AtomicInteger loads = new AtomicInteger();
+
+		final Slice<AppointmentSummary> first = cache.slice(filter, page, CountStrategy.EXACT, () -> {
+			loads.incrementAndGet();
+			return new PageImpl<>(List.of(summary()), page, 41);
+		});
+		verify(valueOperations).set(eq("appointment-listing:page:patient=,doctor=5,room=,status=,from=2026-10-18,to=2026-10-18"
+				+ "|offset:0:20:EXACT|3"), value.capture(), eq(Duration.ofSeconds(60)));
+		stored.add(value.getValue());
+		final Slice<AppointmentSummary> second = cache.slice(filter, page, CountStrategy.EXACT, () -> {
+			loads.incrementAndGet();
+			return Page.empty();
+		});
+
+		assertEquals(1, loads.get());
+		assertEquals(first.getContent(), second.getContent());
+		assertEquals(41, assertInstanceOf(Page.class, second).getTotalElements());
+		assertEquals(0.5, meterRegistry.get("appointment.listing_cache.hit_ratio").gauge().value());
+	}
+
+	@Test
+	void slice_FilterWithoutScope_ShouldUseTableGeneration() {
+		final AppointmentFilter filter = AppointmentFilter.byStatus(AppointmentStatus.BOOKED);
+		final List<String> generation = new ArrayList<>();
+		generation.add(null);
+		when(valueOperations.multiGet(List.of("appointment-listing:gen:all"))).thenReturn(generation);
+
+		cache.slice(filter, PageRequest.of(2, 10), CountStrategy.NONE, Page::empty);
+
+		verify(valueOperations).get("appointment-listing:page:patient=,doctor=,room=,status=BOOKED,from=,to=|offset:2:10:NONE|0");
+	}
+
+	@Test
+	void slice_WhenRedisIsDown_ShouldReadFromDatabase() {
+		when(valueOperations.multiGet(any())).thenThrow(new RedisConnectionFailureException("refused"));
+		final Page<AppointmentSummary> fromDatabase = new PageImpl<>(List.of(summary()));
+
+		final Slice<AppointmentSummary> result = cache.slice(AppointmentFilter.all(), PageRequest.of(0, 20),
+				CountStrategy.EXACT, () -> fromDatabase);
+
+		assertEquals(fromDatabase, result);
+		verify(valueOperations, never()).set(anyString(), anyString(), any(Duration.class));
+		assertEquals(1, meterRegistry.get("appointment.listing_cache.errors").counter().count());
+	}
+
+	@Test
+	void invalidate_ShouldBumpGenerationsAndCountAppointments() {
+		cache.invalidate(5L, 7L, 9L, TODAY);
+
+		verify(redisTemplate).executePipelined(any(RedisCallback.class));
+		assertEquals(1, meterRegistry.get("appointment.listing_cache.invalidations").counter().count());
+	}
+
+	private static AppointmentSummary summary() {
+		return new AppointmentSummary(1L, "Dr. Who", "Amy Pond", "Room 1", TODAY,
+				LocalTime.of(9, 0), LocalTime.of(9, 30), AppointmentStatus.BOOKED);
+	}
+}
@@ -3,7 +3,11 @@ package com.uphill.infrastructure.persistence.Appointment;
 import com.uphill.core.application.service.activity.ActivityLogPersistenceService;
 import com.uphill.core.domain.ActivityLog;
 import com.uphill.core.domain.Appointment;
+import com.uphill.core.domain.AppointmentCursor;
 import com.uphill.core.domain.AppointmentStatus;
+import com.uphill.core.domain.AppointmentSummary;
+import com.uphill.core.domain.CountStrategy;
+import com.uphill.core.domain.CursorPage;
 import com.uphill.core.domain.Doctor;
 import com.uphill.core.domain.Patient;
 import com.uphill.core.domain.Room;
@@ -13,20 +17,34 @@ import com.uphill.infrastructure.persistence.Patient.PatientRepository;
 import com.uphill.infrastructure.persistence.Room.RoomRepository;
 import com.uphill.infrastructure.persistence.TimeSlot.TimeSlotRepository;
 import com.uphill.infrastructure.persistence.EntityMapper;
+import com.uphill.infrastructure.service.availability.AvailabilityIndex;
+import jakarta.persistence.EntityManager;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.domain.Specification;
 
 import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
@@ -49,6 +67,15 @@ class AppointmentPersistenceServiceImplTest {
 	private TimeSlotRepository timeSlotRepository;
 	@Mock
 	private ActivityLogPersistenceService activityLogPersistenceService;
+	@Mock
+	private AvailabilityIndex availabilityIndex;
+	@Mock
+	private AppointmentCountEstimator appointmentCountEstimator;
+	@Mock
+	private EntityManager entityManager;
+	@Spy
+	private AppointmentListingCache appointmentListingCache =
+			new AppointmentListingCache(null, null, new SimpleMeterRegistry(), false, 60, 31);
 
 	@InjectMocks
 	private AppointmentPersistenceServiceImpl appointmentPersistenceService;
@@ -145,15 +172,115 @@ class AppointmentPersistenceServiceImplTest {
 		Long appointmentId = 1L;
 		AppointmentStatus status = AppointmentStatus.CONFIRMED;
 
+		when(appointmentRepository.updateAppointmentStatus(appointmentId, "CONFIRMED")).thenReturn(List.of(scope(appointmentId)));
+		final AppointmentEntity loaded = createAppointmentEntity();
+		when(entityManager.getReference(AppointmentEntity.class, appointmentId)).thenReturn(loaded);
+
 		// When
 		appointmentPersistenceService.updateAppointmentStatus(appointmentId, status);
 
 		// Then
-		verify(appointmentRepository, times(1)).updateAppointmentStatus(appointmentId, status);
+		verify(appointmentRepository, times(1)).updateAppointmentStatus(appointmentId, "CONFIRMED");
+		verify(entityManager).refresh(loaded);
 		verify(activityLogPersistenceService, times(1)).save(argThat(log -> 
 			"APPOINTMENT_STATUS_UPDATED".equals(log.getAction()) && log.getUserId() == 0L));
 	}
 
+	@Test
+	void findAppointmentsByCursor_ShouldReturnCursorOfLastRowWhenMoreFollow() {
+		// Given
+		final AppointmentCursor after = new AppointmentCursor(LocalDate.of(2024, 1, 15), LocalTime.of(10, 0), 7L);
+		final List<AppointmentSummary> rows = List.of(
+				summary(8L, LocalDate.of(2024, 1, 15), LocalTime.of(11, 0)),
+				summary(3L, LocalDate.of(2024, 1, 14), LocalTime.of(9, 0)),
+				summary(4L, LocalDate.of(2024, 1, 14), LocalTime.of(10, 0)));
+		when(appointmentRepository.findSummaries(any(), eq(AppointmentSpecifications.LISTING_ORDER), eq(0L), eq(3)))
+				.thenReturn(rows);
+
+		// When
+		final CursorPage<AppointmentSummary> page = appointmentPersistenceService.findAppointmentsByCursor(
+				null, 2L, null, null, null, null, after, 2);
+
+		// Then
+		assertEquals(List.of(8L, 3L), page.getContent().stream().map(AppointmentSummary::getId).toList());
+		assertTrue(page.isHasNext());
+		assertEquals(new AppointmentCursor(LocalDate.of(2024, 1, 14), LocalTime.of(9, 0), 3L),
+				AppointmentCursor.decode(page.getNextCursor()));
+		verify(entityMapper, never()).toDomain(any(AppointmentEntity.class));
+	}
+
+	@Test
+	void findAppointmentsByCursor_LastPage_ShouldHaveNoCursor() {
+		when(appointmentRepository.findSummaries(any(), eq(AppointmentSpecifications.LISTING_ORDER), eq(0L), eq(11)))
+				.thenReturn(List.of(summary(1L, LocalDate.of(2024, 1, 15), LocalTime.of(9, 0))));
+
+		final CursorPage<AppointmentSummary> page = appointmentPersistenceService.findAppointmentsByCursor(
+				null, null, null, AppointmentStatus.BOOKED, null, null, null, 10);
+
+		assertEquals(1, page.getContent().size());
+		assertFalse(page.isHasNext());
+		assertNull(page.getNextCursor());
+	}
+
+	@Test
+	void findAppointmentsWithFilters_CountNone_ShouldReturnSliceWithoutCounting() {
+		when(appointmentRepository.findSummaries(any(), eq(AppointmentSpecifications.LISTING_ORDER), eq(20L), eq(11)))
+				.thenReturn(java.util.Collections.nCopies(11, summary(1L, LocalDate.of(2024, 1, 15), LocalTime.of(9, 0))));
+
+		final Slice<AppointmentSummary> slice = appointmentPersistenceService.findAppointmentsWithFilters(
+				null, 1L, null, null, null, null, PageRequest.of(2, 10), CountStrategy.NONE);
+
+		assertFalse(slice instanceof Page);
+		assertEquals(10, slice.getNumberOfElements());
+		assertTrue(slice.hasNext());
+		verify(appointmentRepository, never()).count(any(Specification.class));
+		verify(appointmentCountEstimator, never()).estimate(any());
+	}
+
+	@Test
+	void findAppointmentsWithFilters_CountEstimated_ShouldUsePlannerEstimate() {
+		when(appointmentRepository.findSummaries(any(), eq(AppointmentSpecifications.LISTING_ORDER), eq(0L), eq(2)))
+				.thenReturn(List.of(summary(1L, LocalDate.of(2024, 1, 15), LocalTime.of(9, 0)),
+						summary(2L, LocalDate.of(2024, 1, 15), LocalTime.of(10, 0))));
+		when(appointmentCountEstimator.estimate(argThat(filter -> Long.valueOf(3L).equals(filter.getRoomId()))))
+				.thenReturn(5000L);
+
+		final Slice<AppointmentSummary> slice = appointmentPersistenceService.findAppointmentsWithFilters(
+				null, null, 3L, null, null, null, PageRequest.of(0, 2), CountStrategy.ESTIMATED);
+
+		assertEquals(5000L, ((Page<AppointmentSummary>) slice).getTotalElements());
+		verify(appointmentRepository, never()).count(any(Specification.class));
+	}
+
+	@Test
+	void findAppointmentsWithFilters_CountEstimatedTooLow_ShouldNotEndBeforeAFullPage() {
+		when(appointmentRepository.findSummaries(any(), eq(AppointmentSpecifications.LISTING_ORDER), eq(4L), eq(2)))
+				.thenReturn(List.of(summary(5L, LocalDate.of(2024, 1, 15), LocalTime.of(9, 0)),
+						summary(6L, LocalDate.of(2024, 1, 15), LocalTime.of(10, 0))));
+		when(appointmentCountEstimator.estimate(any())).thenReturn(3L);
+
+		final Page<AppointmentSummary> page = (Page<AppointmentSummary>) appointmentPersistenceService.findAppointmentsWithFilters(
+				null, null, 3L, null, null, null, PageRequest.of(2, 2), CountStrategy.ESTIMATED);
+
+		assertEquals(7L, page.getTotalElements());
+		assertTrue(page.hasNext());
+	}
+
+	private AppointmentSummary summary(final Long id, final LocalDate date, final LocalTime startTime) {
+		return new AppointmentSummary(id, "Dr. Test", "Patient", "Room 1", date, startTime, startTime.plusHours(1),
+				AppointmentStatus.BOOKED);
+	}
+
+	private AppointmentScopeView scope(final Long id) {
+		return new AppointmentScopeView() {
+			public Long getId() { return id; }
+			public Long getDoctorId() { return 1L; }
+			public Long getRoomId() { return 1L; }
+			public Long getPatientId() { return 1L; }
+			public LocalDate getDate() { return LocalDate.of(2024, 1, 15); }
+		};
+	}
+
 	private Appointment createTestAppointment() {
 		return Appointment.builder()
 				.patient(Patient.builder().id(1L).build())
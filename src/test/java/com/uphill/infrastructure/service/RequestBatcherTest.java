@@ -0,0 +1,71 @@
+package com.uphill.infrastructure.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RequestBatcherTest {
+
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+    private final List<List<Object>> sent = new CopyOnWriteArrayList<>();
+
+    @AfterEach
+    void tearDown() {
+        scheduler.shutdownNow();
+    }
+
+    @Test
+    void fullBatch_ShouldBeSentAtOnceAndMapResultsByPosition() throws Exception {
+        final RequestBatcher batcher = new RequestBatcher(3, Duration.ofHours(1), scheduler, items -> {
+            sent.add(items);
+            return CompletableFuture.completedFuture(List.of(true, false, true));
+        });
+
+        final CompletableFuture<Boolean> first = batcher.submit("a");
+        final CompletableFuture<Boolean> second = batcher.submit("b");
+        assertFalse(first.isDone());
+        final CompletableFuture<Boolean> third = batcher.submit("c");
+
+        assertEquals(List.of(List.of("a", "b", "c")), sent);
+        assertTrue(first.get(1, TimeUnit.SECONDS));
+        assertFalse(second.get(1, TimeUnit.SECONDS));
+        assertTrue(third.get(1, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void partialBatch_ShouldBeSentAfterMaxDelay() throws Exception {
+        final RequestBatcher batcher = new RequestBatcher(50, Duration.ofMillis(20), scheduler, items -> {
+            sent.add(items);
+            return CompletableFuture.completedFuture(items.stream().map(item -> true).toList());
+        });
+
+        final CompletableFuture<Boolean> result = batcher.submit("a");
+
+        assertTrue(result.get(1, TimeUnit.SECONDS));
+        assertEquals(List.of(List.of("a")), sent);
+    }
+
+    @Test
+    void failedCall_ShouldFailEveryItem() {
+        final RequestBatcher batcher = new RequestBatcher(2, Duration.ofHours(1), scheduler,
+                items -> CompletableFuture.failedFuture(new IllegalStateException("down")));
+
+        final CompletableFuture<Boolean> first = batcher.submit("a");
+        final CompletableFuture<Boolean> second = batcher.submit("b");
+
+        assertThrows(Exception.class, () -> first.get(1, TimeUnit.SECONDS));
+        assertThrows(Exception.class, () -> second.get(1, TimeUnit.SECONDS));
+    }
+}
@@ -0,0 +1,149 @@
+package com.uphill.infrastructure.service.availability;
+
+import com.uphill.core.domain.Doctor;
+import com.uphill.core.domain.Room;
+import com.uphill.core.domain.Specialty;
+import com.uphill.infrastructure.persistence.Appointment.AppointmentRepository;
+import com.uphill.infrastructure.persistence.Appointment.BookedSlotView;
+import com.uphill.infrastructure.persistence.Doctor.DoctorEntity;
+import com.uphill.infrastructure.persistence.Doctor.DoctorRepository;
+import com.uphill.infrastructure.persistence.EntityMapper;
+import com.uphill.infrastructure.persistence.Room.RoomEntity;
+import com.uphill.infrastructure.persistence.Room.RoomRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Sort;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class AvailabilityIndexTest {
+
+    private static final LocalDate DATE = LocalDate.of(2024, 1, 15);
+
+    @Mock
+    private DoctorRepository doctorRepository;
+    @Mock
+    private RoomRepository roomRepository;
+    @Mock
+    private AppointmentRepository appointmentRepository;
+    @Mock
+    private EntityMapper entityMapper;
+
+    @InjectMocks
+    private AvailabilityIndex availabilityIndex;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(availabilityIndex, "dayTtlSeconds", 60L);
+        ReflectionTestUtils.setField(availabilityIndex, "catalogTtlSeconds", 300L);
+
+        final DoctorEntity cardiologist = DoctorEntity.builder().id(1L).build();
+        final DoctorEntity secondCardiologist = DoctorEntity.builder().id(2L).build();
+        final DoctorEntity dermatologist = DoctorEntity.builder().id(3L).build();
+        when(doctorRepository.findAllWithSpecialty()).thenReturn(List.of(cardiologist, secondCardiologist, dermatologist));
+        when(entityMapper.toDomain(cardiologist)).thenReturn(doctor(1L, 10L));
+        when(entityMapper.toDomain(secondCardiologist)).thenReturn(doctor(2L, 10L));
+        when(entityMapper.toDomain(dermatologist)).thenReturn(doctor(3L, 20L));
+
+        final RoomEntity firstRoom = RoomEntity.builder().id(100L).build();
+        final RoomEntity secondRoom = RoomEntity.builder().id(101L).build();
+        when(roomRepository.findAll(any(Sort.class))).thenReturn(List.of(firstRoom, secondRoom));
+        when(entityMapper.toDomain(firstRoom)).thenReturn(Room.builder().id(100L).build());
+        when(entityMapper.toDomain(secondRoom)).thenReturn(Room.builder().id(101L).build());
+    }
+
+    @Test
+    void findFreeDoctors_ShouldExcludeBookedDoctorsAndOtherSpecialties() {
+        when(appointmentRepository.findBookedSlotsByDate(DATE)).thenReturn(List.of(booked(1L, 100L, 5L)));
+
+        final List<Doctor> freeDoctors = availabilityIndex.findFreeDoctors(10L, DATE, 5L);
+
+        assertEquals(List.of(2L), freeDoctors.stream().map(Doctor::getId).toList());
+    }
+
+    @Test
+    void findFreeRooms_ShouldOnlyConsiderTheRequestedSlot() {
+        when(appointmentRepository.findBookedSlotsByDate(DATE)).thenReturn(List.of(booked(1L, 100L, 5L)));
+
+        assertEquals(List.of(101L), availabilityIndex.findFreeRooms(DATE, 5L).stream().map(Room::getId).toList());
+        assertEquals(List.of(100L, 101L), availabilityIndex.findFreeRooms(DATE, 6L).stream().map(Room::getId).toList());
+        verify(appointmentRepository, times(1)).findBookedSlotsByDate(eq(DATE));
+    }
+
+    @Test
+    void trackBooking_WithoutTransaction_ShouldUpdateLoadedDay() {
+        when(appointmentRepository.findBookedSlotsByDate(DATE)).thenReturn(List.of());
+        availabilityIndex.findFreeDoctors(10L, DATE, 5L);
+
+        availabilityIndex.trackBooking(DATE, 5L, 1L, 100L);
+        availabilityIndex.trackBooking(DATE, 5L, 2L, 101L);
+
+        assertTrue(availabilityIndex.findFreeDoctors(10L, DATE, 5L).isEmpty());
+        assertTrue(availabilityIndex.findFreeRooms(DATE, 5L).isEmpty());
+        verify(appointmentRepository, times(1)).findBookedSlotsByDate(eq(DATE));
+    }
+
+    @Test
+    void trackBooking_WhileTheDayLoads_ShouldNotBeLostWhenTheQueryMissedIt() {
+        // The booking commits after the query read the day, but before the day is cached.
+        when(appointmentRepository.findBookedSlotsByDate(DATE)).thenAnswer(invocation -> {
+            availabilityIndex.trackBooking(DATE, 5L, 1L, 100L);
+            return List.of();
+        });
+
+        assertEquals(List.of(2L), availabilityIndex.findFreeDoctors(10L, DATE, 5L).stream().map(Doctor::getId).toList());
+        assertEquals(List.of(101L), availabilityIndex.findFreeRooms(DATE, 5L).stream().map(Room::getId).toList());
+    }
+
+    @Test
+    void doctorAndRoomBookings_ShouldCountTheDayInOnePass() {
+        when(appointmentRepository.findBookedSlotsByDate(DATE)).thenReturn(List.of(
+                booked(1L, 100L, 5L), booked(1L, 101L, 6L), booked(2L, 100L, 7L)));
+
+        assertEquals(Map.of(1L, 2, 2L, 1), availabilityIndex.doctorBookings(DATE));
+        assertEquals(Map.of(100L, 2, 101L, 1), availabilityIndex.roomBookings(DATE));
+        verify(appointmentRepository, times(1)).findBookedSlotsByDate(eq(DATE));
+    }
+
+    private Doctor doctor(final Long id, final Long specialtyId) {
+        return Doctor.builder()
+                .id(id)
+                .specialty(Specialty.builder().id(specialtyId).build())
+                .build();
+    }
+
+    private BookedSlotView booked(final Long doctorId, final Long roomId, final Long timeSlotId) {
+        return new BookedSlotView() {
+            @Override
+            public Long getDoctorId() {
+                return doctorId;
+            }
+
+            @Override
+            public Long getRoomId() {
+                return roomId;
+            }
+
+            @Override
+            public Long getTimeSlotId() {
+                return timeSlotId;
+            }
+        };
+    }
+}
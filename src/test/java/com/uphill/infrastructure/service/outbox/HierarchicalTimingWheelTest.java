@@ -0,0 +1,64 @@
+package com.uphill.infrastructure.service.outbox;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HierarchicalTimingWheelTest {
+
+    @Test
+    void add_AlreadyDue_ShouldBeRejected() {
+        final HierarchicalTimingWheel<String> wheel = new HierarchicalTimingWheel<>(10, 8, 1_000);
+
+        assertFalse(wheel.add(1_000, "now"));
+        assertFalse(wheel.add(500, "past"));
+        assertTrue(wheel.add(1_001, "soon"));
+        assertEquals(1, wheel.size());
+    }
+
+    @Test
+    void advance_ShouldFireOnTheFirstTickAtOrAfterDueTime() {
+        final HierarchicalTimingWheel<String> wheel = new HierarchicalTimingWheel<>(10, 8, 0);
+        final List<String> fired = new ArrayList<>();
+        wheel.add(15, "a");
+        wheel.add(20, "b");
+
+        wheel.advance(19, fired::add);
+        assertEquals(List.of(), fired);
+
+        wheel.advance(20, fired::add);
+        assertEquals(List.of("a", "b"), fired);
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void advance_DelaysBeyondTheLowestLevel_ShouldCascadeAndFireOnTime() {
+        final HierarchicalTimingWheel<Long> wheel = new HierarchicalTimingWheel<>(10, 4, 3);
+        final Random random = new Random(42);
+        final List<Long> dueTimes = new ArrayList<>();
+        for (int i = 0; i < 2_000; i++) {
+            final long due = 11 + random.nextInt(50_000);
+            dueTimes.add(due);
+            wheel.add(due, due);
+        }
+
+        final List<long[]> fired = new ArrayList<>();
+        for (long now = 0; now <= 50_100; now += 7) {
+            final long at = now;
+            wheel.advance(now, due -> fired.add(new long[] {due, at}));
+        }
+
+        assertEquals(dueTimes.size(), fired.size());
+        assertEquals(0, wheel.size());
+        for (final long[] firing : fired) {
+            assertTrue(firing[1] >= firing[0], "fired early: " + firing[0] + " at " + firing[1]);
+            assertTrue(firing[1] - firing[0] < 10 + 7, "fired late: " + firing[0] + " at " + firing[1]);
+        }
+    }
+}
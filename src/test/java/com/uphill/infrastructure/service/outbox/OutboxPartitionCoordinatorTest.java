@@ -0,0 +1,250 @@
+package com.uphill.infrastructure.service.outbox;
+
+import com.uphill.core.application.service.appointment.OutboxPoller;
+import com.uphill.infrastructure.config.OutboxPartitionProperties;
+import com.uphill.infrastructure.persistence.OutboxEvent.OutboxEventEntity;
+import com.uphill.infrastructure.persistence.OutboxEvent.OutboxEventRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIf;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.support.PropertiesLoaderUtils;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Properties;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Drives heartbeats of several coordinators against the Flyway-migrated schema of the test
+ * profile; skipped when that database is not reachable. A node dies by having its heartbeat and
+ * leases moved into the past. Everything runs in the test transaction and is rolled back.
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("test")
+@EnabledIf("databaseAvailable")
+class OutboxPartitionCoordinatorTest {
+
+    private static final int PARTITIONS = 4;
+    private static final Set<Integer> ALL = Set.of(0, 1, 2, 3);
+    private static final long AGGREGATE_ID = 424242L;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+
+    private final OutboxPartitionProperties properties = new OutboxPartitionProperties();
+    private final OutboxPoller outboxPoller = mock(OutboxPoller.class);
+
+    @BeforeEach
+    void setUp() {
+        properties.setCount(PARTITIONS);
+        // Start from an idle cluster.
+        jdbcTemplate.update("DELETE FROM outbox_nodes");
+        jdbcTemplate.update("UPDATE outbox_partitions SET owner = NULL, lease_until = NULL");
+    }
+
+    @Test
+    void heartbeat_SingleNode_ShouldTakeEveryPartition() {
+        final OutboxPartitionCoordinator a = coordinator("node-a");
+
+        a.heartbeat();
+
+        assertEquals(ALL, a.getOwnedPartitions());
+        assertEquals(ALL, ownedInDatabase("node-a"));
+        verify(outboxPoller).wakeUp();
+    }
+
+    @Test
+    void heartbeat_WhenNodeJoins_ShouldReleaseSurplusAndRebalance() {
+        final OutboxPartitionCoordinator a = coordinator("node-a");
+        final OutboxPartitionCoordinator b = coordinator("node-b");
+        a.heartbeat();
+
+        // b cannot take partitions a still holds leases on; a gives half of them up on its next beat.
+        b.heartbeat();
+        assertEquals(Set.of(), b.getOwnedPartitions());
+        a.heartbeat();
+        b.heartbeat();
+
+        assertEquals(Set.of(0, 1), a.getOwnedPartitions());
+        assertEquals(Set.of(2, 3), b.getOwnedPartitions());
+        assertEquals(Set.of(0, 1), ownedInDatabase("node-a"));
+        assertEquals(Set.of(2, 3), ownedInDatabase("node-b"));
+    }
+
+    @Test
+    void heartbeat_UnevenSplit_ShouldNeverExceedFairShare() {
+        final List<OutboxPartitionCoordinator> nodes =
+                List.of(coordinator("node-a"), coordinator("node-b"), coordinator("node-c"));
+
+        for (int round = 0; round < 3; round++) {
+            nodes.forEach(OutboxPartitionCoordinator::heartbeat);
+        }
+
+        // ceil(4 / 3) = 2
+        final Set<Integer> covered = new HashSet<>();
+        int owned = 0;
+        for (final OutboxPartitionCoordinator node : nodes) {
+            assertTrue(node.getOwnedPartitions().size() <= 2, node.getOwnedPartitions().toString());
+            covered.addAll(node.getOwnedPartitions());
+            owned += node.getOwnedPartitions().size();
+        }
+        assertEquals(ALL, covered);
+        assertEquals(PARTITIONS, owned);
+    }
+
+    @Test
+    void heartbeat_WhenNodeStopsBeating_ShouldTakeOverItsPartitionsOnlyOnceTheirLeasesEnd() {
+        final OutboxPartitionCoordinator a = coordinator("node-a");
+        final OutboxPartitionCoordinator b = coordinator("node-b");
+        balance(a, b);
+
+        // Past the heartbeat TTL, b no longer counts as live, but its partition leases still hold.
+        ageHeartbeat("node-b", 20);
+        a.heartbeat();
+        assertEquals(Set.of(0, 1), a.getOwnedPartitions());
+        assertEquals(Set.of(2, 3), ownedInDatabase("node-b"));
+
+        expirePartitionLeases("node-b");
+        a.heartbeat();
+        assertEquals(ALL, a.getOwnedPartitions());
+        assertEquals(ALL, ownedInDatabase("node-a"));
+        assertEquals(1, nodeRows("node-b"));
+
+        // Ten TTLs without a heartbeat and the node is forgotten.
+        ageHeartbeat("node-b", 3600);
+        a.heartbeat();
+        assertEquals(0, nodeRows("node-b"));
+    }
+
+    @Test
+    void claimDueEvents_AfterFailover_ShouldWaitForThePreviousOwnersEventOfTheAggregate() {
+        final OutboxPartitionCoordinator a = coordinator("node-a");
+        final OutboxPartitionCoordinator b = coordinator("node-b");
+        ensureTodaysPartition();
+        final long first = insertEvent(1);
+        final long second = insertEvent(2);
+        a.heartbeat();
+        assertEquals(List.of(first), ids(outboxEventRepository.claimPendingByIds(List.of(first), LocalDateTime.now(),
+                true, PARTITIONS, "node-a", 30)));
+
+        // a dies with the first event in flight and b takes its partitions over.
+        ageHeartbeat("node-a", 20);
+        expirePartitionLeases("node-a");
+        b.heartbeat();
+        assertEquals(ALL, b.getOwnedPartitions());
+        assertEquals(List.of(), claimAggregate("node-b"));
+
+        // Once the first event's lease ends it is requeued, and both go to b in order.
+        jdbcTemplate.update("UPDATE outbox_events SET lease_until = LOCALTIMESTAMP - interval '1 second' WHERE id = ?", first);
+        assertTrue(outboxEventRepository.requeueExpiredLeases() >= 1);
+        assertEquals(List.of(first, second), claimAggregate("node-b"));
+    }
+
+    @Test
+    void claimDueEvents_SameNode_ShouldWaitForItsOwnEventOfTheAggregate() {
+        final OutboxPartitionCoordinator a = coordinator("node-a");
+        ensureTodaysPartition();
+        final long first = insertEvent(1);
+        final long second = insertEvent(2);
+        a.heartbeat();
+        assertEquals(List.of(first), ids(outboxEventRepository.claimPendingByIds(List.of(first), LocalDateTime.now(),
+                true, PARTITIONS, "node-a", 30)));
+
+        // A second claim on the same node, e.g. the poller next to an after-commit dispatch.
+        assertEquals(List.of(), claimAggregate("node-a"));
+
+        assertEquals(List.of(first), outboxEventRepository.markProcessed(new Long[] {first}, "node-a"));
+        assertEquals(List.of(second), claimAggregate("node-a"));
+    }
+
+    private OutboxPartitionCoordinator coordinator(final String nodeId) {
+        return new OutboxPartitionCoordinator(jdbcTemplate, new OutboxNode(nodeId), properties, outboxPoller);
+    }
+
+    private static void balance(final OutboxPartitionCoordinator a, final OutboxPartitionCoordinator b) {
+        a.heartbeat();
+        b.heartbeat();
+        a.heartbeat();
+        b.heartbeat();
+        assertEquals(Set.of(0, 1), a.getOwnedPartitions());
+        assertEquals(Set.of(2, 3), b.getOwnedPartitions());
+    }
+
+    private void ageHeartbeat(final String nodeId, final int seconds) {
+        jdbcTemplate.update("UPDATE outbox_nodes SET heartbeat_at = LOCALTIMESTAMP - make_interval(secs => ?) " +
+                "WHERE node_id = ?", seconds, nodeId);
+    }
+
+    private void expirePartitionLeases(final String nodeId) {
+        jdbcTemplate.update("UPDATE outbox_partitions SET lease_until = LOCALTIMESTAMP - interval '1 second' " +
+                "WHERE owner = ?", nodeId);
+    }
+
+    private Set<Integer> ownedInDatabase(final String nodeId) {
+        return new HashSet<>(jdbcTemplate.queryForList("SELECT partition_no FROM outbox_partitions " +
+                "WHERE owner = ? AND partition_no < ?", Integer.class, nodeId, PARTITIONS));
+    }
+
+    private int nodeRows(final String nodeId) {
+        return jdbcTemplate.queryForObject("SELECT count(*) FROM outbox_nodes WHERE node_id = ?", Integer.class, nodeId);
+    }
+
+    private void ensureTodaysPartition() {
+        jdbcTemplate.execute("DO $$ BEGIN EXECUTE format(" +
+                "'CREATE TABLE IF NOT EXISTS %I PARTITION OF outbox_events FOR VALUES FROM (%L) TO (%L)', " +
+                "'outbox_events_p' || to_char(CURRENT_DATE, 'YYYYMMDD'), CURRENT_DATE::timestamp, " +
+                "(CURRENT_DATE + 1)::timestamp); END $$");
+    }
+
+    private long insertEvent(final int second) {
+        return jdbcTemplate.queryForObject("INSERT INTO outbox_events (aggregate_id, aggregate_type, event_type, payload, created_at) " +
+                "VALUES (?, 'CoordinatorTest', 'TEST', '{}'::jsonb, CURRENT_DATE + make_interval(secs => ?)) RETURNING id",
+                Long.class, AGGREGATE_ID, second);
+    }
+
+    private List<Long> claimAggregate(final String nodeId) {
+        return ids(outboxEventRepository.claimDueEvents(LocalDateTime.now(), 1000, true, PARTITIONS, nodeId, 30).stream()
+                .filter(event -> AGGREGATE_ID == event.getAggregateId())
+                .toList());
+    }
+
+    private static List<Long> ids(final List<OutboxEventEntity> events) {
+        return events.stream().map(OutboxEventEntity::getId).toList();
+    }
+
+    static boolean databaseAvailable() {
+        try {
+            final Properties properties = PropertiesLoaderUtils.loadProperties(new ClassPathResource("application-test.properties"));
+            try (Connection ignored = DriverManager.getConnection(setting(properties, "spring.datasource.url"),
+                    setting(properties, "spring.datasource.username"), setting(properties, "spring.datasource.password"))) {
+                return true;
+            }
+        } catch (IOException | SQLException ex) {
+            return false;
+        }
+    }
+
+    // System properties win, as they do for the Spring context.
+    private static String setting(final Properties properties, final String name) {
+        return System.getProperty(name, properties.getProperty(name));
+    }
+}
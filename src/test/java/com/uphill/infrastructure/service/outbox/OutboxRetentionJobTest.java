@@ -0,0 +1,212 @@
+package com.uphill.infrastructure.service.outbox;
+
+import com.uphill.infrastructure.config.OutboxRetentionProperties;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.springframework.jdbc.BadSqlGrammarException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.RETURNS_DEEP_STUBS;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class OutboxRetentionJobTest {
+
+    private static final DateTimeFormatter SUFFIX = DateTimeFormatter.ofPattern("yyyyMMdd");
+    // The database's CURRENT_DATE, deliberately not the JVM's
+    private static final LocalDate TODAY = LocalDate.of(2031, 5, 14);
+    private static final LocalDate OLD_DAY = TODAY.minusDays(10);
+    private static final String OLD = "outbox_events_p" + OLD_DAY.format(SUFFIX);
+    private static final String OLD_BOUND = "FOR VALUES FROM ('" + OLD_DAY + " 00:00:00') TO ('" + OLD_DAY.plusDays(1) + " 00:00:00')";
+
+    private JdbcTemplate jdbcTemplate;
+    private Connection lockConnection;
+    private OutboxRetentionProperties properties;
+    private OutboxRetentionJob job;
+    private final List<String[]> partitions = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        jdbcTemplate = mock(JdbcTemplate.class);
+        lockConnection = mock(Connection.class, RETURNS_DEEP_STUBS);
+        when(lockConnection.prepareStatement(anyString()).executeQuery().next()).thenReturn(true);
+        when(lockConnection.prepareStatement(anyString()).executeQuery().getBoolean(1)).thenReturn(true);
+        when(jdbcTemplate.queryForObject("SELECT CURRENT_DATE", LocalDate.class)).thenReturn(TODAY);
+        when(jdbcTemplate.execute(any(ConnectionCallback.class)))
+                .thenAnswer(invocation -> invocation.<ConnectionCallback<?>>getArgument(0).doInConnection(lockConnection));
+        when(jdbcTemplate.query(startsWith("SELECT c.relname"), any(RowMapper.class))).thenAnswer(invocation -> {
+            final RowMapper<?> mapper = invocation.getArgument(1);
+            final List<Object> rows = new ArrayList<>();
+            for (final String[] partition : partitions) {
+                rows.add(mapper.mapRow(row(partition), rows.size()));
+            }
+            return rows;
+        });
+        properties = new OutboxRetentionProperties();
+        job = new OutboxRetentionJob(jdbcTemplate, new TransactionTemplate(mock(PlatformTransactionManager.class)), properties);
+    }
+
+    @Test
+    void run_ShouldCreateMissingDaysAheadAndAttachThem() {
+        givenUpcomingPartitions(0);
+
+        job.run();
+
+        for (int i = 1; i <= properties.getPremakeDays(); i++) {
+            final LocalDate day = TODAY.plusDays(i);
+            final String name = "\"outbox_events_p" + day.format(SUFFIX) + "\"";
+            verify(jdbcTemplate).execute("CREATE TABLE " + name + " (LIKE outbox_events INCLUDING DEFAULTS)");
+            verify(jdbcTemplate).execute("ALTER TABLE outbox_events ATTACH PARTITION " + name +
+                    " FOR VALUES FROM ('" + day + "T00:00') TO ('" + day.plusDays(1) + "T00:00')");
+        }
+        verify(jdbcTemplate, never()).execute(contains("PARTITION OF"));
+    }
+
+    @Test
+    void run_RetentionDisabled_ShouldStillCreateUpcomingDaysButRetireNothing() {
+        properties.setEnabled(false);
+        givenUpcomingPartitions(0);
+        partitions.add(new String[] {OLD, OLD_BOUND, "f"});
+        givenUnfinishedEvents(false);
+
+        job.onStartup();
+
+        final LocalDate day = TODAY.plusDays(properties.getPremakeDays());
+        verify(jdbcTemplate).execute("CREATE TABLE \"outbox_events_p" + day.format(SUFFIX) + "\" (LIKE outbox_events INCLUDING DEFAULTS)");
+        verify(jdbcTemplate, never()).execute(contains("DETACH"));
+        verify(jdbcTemplate, never()).execute(startsWith("DROP TABLE"));
+    }
+
+    @Test
+    void run_ShouldDetachConcurrentlyAndDropFinishedPartition() {
+        givenUpcomingPartitions(properties.getPremakeDays());
+        partitions.add(new String[] {OLD, OLD_BOUND, "f"});
+        givenUnfinishedEvents(false);
+
+        job.run();
+
+        final InOrder order = inOrder(jdbcTemplate);
+        order.verify(jdbcTemplate).execute("ALTER TABLE outbox_events DETACH PARTITION \"" + OLD + "\" CONCURRENTLY");
+        order.verify(jdbcTemplate).execute("DROP TABLE \"" + OLD + "\"");
+        verify(jdbcTemplate, never()).execute(contains("CREATE TABLE"));
+    }
+
+    @Test
+    void run_ArchiveMode_ShouldAttachRetiredPartitionToArchive() {
+        properties.setMode(OutboxRetentionProperties.Mode.ARCHIVE);
+        givenUpcomingPartitions(properties.getPremakeDays());
+        partitions.add(new String[] {OLD, OLD_BOUND, "f"});
+        givenUnfinishedEvents(false);
+
+        job.run();
+
+        verify(jdbcTemplate).execute("ALTER TABLE outbox_events DETACH PARTITION \"" + OLD + "\" CONCURRENTLY");
+        verify(jdbcTemplate).execute("ALTER TABLE outbox_events_archive ATTACH PARTITION \"" + OLD + "\" " + OLD_BOUND);
+        verify(jdbcTemplate, never()).execute(startsWith("DROP TABLE"));
+    }
+
+    @Test
+    void run_ShouldKeepPartitionWithPendingOrInFlightEvents() {
+        givenUpcomingPartitions(properties.getPremakeDays());
+        partitions.add(new String[] {OLD, OLD_BOUND, "f"});
+        givenUnfinishedEvents(true);
+
+        job.run();
+
+        verify(jdbcTemplate).queryForObject("SELECT EXISTS (SELECT 1 FROM \"" + OLD + "\" WHERE status IN ('PENDING', 'IN_FLIGHT'))",
+                Boolean.class);
+        verify(jdbcTemplate, never()).execute(contains("DETACH"));
+        verify(jdbcTemplate, never()).execute(startsWith("DROP TABLE"));
+    }
+
+    @Test
+    void run_WhenEventsTurnUnfinishedDuringDetach_ShouldAttachPartitionBack() {
+        givenUpcomingPartitions(properties.getPremakeDays());
+        partitions.add(new String[] {OLD, OLD_BOUND, "f"});
+        when(jdbcTemplate.queryForObject(contains("FROM \"" + OLD + "\""), eq(Boolean.class))).thenReturn(false, true);
+
+        job.run();
+
+        verify(jdbcTemplate).execute("ALTER TABLE outbox_events ATTACH PARTITION \"" + OLD + "\" " + OLD_BOUND);
+        verify(jdbcTemplate, never()).execute(startsWith("DROP TABLE"));
+    }
+
+    @Test
+    void run_WhenArchivingFails_ShouldAttachPartitionBack() {
+        properties.setMode(OutboxRetentionProperties.Mode.ARCHIVE);
+        givenUpcomingPartitions(properties.getPremakeDays());
+        partitions.add(new String[] {OLD, OLD_BOUND, "f"});
+        givenUnfinishedEvents(false);
+        doThrow(new BadSqlGrammarException("attach", "ALTER TABLE outbox_events_archive", new SQLException("overlap")))
+                .when(jdbcTemplate).execute(startsWith("ALTER TABLE outbox_events_archive"));
+
+        job.run();
+
+        verify(jdbcTemplate).execute("ALTER TABLE outbox_events ATTACH PARTITION \"" + OLD + "\" " + OLD_BOUND);
+    }
+
+    @Test
+    void run_ShouldFinishAnInterruptedDetach() {
+        givenUpcomingPartitions(properties.getPremakeDays());
+        partitions.add(new String[] {OLD, OLD_BOUND, "t"});
+        givenUnfinishedEvents(false);
+
+        job.run();
+
+        final InOrder order = inOrder(jdbcTemplate);
+        order.verify(jdbcTemplate).execute("ALTER TABLE outbox_events DETACH PARTITION \"" + OLD + "\" FINALIZE");
+        order.verify(jdbcTemplate).execute("DROP TABLE \"" + OLD + "\"");
+    }
+
+    @Test
+    void run_WhenAnotherNodeHoldsTheLock_ShouldDoNothing() throws SQLException {
+        when(lockConnection.prepareStatement(anyString()).executeQuery().getBoolean(1)).thenReturn(false);
+
+        job.run();
+
+        verify(jdbcTemplate, never()).query(anyString(), any(RowMapper.class));
+        verify(jdbcTemplate, never()).execute(anyString());
+    }
+
+    private void givenUpcomingPartitions(final int daysAhead) {
+        for (int i = 0; i <= daysAhead; i++) {
+            final LocalDate day = TODAY.plusDays(i);
+            partitions.add(new String[] {"outbox_events_p" + day.format(SUFFIX),
+                    "FOR VALUES FROM ('" + day + " 00:00:00') TO ('" + day.plusDays(1) + " 00:00:00')", "f"});
+        }
+    }
+
+    private void givenUnfinishedEvents(final boolean unfinished) {
+        when(jdbcTemplate.queryForObject(contains("FROM \"" + OLD + "\""), eq(Boolean.class))).thenReturn(unfinished);
+    }
+
+    private static ResultSet row(final String[] partition) throws SQLException {
+        final ResultSet rs = mock(ResultSet.class);
+        when(rs.getString(1)).thenReturn(partition[0]);
+        when(rs.getString(2)).thenReturn(partition[1]);
+        when(rs.getBoolean(3)).thenReturn("t".equals(partition[2]));
+        return rs;
+    }
+}
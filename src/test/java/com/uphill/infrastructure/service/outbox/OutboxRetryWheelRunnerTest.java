@@ -0,0 +1,83 @@
+package com.uphill.infrastructure.service.outbox;
+
+import com.uphill.core.application.service.appointment.AppointmentSagaPersistenceService;
+import com.uphill.core.application.service.appointment.OutboxEventPersistenceService;
+import com.uphill.core.application.service.appointment.OutboxProcessingService;
+import com.uphill.core.application.service.appointment.SagaProcessingService;
+import com.uphill.infrastructure.config.OutboxRetryWheelProperties;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class OutboxRetryWheelRunnerTest {
+
+    private final OutboxRetryWheelProperties properties = new OutboxRetryWheelProperties();
+    private final OutboxEventPersistenceService outboxEventPersistenceService = mock(OutboxEventPersistenceService.class);
+    private final AppointmentSagaPersistenceService appointmentSagaPersistenceService = mock(AppointmentSagaPersistenceService.class);
+
+    private OutboxRetryWheel wheel;
+    private OutboxRetryWheelRunner runner;
+
+    @BeforeEach
+    void setUp() {
+        properties.setLoadPageSize(2);
+        wheel = new OutboxRetryWheel(properties);
+        runner = new OutboxRetryWheelRunner(wheel, mock(OutboxProcessingService.class), mock(SagaProcessingService.class),
+                outboxEventPersistenceService, appointmentSagaPersistenceService, mock(ExecutorService.class), properties);
+    }
+
+    @Test
+    void load_FullPage_ShouldContinueAfterItsLastRow() {
+        final LocalDateTime due = LocalDateTime.now().plusMinutes(1);
+        when(outboxEventPersistenceService.findScheduledRetries(any(), anyLong(), any(), anyInt()))
+                .thenReturn(retries(1L, due, 2L, due))
+                .thenReturn(retries(3L, due.plusSeconds(1)));
+
+        runner.load();
+
+        verify(outboxEventPersistenceService).findScheduledRetries(any(), eq(Long.MAX_VALUE), any(), eq(2));
+        verify(outboxEventPersistenceService).findScheduledRetries(eq(due), eq(2L), any(), eq(2));
+        assertEquals(3, wheel.size());
+    }
+
+    @Test
+    void load_ShouldOnlyReachTheHorizonAndPickUpWhereTheLastLoadStopped() {
+        final LocalDateTime before = LocalDateTime.now();
+
+        runner.load();
+        runner.load();
+
+        final ArgumentCaptor<LocalDateTime> afterAt = ArgumentCaptor.forClass(LocalDateTime.class);
+        final ArgumentCaptor<LocalDateTime> until = ArgumentCaptor.forClass(LocalDateTime.class);
+        verify(outboxEventPersistenceService, times(2)).findScheduledRetries(afterAt.capture(), anyLong(), until.capture(), anyInt());
+        final Duration horizon = Duration.ofMillis(properties.getLoadHorizonMs());
+        assertFalse(until.getAllValues().get(0).isBefore(before.plus(horizon)));
+        assertFalse(until.getAllValues().get(1).isAfter(LocalDateTime.now().plus(horizon)));
+        assertEquals(until.getAllValues().get(0), afterAt.getAllValues().get(1));
+    }
+
+    private static Map<Long, LocalDateTime> retries(final Object... idsAndDueTimes) {
+        final Map<Long, LocalDateTime> retries = new LinkedHashMap<>();
+        for (int i = 0; i < idsAndDueTimes.length; i += 2) {
+            retries.put((Long) idsAndDueTimes[i], (LocalDateTime) idsAndDueTimes[i + 1]);
+        }
+        return retries;
+    }
+}
@@ -0,0 +1,134 @@
+package com.uphill.infrastructure.service.outbox;
+
+import com.uphill.core.domain.OutboxEvent;
+import com.uphill.infrastructure.config.OutboxDispatchProperties;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ParallelOutboxDispatcherTest {
+
+    private ExecutorService executor;
+    private OutboxDispatchProperties properties;
+
+    @BeforeEach
+    void setUp() {
+        executor = Executors.newFixedThreadPool(8);
+        properties = new OutboxDispatchProperties();
+        properties.setConcurrency(4);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void dispatch_ShouldKeepEventsOfOneAggregateInOrder() throws Exception {
+        final ParallelOutboxDispatcher dispatcher = new ParallelOutboxDispatcher(executor, properties);
+        final List<OutboxEvent> events = new ArrayList<>();
+        for (long id = 1; id <= 30; id++) {
+            events.add(event(id, id % 3, "DOCTOR_CALENDAR_UPDATE"));
+        }
+        final List<Long> aggregateZero = Collections.synchronizedList(new ArrayList<>());
+
+        dispatcher.dispatch(events, event -> {
+            sleepQuietly(event.getId() % 2 == 0 ? 5 : 1);
+            if (event.getAggregateId() == 0L) {
+                aggregateZero.add(event.getId());
+            }
+            return CompletableFuture.completedFuture(null);
+        }).get(5, TimeUnit.SECONDS);
+
+        assertEquals(List.of(3L, 6L, 9L, 12L, 15L, 18L, 21L, 24L, 27L, 30L), aggregateZero);
+    }
+
+    @Test
+    void dispatch_ShouldRunIndependentStepsSideBySideAndDependentOnesAfter() throws Exception {
+        final ParallelOutboxDispatcher dispatcher = new ParallelOutboxDispatcher(executor, properties);
+        final List<OutboxEvent> events = List.of(
+                event(1L, 7L, "DOCTOR_CALENDAR_UPDATE"), event(2L, 7L, "ROOM_RESERVATION"),
+                event(3L, 7L, "SEND_CONFIRMATION_EMAIL"));
+        final CountDownLatch bothStarted = new CountDownLatch(2);
+        final List<Long> finished = Collections.synchronizedList(new ArrayList<>());
+
+        dispatcher.dispatch(events, (earlier, later) -> "SEND_CONFIRMATION_EMAIL".equals(later.getEventType()), event -> {
+            if (event.getId() < 3L) {
+                // Each waits for the other to start, which only happens if they run side by side.
+                bothStarted.countDown();
+                awaitQuietly(bothStarted);
+            }
+            finished.add(event.getId());
+            return CompletableFuture.completedFuture(null);
+        }).get(5, TimeUnit.SECONDS);
+
+        assertEquals(0, bothStarted.getCount());
+        assertEquals(3L, finished.get(2));
+    }
+
+    @Test
+    void dispatch_ShouldBoundConcurrencyPerTypeAndSurviveFailures() throws Exception {
+        properties.setTypeConcurrency(Map.of("SEND_CONFIRMATION_EMAIL", 2));
+        final ParallelOutboxDispatcher dispatcher = new ParallelOutboxDispatcher(executor, properties);
+        final List<OutboxEvent> events = new ArrayList<>();
+        for (long id = 1; id <= 20; id++) {
+            events.add(event(id, id, "SEND_CONFIRMATION_EMAIL"));
+        }
+        final AtomicInteger inFlight = new AtomicInteger();
+        final AtomicInteger maxInFlight = new AtomicInteger();
+        final AtomicInteger completed = new AtomicInteger();
+
+        dispatcher.dispatch(events, event -> {
+            maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            sleepQuietly(5);
+            inFlight.decrementAndGet();
+            completed.incrementAndGet();
+            if (event.getId() == 1L) {
+                throw new IllegalStateException("downstream error");
+            }
+            return CompletableFuture.completedFuture(null);
+        }).get(5, TimeUnit.SECONDS);
+
+        assertEquals(20, completed.get());
+        assertTrue(maxInFlight.get() <= 2, "max in flight was " + maxInFlight.get());
+    }
+
+    private OutboxEvent event(final Long id, final Long aggregateId, final String eventType) {
+        return OutboxEvent.builder()
+                .id(id)
+                .aggregateId(aggregateId)
+                .eventType(eventType)
+                .status("PENDING")
+                .build();
+    }
+
+    private void awaitQuietly(final CountDownLatch latch) {
+        try {
+            latch.await(1, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void sleepQuietly(final long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
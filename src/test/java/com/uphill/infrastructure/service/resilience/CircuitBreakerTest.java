@@ -0,0 +1,81 @@
+package com.uphill.infrastructure.service.resilience;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CircuitBreakerTest {
+
+    private static final long MS = 1_000_000L;
+
+    private final AtomicLong clock = new AtomicLong();
+    private CircuitBreaker circuit;
+
+    @BeforeEach
+    void setUp() {
+        circuit = new CircuitBreaker(10, 4, 50, 80, Duration.ofMillis(100), Duration.ofSeconds(5), 2, clock::get);
+    }
+
+    @Test
+    void failureRateAboveThreshold_ShouldOpenAndRejectCalls() {
+        call(true);
+        call(false);
+        call(true);
+        assertEquals(CircuitBreaker.State.CLOSED, circuit.snapshot().state());
+
+        call(false);
+
+        assertEquals(CircuitBreaker.State.OPEN, circuit.snapshot().state());
+        assertFalse(circuit.tryAcquire());
+        assertEquals(Duration.ofSeconds(5), circuit.retryAfter());
+    }
+
+    @Test
+    void slowCalls_ShouldOpenEvenWhenTheySucceed() {
+        for (int i = 0; i < 4; i++) {
+            assertTrue(circuit.tryAcquire());
+            circuit.onResult(150 * MS, true);
+        }
+
+        assertEquals(CircuitBreaker.State.OPEN, circuit.snapshot().state());
+    }
+
+    @Test
+    void halfOpen_ShouldCloseAfterTrialCallsSucceed() {
+        for (int i = 0; i < 4; i++) {
+            call(false);
+        }
+        clock.addAndGet(5_000 * MS);
+
+        assertTrue(circuit.tryAcquire());
+        assertTrue(circuit.tryAcquire());
+        assertFalse(circuit.tryAcquire());
+        circuit.onResult(MS, true);
+        assertEquals(CircuitBreaker.State.CLOSED, circuit.onResult(MS, true));
+        assertEquals(0, circuit.snapshot().calls());
+    }
+
+    @Test
+    void oldFailures_ShouldLeaveTheWindow() {
+        call(false);
+        call(false);
+        call(false);
+        clock.addAndGet(11_000 * MS);
+
+        call(false);
+
+        assertEquals(CircuitBreaker.State.CLOSED, circuit.snapshot().state());
+        assertEquals(1, circuit.snapshot().calls());
+    }
+
+    private void call(final boolean success) {
+        assertTrue(circuit.tryAcquire());
+        circuit.onResult(MS, success);
+    }
+}